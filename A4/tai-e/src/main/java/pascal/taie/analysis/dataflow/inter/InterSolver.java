@@ -28,7 +28,6 @@ import pascal.taie.analysis.graph.icfg.ICFGEdge;
 import pascal.taie.language.classes.ClassHierarchy;
 import pascal.taie.util.collection.SetQueue;
 
-import java.util.ArrayDeque;
 import java.util.List;
 import java.util.Queue;
 import java.util.Set;
@@ -57,7 +56,16 @@ class InterSolver<Method, Node, Fact> {
     }
 
     DataflowResult<Node, Fact> solve() {
+        return solve(new SCCWorkList<>(icfg, analysis.isForward()));
+    }
+
+    /**
+     * Solves the ICFG with given work-list, which decides the order of
+     * processing the nodes. The result does not depend on the order.
+     */
+    DataflowResult<Node, Fact> solve(Queue<Node> workList) {
         result = new DataflowResult<>();
+        this.workList = workList;
         initialize();
         doSolve();
         return result;
@@ -87,16 +95,13 @@ class InterSolver<Method, Node, Fact> {
     }
 
     /**
-     * TODO 不求甚解
+     * Solves the ICFG in the order given by the work-list. By default,
+     * it is {@link SCCWorkList}, so that each SCC of the call graph
+     * reaches its fixed point before the solver moves on to the next one.
      */
     private void doSolve() {
-        // TODO - finish me
-
-        workList=new ArrayDeque<>();
-
-        for(Node node: icfg) workList.add(node);
-
-        while (!workList.isEmpty()){
+        icfg.forEach(workList::add);
+        while (!workList.isEmpty()) {
             Node node = workList.poll();
             Fact in = result.getInFact(node);
             Fact out = result.getOutFact(node);
@@ -104,11 +109,7 @@ class InterSolver<Method, Node, Fact> {
                 analysis.meetInto(analysis.transferEdge(e, result.getOutFact(e.getSource())), in);
             }
             if (analysis.transferNode(node, in, out)) {
-                for (Node suc : icfg.getSuccsOf(node)){
-                    if (!workList.contains(suc)) {
-                        workList.add(suc);
-                    }
-                }
+                workList.addAll(icfg.getSuccsOf(node));
             }
         }
     }
@@ -0,0 +1,173 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.inter;
+
+import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.SetQueue;
+import pascal.taie.util.graph.MergedNode;
+import pascal.taie.util.graph.MergedSCCGraph;
+import pascal.taie.util.graph.SimpleGraph;
+import pascal.taie.util.graph.TopoSorter;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+
+/**
+ * Work-list which schedules ICFG nodes by the strongly connected
+ * components (SCCs) of the call graph underlying the ICFG.
+ * <p>
+ * The methods are condensed into SCCs, which are then sorted in
+ * topological order along the direction of the analysis, i.e., callers
+ * before callees for forward analysis and callees before callers
+ * (bottom-up) for backward analysis. {@link #poll()} always returns
+ * a node of the earliest SCC which has pending nodes, so that the nodes
+ * of an SCC are iterated to a fixed point before the solver moves on
+ * to the later SCCs, and the solver goes back to an earlier SCC only
+ * when the facts flowing into it have been changed.
+ *
+ * @param <Method> type of methods
+ * @param <Node>   type of ICFG nodes
+ */
+class SCCWorkList<Method, Node> extends AbstractQueue<Node> {
+
+    /**
+     * Pending nodes of each SCC, in the order of the SCCs.
+     */
+    private final List<Queue<Node>> queues = new ArrayList<>();
+
+    /**
+     * Map from each method to the index of its SCC.
+     */
+    private final Map<Method, Integer> sccIndexes = Maps.newMap();
+
+    private final ICFG<Method, Node> icfg;
+
+    /**
+     * Index of the earliest SCC that may have pending nodes.
+     */
+    private int first = 0;
+
+    private int size = 0;
+
+    SCCWorkList(ICFG<Method, Node> icfg, boolean isForward) {
+        this.icfg = icfg;
+        MergedSCCGraph<Method> sccGraph = new MergedSCCGraph<>(
+                buildMethodGraph(icfg));
+        List<MergedNode<Method>> sccs = new TopoSorter<>(
+                sccGraph, !isForward).get();
+        for (MergedNode<Method> scc : sccs) {
+            int index = queues.size();
+            scc.getNodes().forEach(m -> sccIndexes.put(m, index));
+            queues.add(new SetQueue<>());
+        }
+        // the queue for the nodes whose methods are absent in the
+        // call graph, which should not happen in a well-formed ICFG
+        queues.add(new SetQueue<>());
+    }
+
+    /**
+     * Builds the call graph (on method level) from the given ICFG.
+     */
+    private static <Method, Node> SimpleGraph<Method> buildMethodGraph(
+            ICFG<Method, Node> icfg) {
+        SimpleGraph<Method> graph = new SimpleGraph<>();
+        for (Node node : icfg) {
+            Method caller = icfg.getContainingMethodOf(node);
+            graph.addNode(caller);
+            if (icfg.isCallSite(node)) {
+                icfg.getCalleesOf(node).forEach(callee ->
+                        graph.addEdge(caller, callee));
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Adds a node unless it is already pending. Like {@link SetQueue},
+     * this returns false for a pending node instead of throwing
+     * an exception as {@link AbstractQueue#add(Object)} does.
+     */
+    @Override
+    public boolean add(Node node) {
+        return offer(node);
+    }
+
+    @Override
+    public boolean offer(Node node) {
+        Objects.requireNonNull(node);
+        int index = sccIndexes.getOrDefault(
+                icfg.getContainingMethodOf(node), queues.size() - 1);
+        if (queues.get(index).add(node)) {
+            ++size;
+            first = Math.min(first, index);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Node poll() {
+        Queue<Node> queue = firstNonEmptyQueue();
+        if (queue == null) {
+            return null;
+        }
+        --size;
+        return queue.poll();
+    }
+
+    @Override
+    public Node peek() {
+        Queue<Node> queue = firstNonEmptyQueue();
+        return queue == null ? null : queue.peek();
+    }
+
+    private Queue<Node> firstNonEmptyQueue() {
+        while (first < queues.size()) {
+            Queue<Node> queue = queues.get(first);
+            if (!queue.isEmpty()) {
+                return queue;
+            }
+            ++first;
+        }
+        return null;
+    }
+
+    @Override
+    public Iterator<Node> iterator() {
+        return queues.stream()
+                .flatMap(Queue::stream)
+                .iterator();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
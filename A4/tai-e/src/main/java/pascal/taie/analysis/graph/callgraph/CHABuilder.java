@@ -34,7 +34,7 @@ import java.util.stream.Stream;
 /**
  * Implementation of the CHA algorithm.
  */
-class CHABuilder implements CGBuilder<Invoke, JMethod> {
+public class CHABuilder implements CGBuilder<Invoke, JMethod> {
 
     private ClassHierarchy hierarchy;
 
@@ -53,6 +53,16 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
 
         workList.add(entry);
 
+        propagate(callGraph, workList);
+
+        return callGraph;
+    }
+
+    /**
+     * Processes the methods in the work-list until no more methods
+     * become reachable.
+     */
+    private void propagate(DefaultCallGraph callGraph, Queue<JMethod> workList) {
         while (!workList.isEmpty()) {
             JMethod jMethod = workList.poll();
             if (!callGraph.reachableMethods.contains(jMethod)) {
@@ -69,8 +79,138 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
                 }
             }
         }
+    }
 
-        return callGraph;
+    /**
+     * Incrementally updates a call graph built by this builder after
+     * the program has been changed, instead of rebuilding it from
+     * the entry methods. The class hierarchy of {@link World} is supposed
+     * to reflect the changed program.
+     * <p>
+     * Only the call sites in modified methods, and the call sites whose
+     * CHA targets may involve the added or removed methods, are resolved
+     * again. A call site is considered affected if it has the same
+     * subsignature as a changed method, and its declaring class is
+     * a supertype (for virtual dispatch) or a subtype (for dispatch to
+     * inherited methods) of the declaring class of the changed method.
+     * The call sites calling the removed methods are always affected.
+     * After that, the newly reachable methods are processed as in
+     * {@link #build()}, and the methods which are no longer reachable
+     * from the entry methods are removed from the call graph.
+     *
+     * @param callGraph the call graph to be updated
+     * @param added     methods added to the program
+     * @param removed   methods removed from the program
+     * @param modified  methods whose bodies have been modified
+     */
+    public void update(DefaultCallGraph callGraph,
+                       Collection<JMethod> added,
+                       Collection<JMethod> removed,
+                       Collection<JMethod> modified) {
+        hierarchy = World.get().getClassHierarchy();
+        Queue<JMethod> workList = new LinkedList<>();
+        // call sites in the modified methods are rebuilt from the new IR
+        for (JMethod method : modified) {
+            if (callGraph.removeReachableMethod(method)) {
+                workList.add(method);
+            }
+        }
+        for (JMethod method : removed) {
+            callGraph.removeReachableMethod(method);
+        }
+        // re-resolve the affected call sites in the unchanged methods
+        Set<Invoke> affected = getAffectedCallSites(callGraph,
+                Stream.concat(added.stream(), removed.stream()).toList());
+        for (JMethod method : removed) {
+            affected.addAll(callGraph.getCallersOf(method));
+        }
+        for (Invoke invoke : affected) {
+            callGraph.removeEdgesOutOf(invoke);
+            for (JMethod method : resolve(invoke)) {
+                callGraph.addEdge(new Edge<>(CallGraphs.getCallKind(invoke), invoke, method));
+                workList.add(method);
+            }
+        }
+        propagate(callGraph, workList);
+        removeUnreachableMethods(callGraph);
+    }
+
+    private Set<Invoke> getAffectedCallSites(
+            DefaultCallGraph callGraph, Collection<JMethod> changed) {
+        Set<Invoke> affected = new HashSet<>();
+        if (changed.isEmpty()) {
+            return affected;
+        }
+        Map<Subsignature, Set<JClass>> changedClasses = new HashMap<>();
+        for (JMethod method : changed) {
+            // removed methods come from the old program, thus their
+            // classes and subsignatures are looked up in the current world
+            JClass jClass = hierarchy.getClass(method.getDeclaringClass().getName());
+            if (jClass != null) {
+                Subsignature subsig = Subsignature.get(method.getSubsignature().toString());
+                changedClasses.computeIfAbsent(subsig, k -> new HashSet<>()).add(jClass);
+            }
+        }
+        Map<JClass, Set<JClass>> supertypes = new HashMap<>();
+        callGraph.reachableMethods().forEach(caller ->
+                callGraph.callSitesIn(caller).forEach(invoke -> {
+                    MethodRef ref = invoke.getMethodRef();
+                    Set<JClass> classes = changedClasses.get(ref.getSubsignature());
+                    if (classes == null) {
+                        return;
+                    }
+                    JClass declaringClass = ref.getDeclaringClass();
+                    for (JClass jClass : classes) {
+                        if (getSupertypes(jClass, supertypes).contains(declaringClass) ||
+                                getSupertypes(declaringClass, supertypes).contains(jClass)) {
+                            affected.add(invoke);
+                            break;
+                        }
+                    }
+                }));
+        return affected;
+    }
+
+    /**
+     * @return the given class, its superclasses and all interfaces
+     * implemented by them.
+     */
+    private static Set<JClass> getSupertypes(
+            JClass jClass, Map<JClass, Set<JClass>> cache) {
+        return cache.computeIfAbsent(jClass, c -> {
+            Set<JClass> result = new HashSet<>();
+            Queue<JClass> queue = new LinkedList<>();
+            queue.add(c);
+            while (!queue.isEmpty()) {
+                JClass type = queue.poll();
+                if (type != null && result.add(type)) {
+                    queue.add(type.getSuperClass());
+                    queue.addAll(type.getInterfaces());
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Removes the methods which are not reachable from the entry methods
+     * through the existing call edges. The callers of an unreachable method
+     * are also unreachable, thus the edges targeting to it are removed
+     * together with its callers.
+     */
+    private static void removeUnreachableMethods(DefaultCallGraph callGraph) {
+        Set<JMethod> reachable = new HashSet<>();
+        Queue<JMethod> queue = new LinkedList<>(callGraph.entryMethods().toList());
+        while (!queue.isEmpty()) {
+            JMethod method = queue.poll();
+            if (reachable.add(method)) {
+                queue.addAll(callGraph.getCalleesOfM(method));
+            }
+        }
+        callGraph.reachableMethods()
+                .filter(m -> !reachable.contains(m))
+                .toList()
+                .forEach(callGraph::removeReachableMethod);
     }
 
     /**
@@ -84,8 +224,11 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
         CallKind callKind = CallGraphs.getCallKind(callSite);
 
         if (callKind == CallKind.STATIC) {
-            JMethod jMethod = callSite.getContainer();
-            T.add(jMethod);     //TODO 不一样
+            JClass jClass = callSite.getMethodRef().getDeclaringClass();
+            Subsignature subsignature = callSite.getMethodRef().getSubsignature();
+            JMethod jMethod = dispatch(jClass, subsignature);
+            if (jMethod != null)
+                T.add(jMethod);
         } else if (callKind == CallKind.SPECIAL) {
             JClass jClass = callSite.getMethodRef().getDeclaringClass();
             Subsignature subsignature = callSite.getMethodRef().getSubsignature();
@@ -32,6 +32,7 @@ import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.language.classes.ClassHierarchyImpl;
 import pascal.taie.language.classes.JMethod;
 
+import java.nio.file.Path;
 import java.util.Collection;
 import java.util.Comparator;
 
@@ -58,6 +59,11 @@ public class CallGraphBuilder extends ProgramAnalysis {
         CGBuilder<Invoke, JMethod> builder;
         if (algorithm.equals("cha")) {
             builder = new CHABuilder();
+        } else if (algorithm.equals("rta")) {
+            builder = new RTABuilder();
+        } else if (algorithm.equals("snapshot")) {
+            Path file = getSnapshotFile();
+            builder = () -> CallGraphSnapshot.load(file);
         } else {
             throw new ConfigException("Unknown call graph building algorithm: " + algorithm);
         }
@@ -77,9 +83,23 @@ public class CallGraphBuilder extends ProgramAnalysis {
             logCallGraph(callGraph);
             String file = getOptions().getString("file");
             CallGraphs.dumpCallGraph(callGraph, file);
+        } else if (action.equals("dump-binary")) {
+            CallGraphSnapshot.dump(callGraph, getSnapshotFile());
         }
     }
 
+    /**
+     * @return path of the binary call graph snapshot given by option "file".
+     */
+    private Path getSnapshotFile() {
+        String file = getOptions().getString("file");
+        if (file == null) {
+            throw new ConfigException("Option \"file\" is required to " +
+                    "dump or load call graph snapshot");
+        }
+        return Path.of(file);
+    }
+
     static void logCallGraph(CallGraph<Invoke, JMethod> callGraph) {
         Comparator<JMethod> cmp = Comparator.comparing(JMethod::toString);
         logger.info("#reachable methods: {}", callGraph.getNumberOfMethods());
@@ -0,0 +1,235 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.graph.callgraph;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.classes.Subsignature;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary snapshot of call graph, which allows the subsequent
+ * runs on the same program to reload the call graph instead of
+ * rebuilding it.
+ * <p>
+ * Methods are encoded by their declaring class names and subsignatures
+ * (which are stable across runs), and stored in a string table and
+ * a method table. Call sites are encoded by the indexes of their
+ * containing methods and their indexes in the IR, together with their
+ * method references and line numbers, which are checked on loading, so
+ * that a snapshot of a changed program is rejected instead of attaching
+ * edges to the wrong statements. Layout of the file:
+ * <pre>
+ * magic, version
+ * #strings, (length, UTF-8 bytes)*
+ * #reachable methods, (class name string, subsignature string)*
+ * #entry methods, (method)*
+ * #edges, (caller method, call site index, method reference string,
+ *          line number, callee method, call kind)*
+ * </pre>
+ * All numbers are stored as 4-byte integers, except call kinds which
+ * are stored as single bytes.
+ */
+public final class CallGraphSnapshot {
+
+    private static final Logger logger = LogManager.getLogger(CallGraphSnapshot.class);
+
+    private static final int MAGIC = 0x54414347; // "TACG"
+
+    private static final int VERSION = 2;
+
+    private static final CallKind[] CALL_KINDS = CallKind.values();
+
+    private CallGraphSnapshot() {
+    }
+
+    /**
+     * Writes the given call graph to the given file.
+     */
+    public static void dump(CallGraph<Invoke, JMethod> callGraph, Path file) {
+        logger.info("Dumping call graph snapshot to {} ...", file);
+        List<String> strings = new ArrayList<>();
+        Map<String, Integer> stringIds = Maps.newMap();
+        List<JMethod> methods = new ArrayList<>();
+        Map<JMethod, Integer> methodIds = Maps.newMap();
+        callGraph.reachableMethods().forEach(method -> {
+            methodIds.put(method, methods.size());
+            methods.add(method);
+            intern(method.getDeclaringClass().getName(), strings, stringIds);
+            intern(method.getSubsignature().toString(), strings, stringIds);
+        });
+        // the edge count is taken from the edges that are actually
+        // written, so that the header always matches the records
+        List<Edge<Invoke, JMethod>> edges = new ArrayList<>();
+        for (JMethod caller : methods) {
+            for (Invoke callSite : callGraph.getCallSitesIn(caller)) {
+                callGraph.edgesOutOf(callSite).forEach(edges::add);
+                intern(callSite.getMethodRef().toString(), strings, stringIds);
+            }
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(strings.size());
+            for (String s : strings) {
+                byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            out.writeInt(methods.size());
+            for (JMethod method : methods) {
+                out.writeInt(stringIds.get(method.getDeclaringClass().getName()));
+                out.writeInt(stringIds.get(method.getSubsignature().toString()));
+            }
+            List<JMethod> entries = callGraph.entryMethods().toList();
+            out.writeInt(entries.size());
+            for (JMethod entry : entries) {
+                out.writeInt(methodIds.get(entry));
+            }
+            out.writeInt(edges.size());
+            for (Edge<Invoke, JMethod> edge : edges) {
+                Invoke callSite = edge.getCallSite();
+                out.writeInt(methodIds.get(callSite.getContainer()));
+                out.writeInt(callSite.getIndex());
+                out.writeInt(stringIds.get(callSite.getMethodRef().toString()));
+                out.writeInt(callSite.getLineNumber());
+                out.writeInt(methodIds.get(edge.getCallee()));
+                out.writeByte(edge.getKind().ordinal());
+            }
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to dump call graph snapshot", e);
+        }
+    }
+
+    private static void intern(String s, List<String> strings,
+                               Map<String, Integer> stringIds) {
+        if (!stringIds.containsKey(s)) {
+            stringIds.put(s, strings.size());
+            strings.add(s);
+        }
+    }
+
+    /**
+     * Loads a call graph from the given snapshot file. The file is
+     * memory-mapped and decoded in a single pass.
+     *
+     * @throws AnalysisException if the snapshot is malformed, or it does
+     *                           not match the program being analyzed.
+     */
+    public static DefaultCallGraph load(Path file) {
+        logger.info("Loading call graph snapshot from {} ...", file);
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to read call graph snapshot", e);
+        }
+        try {
+            return decode(file, buffer);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException
+                 | NegativeArraySizeException e) {
+            // truncated file, or out-of-range string/method/kind indexes
+            throw new AnalysisException("Malformed call graph snapshot " + file, e);
+        }
+    }
+
+    private static DefaultCallGraph decode(Path file, ByteBuffer buffer) {
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new AnalysisException(file + " is not a call graph snapshot" +
+                    " of version " + VERSION);
+        }
+        String[] strings = new String[buffer.getInt()];
+        for (int i = 0; i < strings.length; ++i) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        ClassHierarchy hierarchy = World.get().getClassHierarchy();
+        JMethod[] methods = new JMethod[buffer.getInt()];
+        for (int i = 0; i < methods.length; ++i) {
+            String className = strings[buffer.getInt()];
+            String subsig = strings[buffer.getInt()];
+            JClass jclass = hierarchy.getClass(className);
+            JMethod method = jclass == null ? null :
+                    jclass.getDeclaredMethod(Subsignature.get(subsig));
+            if (method == null) {
+                throw new AnalysisException("Method <" + className + ": " +
+                        subsig + "> in call graph snapshot does not exist");
+            }
+            methods[i] = method;
+        }
+        DefaultCallGraph callGraph = new DefaultCallGraph();
+        int nEntries = buffer.getInt();
+        for (int i = 0; i < nEntries; ++i) {
+            callGraph.addEntryMethod(methods[buffer.getInt()]);
+        }
+        for (JMethod method : methods) {
+            callGraph.addReachableMethod(method);
+        }
+        int nEdges = buffer.getInt();
+        for (int i = 0; i < nEdges; ++i) {
+            JMethod caller = methods[buffer.getInt()];
+            Stmt stmt = caller.getIR().getStmt(buffer.getInt());
+            String methodRef = strings[buffer.getInt()];
+            int lineNumber = buffer.getInt();
+            JMethod callee = methods[buffer.getInt()];
+            CallKind kind = CALL_KINDS[buffer.get()];
+            if (!(stmt instanceof Invoke callSite)) {
+                throw new AnalysisException("Call site " + stmt + " in " +
+                        caller + " from call graph snapshot is not an invocation");
+            }
+            if (!callSite.getMethodRef().toString().equals(methodRef) ||
+                    callSite.getLineNumber() != lineNumber) {
+                throw new AnalysisException("Call site " + callSite + " in " +
+                        caller + " does not match the one in call graph snapshot " +
+                        file + ", i.e., invocation of " + methodRef +
+                        " at line " + lineNumber);
+            }
+            callGraph.addEdge(new Edge<>(kind, callSite, callee));
+        }
+        return callGraph;
+    }
+}
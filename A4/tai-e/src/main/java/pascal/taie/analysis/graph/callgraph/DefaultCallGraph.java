@@ -26,6 +26,7 @@ import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.language.classes.JMethod;
 
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -48,6 +49,7 @@ public class DefaultCallGraph extends AbstractCallGraph<Invoke, JMethod> {
      */
     public boolean addReachableMethod(JMethod method) {
         if (reachableMethods.add(method)) {
+            ++modCount;
             if (!method.isAbstract()) {
                 method.getIR().forEach(stmt -> {
                     if (stmt instanceof Invoke invoke) {
@@ -71,12 +73,61 @@ public class DefaultCallGraph extends AbstractCallGraph<Invoke, JMethod> {
     public boolean addEdge(Edge<Invoke, JMethod> edge) {
         if (callSiteToEdges.put(edge.getCallSite(), edge)) {
             calleeToEdges.put(edge.getCallee(), edge);
+            ++modCount;
             return true;
         } else {
             return false;
         }
     }
 
+    /**
+     * Removes a call graph edge from this call graph.
+     *
+     * @param edge the call edge to be removed
+     * @return true if the call graph changed as a result of the call,
+     * otherwise false.
+     */
+    public boolean removeEdge(Edge<Invoke, JMethod> edge) {
+        if (callSiteToEdges.remove(edge.getCallSite(), edge)) {
+            calleeToEdges.remove(edge.getCallee(), edge);
+            ++modCount;
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * Removes all call graph edges out of the given call site.
+     */
+    public void removeEdgesOutOf(Invoke callSite) {
+        for (Edge<Invoke, JMethod> edge : List.copyOf(callSiteToEdges.get(callSite))) {
+            removeEdge(edge);
+        }
+    }
+
+    /**
+     * Removes a reachable method from this call graph, together with
+     * the call sites in it and the call edges out of these call sites.
+     * The call edges targeting to the method are kept, and should be
+     * removed by the caller if the method is no longer called.
+     *
+     * @return true if this call graph changed as a result of the call,
+     * otherwise false.
+     */
+    public boolean removeReachableMethod(JMethod method) {
+        if (reachableMethods.remove(method)) {
+            ++modCount;
+            for (Invoke callSite : List.copyOf(callSitesIn.get(method))) {
+                removeEdgesOutOf(callSite);
+                callSiteToContainer.remove(callSite);
+            }
+            callSitesIn.removeAll(method);
+            return true;
+        }
+        return false;
+    }
+
     @Override
     public JMethod getContainerOf(Invoke invoke) {
         return invoke.getContainer();
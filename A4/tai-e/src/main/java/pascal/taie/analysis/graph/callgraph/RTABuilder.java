@@ -0,0 +1,250 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.graph.callgraph;
+
+import pascal.taie.World;
+import pascal.taie.ir.exp.ClassLiteral;
+import pascal.taie.ir.exp.NewInstance;
+import pascal.taie.ir.exp.StringLiteral;
+import pascal.taie.ir.stmt.AssignLiteral;
+import pascal.taie.ir.stmt.FieldStmt;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.ClassNames;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.classes.Subsignature;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Implementation of the RTA (Rapid Type Analysis) algorithm.
+ * Different from CHA, RTA resolves virtual calls only against the classes
+ * which are instantiated in reachable methods, i.e., the classes created
+ * by {@link New}, and the implicitly created {@code String} (arguments of
+ * {@code main} and string constants) and {@code Class} (class constants).
+ * Class initializers are reachable when their classes are initialized,
+ * i.e., instantiated, or accessed via static fields or static methods.
+ * <p>
+ * As a method may instantiate a class after a call site whose receiver
+ * may be of that class has been processed, each virtual call site is
+ * recorded under its declaring class and re-resolved when a new subclass
+ * of the declaring class becomes instantiated. Symmetrically, instantiated
+ * classes are recorded under their supertypes, so that a new call site is
+ * resolved against only the instantiated subclasses of its declaring class.
+ */
+class RTABuilder implements CGBuilder<Invoke, JMethod> {
+
+    private DefaultCallGraph callGraph;
+
+    private Queue<JMethod> workList;
+
+    /**
+     * Classes instantiated in reachable methods.
+     */
+    private Set<JClass> instantiatedClasses;
+
+    /**
+     * Map from a declaring class to the virtual call sites
+     * (including interface call sites) which refer to it.
+     */
+    private MultiMap<JClass, Invoke> virtualCallSites;
+
+    /**
+     * Map from a class to the instantiated classes which are its subtypes
+     * (including itself).
+     */
+    private MultiMap<JClass, JClass> instantiatedSubtypes;
+
+    /**
+     * Classes whose initializers have been made reachable.
+     */
+    private Set<JClass> initializedClasses;
+
+    /**
+     * Cache of the supertypes (including itself) of each instantiated class.
+     */
+    private Map<JClass, Set<JClass>> supertypes;
+
+    @Override
+    public CallGraph<Invoke, JMethod> build() {
+        return buildCallGraph(World.get().getMainMethod());
+    }
+
+    private CallGraph<Invoke, JMethod> buildCallGraph(JMethod entry) {
+        callGraph = new DefaultCallGraph();
+        callGraph.addEntryMethod(entry);
+        workList = new ArrayDeque<>();
+        instantiatedClasses = Sets.newSet();
+        virtualCallSites = Maps.newMultiMap();
+        instantiatedSubtypes = Maps.newMultiMap();
+        initializedClasses = Sets.newSet();
+        supertypes = Maps.newMap();
+        workList.add(entry);
+        initialize(entry.getDeclaringClass());
+        // the arguments of main method
+        instantiate(getJREClass(ClassNames.STRING));
+        while (!workList.isEmpty()) {
+            JMethod method = workList.poll();
+            if (callGraph.addReachableMethod(method) && !method.isAbstract()) {
+                // process instantiations first, so that the call sites
+                // in the same method see the classes created by it
+                for (Stmt stmt : method.getIR()) {
+                    processInstantiation(stmt);
+                }
+                callGraph.callSitesIn(method).forEach(this::processCallSite);
+            }
+        }
+        return callGraph;
+    }
+
+    /**
+     * Processes the instantiations and class initializations of a statement
+     * in a newly reachable method.
+     */
+    private void processInstantiation(Stmt stmt) {
+        if (stmt instanceof New newStmt &&
+                newStmt.getRValue() instanceof NewInstance newInstance) {
+            JClass jclass = newInstance.getType().getJClass();
+            instantiate(jclass);
+            initialize(jclass);
+        } else if (stmt instanceof AssignLiteral assign) {
+            if (assign.getRValue() instanceof StringLiteral) {
+                instantiate(getJREClass(ClassNames.STRING));
+            } else if (assign.getRValue() instanceof ClassLiteral) {
+                instantiate(getJREClass(ClassNames.CLASS));
+            }
+        } else if (stmt instanceof FieldStmt<?, ?> fieldStmt && fieldStmt.isStatic()) {
+            initialize(fieldStmt.getFieldRef().getDeclaringClass());
+        }
+    }
+
+    /**
+     * Processes a call site in a newly reachable method.
+     */
+    private void processCallSite(Invoke callSite) {
+        Subsignature subsignature = callSite.getMethodRef().getSubsignature();
+        JClass declaringClass = callSite.getMethodRef().getDeclaringClass();
+        switch (CallGraphs.getCallKind(callSite)) {
+            case STATIC -> {
+                initialize(declaringClass);
+                addEdge(callSite, dispatch(declaringClass, subsignature));
+            }
+            case SPECIAL -> addEdge(callSite, dispatch(declaringClass, subsignature));
+            case VIRTUAL, INTERFACE -> {
+                virtualCallSites.put(declaringClass, callSite);
+                for (JClass jclass : instantiatedSubtypes.get(declaringClass)) {
+                    addEdge(callSite, dispatch(jclass, subsignature));
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks given class as instantiated, and resolves the recorded
+     * virtual call sites whose receiver objects may be of the class.
+     */
+    private void instantiate(JClass jclass) {
+        if (jclass == null || !instantiatedClasses.add(jclass)) {
+            return;
+        }
+        for (JClass supertype : getSupertypes(jclass)) {
+            instantiatedSubtypes.put(supertype, jclass);
+            for (Invoke callSite : virtualCallSites.get(supertype)) {
+                addEdge(callSite, dispatch(jclass,
+                        callSite.getMethodRef().getSubsignature()));
+            }
+        }
+    }
+
+    /**
+     * Makes the initializers of given class and its superclasses reachable.
+     */
+    private void initialize(JClass jclass) {
+        while (jclass != null && initializedClasses.add(jclass)) {
+            JMethod clinit = jclass.getClinit();
+            if (clinit != null) {
+                workList.add(clinit);
+            }
+            jclass = jclass.getSuperClass();
+        }
+    }
+
+    private static JClass getJREClass(String name) {
+        return World.get().getClassHierarchy().getJREClass(name);
+    }
+
+    private void addEdge(Invoke callSite, JMethod callee) {
+        if (callee != null && callGraph.addEdge(new Edge<>(
+                CallGraphs.getCallKind(callSite), callSite, callee))) {
+            workList.add(callee);
+        }
+    }
+
+    /**
+     * @return the given class, its superclasses and all interfaces
+     * implemented by them.
+     */
+    private Set<JClass> getSupertypes(JClass jclass) {
+        return supertypes.computeIfAbsent(jclass, c -> {
+            Set<JClass> result = Sets.newHybridSet();
+            Queue<JClass> queue = new ArrayDeque<>();
+            queue.add(c);
+            while (!queue.isEmpty()) {
+                JClass type = queue.poll();
+                if (result.add(type)) {
+                    if (type.getSuperClass() != null) {
+                        queue.add(type.getSuperClass());
+                    }
+                    queue.addAll(type.getInterfaces());
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Looks up the target method based on given class and method subsignature.
+     *
+     * @return the dispatched target method, or null if no satisfying method
+     * can be found.
+     */
+    private JMethod dispatch(JClass jclass, Subsignature subsignature) {
+        while (jclass != null) {
+            JMethod method = jclass.getDeclaredMethod(subsignature);
+            if (method != null && !method.isAbstract()) {
+                return method;
+            }
+            jclass = jclass.getSuperClass();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package pascal.taie.analysis.dataflow.inter;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.World;
+import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.icfg.ICFGBuilder;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.collection.SetQueue;
+
+public class InterSolverTest {
+
+    private static final String CLASS_PATH = "src/test/resources/dataflow/constprop/inter";
+
+    @Test
+    public void testSCCOrder() {
+        // the call graph has self-recursive methods and SCCs of
+        // mutually recursive methods, and the results of solving them
+        // in the order of SCCs must be the same as the ones of solving
+        // them in FIFO order
+        Tests.test("Recursion", CLASS_PATH, InterConstantPropagation.ID,
+                "edge-refine:false;alias-aware:false", "-a", "cg=algorithm:cha");
+        DataflowResult<Stmt, CPFact> sccResult =
+                World.get().getResult(InterConstantPropagation.ID);
+        InterConstantPropagation analysis = new InterConstantPropagation(
+                new AnalysisConfig(InterConstantPropagation.ID));
+        analysis.icfg = World.get().getResult(ICFGBuilder.ID);
+        DataflowResult<Stmt, CPFact> fifoResult =
+                new InterSolver<>(analysis, analysis.icfg).solve(new SetQueue<>());
+        analysis.icfg.forEach(node -> {
+            Assert.assertEquals(node.toString(),
+                    fifoResult.getInFact(node), sccResult.getInFact(node));
+            Assert.assertEquals(node.toString(),
+                    fifoResult.getOutFact(node), sccResult.getOutFact(node));
+        });
+    }
+}
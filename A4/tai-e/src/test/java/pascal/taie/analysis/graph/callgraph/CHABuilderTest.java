@@ -0,0 +1,122 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package pascal.taie.analysis.graph.callgraph;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.World;
+import pascal.taie.analysis.Tests;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.classes.Subsignature;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class CHABuilderTest {
+
+    private static final String DIR = "src/test/resources/update/";
+
+    @Test
+    public void testUpdate() {
+        // B.foo() is removed, C.foo() is added, and Util.run() is modified
+        Tests.test("Update", DIR + "old", CallGraphBuilder.ID, "algorithm:cha");
+        CallGraph<Invoke, JMethod> oldCallGraph = World.get().getResult(CallGraphBuilder.ID);
+        JMethod removed = getMethod(oldCallGraph, "<B: void foo()>");
+        Tests.test("Update", DIR + "new", CallGraphBuilder.ID, "algorithm:cha");
+        CallGraph<Invoke, JMethod> newCallGraph = World.get().getResult(CallGraphBuilder.ID);
+        ClassHierarchy hierarchy = World.get().getClassHierarchy();
+        JMethod added = getMethod(hierarchy, "C", "void foo()");
+        JMethod modified = getMethod(hierarchy, "Util", "void run()");
+
+        DefaultCallGraph callGraph = toCurrentWorld(oldCallGraph, hierarchy);
+        Assert.assertNotEquals(getEdges(newCallGraph), getEdges(callGraph));
+        new CHABuilder().update(callGraph, List.of(added),
+                List.of(removed), List.of(modified));
+        Assert.assertEquals(getEdges(newCallGraph), getEdges(callGraph));
+        Assert.assertEquals(getReachableMethods(newCallGraph),
+                getReachableMethods(callGraph));
+    }
+
+    /**
+     * Converts a call graph of the old program to the methods and
+     * call sites of the current {@link World}. The methods which do not
+     * exist in the current world, i.e., the removed methods, are kept.
+     */
+    private static DefaultCallGraph toCurrentWorld(
+            CallGraph<Invoke, JMethod> oldCallGraph, ClassHierarchy hierarchy) {
+        DefaultCallGraph callGraph = new DefaultCallGraph();
+        oldCallGraph.entryMethods()
+                .map(m -> toCurrentWorld(m, hierarchy))
+                .forEach(callGraph::addEntryMethod);
+        oldCallGraph.reachableMethods()
+                .map(m -> toCurrentWorld(m, hierarchy))
+                .forEach(callGraph::addReachableMethod);
+        oldCallGraph.edges().forEach(edge -> {
+            Invoke callSite = edge.getCallSite();
+            JMethod container = toCurrentWorld(callSite.getContainer(), hierarchy);
+            if (container != callSite.getContainer() &&
+                    container.getIR().getStmt(callSite.getIndex()) instanceof Invoke invoke) {
+                callSite = invoke;
+            }
+            callGraph.addEdge(new Edge<>(edge.getKind(), callSite,
+                    toCurrentWorld(edge.getCallee(), hierarchy)));
+        });
+        return callGraph;
+    }
+
+    private static JMethod toCurrentWorld(JMethod method, ClassHierarchy hierarchy) {
+        JClass jClass = hierarchy.getClass(method.getDeclaringClass().getName());
+        Subsignature subsig = Subsignature.get(method.getSubsignature().toString());
+        JMethod result = jClass == null ? null : jClass.getDeclaredMethod(subsig);
+        return result != null ? result : method;
+    }
+
+    private static JMethod getMethod(CallGraph<Invoke, JMethod> callGraph, String sig) {
+        return callGraph.reachableMethods()
+                .filter(m -> m.getSignature().equals(sig))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static JMethod getMethod(ClassHierarchy hierarchy,
+                                     String className, String subsig) {
+        return hierarchy.getClass(className)
+                .getDeclaredMethod(Subsignature.get(subsig));
+    }
+
+    private static Set<String> getEdges(CallGraph<Invoke, JMethod> callGraph) {
+        return callGraph.edges()
+                .map(e -> e.getKind() + " " + e.getCallSite().getContainer() +
+                        "/" + e.getCallSite() + " -> " + e.getCallee())
+                .collect(Collectors.toSet());
+    }
+
+    private static Set<String> getReachableMethods(CallGraph<Invoke, JMethod> callGraph) {
+        return callGraph.reachableMethods()
+                .map(JMethod::toString)
+                .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.World;
+import pascal.taie.analysis.Tests;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.AnalysisException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class CallGraphSnapshotTest {
+
+    private static final String CHA_DIR = "src/test/resources/cha/";
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        // the call graph reloaded from the snapshot must be the same
+        // as the one that was dumped
+        Path file = Files.createTempFile("cg", ".bin");
+        try {
+            for (String main : List.of("StaticCall", "VirtualCall",
+                    "Interface", "AbstractMethod")) {
+                Tests.test(main, CHA_DIR, CallGraphBuilder.ID,
+                        "algorithm:cha;action:dump-binary;file:" + file);
+                Set<String> edges = getEdges();
+                Set<String> methods = getReachableMethods();
+                Assert.assertFalse(edges.isEmpty());
+                Tests.test(main, CHA_DIR, CallGraphBuilder.ID,
+                        "algorithm:snapshot;file:" + file);
+                Assert.assertEquals(edges, getEdges());
+                Assert.assertEquals(methods, getReachableMethods());
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testChangedCallSite() throws IOException {
+        // the snapshot of a program must be rejected when the call sites
+        // at the same indexes of a changed program invoke other methods
+        Path file = Files.createTempFile("cg", ".bin");
+        try {
+            Tests.test("VirtualCall", CHA_DIR, CallGraphBuilder.ID,
+                    "algorithm:cha;action:dump-binary;file:" + file);
+            Assert.assertThrows(AnalysisException.class, () ->
+                    Tests.test("VirtualCall", "src/test/resources/snapshot/",
+                            CallGraphBuilder.ID, "algorithm:snapshot;file:" + file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static Set<String> getEdges() {
+        CallGraph<Invoke, JMethod> callGraph = World.get().getResult(CallGraphBuilder.ID);
+        return callGraph.edges()
+                .map(e -> e.getKind() + " " + e.getCallSite().getContainer() +
+                        "/" + e.getCallSite() + " -> " + e.getCallee())
+                .collect(Collectors.toSet());
+    }
+
+    private static Set<String> getReachableMethods() {
+        CallGraph<Invoke, JMethod> callGraph = World.get().getResult(CallGraphBuilder.ID);
+        return callGraph.reachableMethods()
+                .map(JMethod::toString)
+                .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package pascal.taie.analysis.graph.callgraph.rta;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.World;
+import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.graph.callgraph.CHABuilder;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.CallGraphBuilder;
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class RTATest {
+
+    private static final String DIR = "src/test/resources/rta/";
+
+    /**
+     * Builds the RTA call graph of given program, and checks that each
+     * call site resolved by both RTA and CHA has no more RTA callees than
+     * CHA callees, and that CHA has edges to the given methods while RTA
+     * does not. The call sites in class initializers are skipped,
+     * as CHA does not make them reachable.
+     */
+    private static void test(String main, String... pruned) {
+        Tests.test(main, DIR, CallGraphBuilder.ID, "algorithm:rta");
+        CallGraph<Invoke, JMethod> rta = World.get().getResult(CallGraphBuilder.ID);
+        CallGraph<Invoke, JMethod> cha = new CHABuilder().build();
+        Set<String> chaEdges = getEdges(cha);
+        rta.edges()
+                .filter(e -> cha.contains(e.getCallSite().getContainer()))
+                .map(RTATest::toString)
+                .forEach(e -> Assert.assertTrue(e, chaEdges.contains(e)));
+        for (String callee : pruned) {
+            Assert.assertTrue(callee, getCallees(cha).contains(callee));
+            Assert.assertFalse(callee, getCallees(rta).contains(callee));
+        }
+    }
+
+    @Test
+    public void testVirtualCall() {
+        // Cat is instantiated after the first call site has been resolved
+        test("VirtualCall", "<Bird: void speak()>");
+    }
+
+    @Test
+    public void testImplicit() {
+        test("Implicit", "<Circle: int area()>", "<Circle: java.lang.String toString()>");
+        // String is instantiated by constants, and Class is instantiated
+        // only by class constants in the reachable library methods
+        Set<String> callees = getCallees(World.get().getResult(CallGraphBuilder.ID));
+        Assert.assertTrue(callees.contains("<java.lang.String: int hashCode()>"));
+        Assert.assertTrue(callees.contains("<java.lang.Class: java.lang.String toString()>"));
+    }
+
+    @Test
+    public void testClassInit() {
+        // SlowService is instantiated only by the initializer of Unused,
+        // which is never initialized
+        test("ClassInit", "<SlowService: void run()>");
+        CallGraph<Invoke, JMethod> rta = World.get().getResult(CallGraphBuilder.ID);
+        Set<String> methods = rta.reachableMethods()
+                .map(JMethod::getSignature)
+                .collect(Collectors.toSet());
+        Assert.assertTrue(methods.contains("<Config: void <clinit>()>"));
+        Assert.assertTrue(methods.contains("<Registry: void <clinit>()>"));
+        Assert.assertFalse(methods.contains("<Unused: void <clinit>()>"));
+    }
+
+    private static Set<String> getEdges(CallGraph<Invoke, JMethod> callGraph) {
+        return callGraph.edges()
+                .map(RTATest::toString)
+                .collect(Collectors.toSet());
+    }
+
+    private static String toString(Edge<Invoke, JMethod> edge) {
+        return edge.getKind() + " " + edge.getCallSite().getContainer() +
+                "/" + edge.getCallSite() + " -> " + edge.getCallee();
+    }
+
+    private static Set<String> getCallees(CallGraph<Invoke, JMethod> callGraph) {
+        return callGraph.edges()
+                .map(e -> e.getCallee().getSignature())
+                .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,56 @@
+class Recursion {
+
+    public static void main(String[] args) {
+        int a = factorial(5);
+        int b = same(3);
+        int c = isEven(4);
+        int d = ping(1);
+        int e = b + 1;
+    }
+
+    static int factorial(int n) {
+        if (n <= 1) {
+            return 1;
+        }
+        return n * factorial(n - 1);
+    }
+
+    static int same(int n) {
+        if (n > 100) {
+            return same(n);
+        }
+        return n;
+    }
+
+    // isEven and isOdd form an SCC
+    static int isEven(int n) {
+        if (n == 0) {
+            return 1;
+        }
+        return isOdd(n - 1);
+    }
+
+    static int isOdd(int n) {
+        if (n == 0) {
+            return 0;
+        }
+        return isEven(n - 1);
+    }
+
+    // ping and pong form an SCC, which calls helper out of it
+    static int ping(int x) {
+        int y = helper(x);
+        if (y > 10) {
+            return pong(y);
+        }
+        return y;
+    }
+
+    static int pong(int x) {
+        return ping(1);
+    }
+
+    static int helper(int x) {
+        return x + 1;
+    }
+}
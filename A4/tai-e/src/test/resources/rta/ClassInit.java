@@ -0,0 +1,58 @@
+public class ClassInit {
+
+    public static void main(String[] args) {
+        // initializes Config by static field access,
+        // and Registry by static method call
+        int value = Config.value;
+        Service service = Registry.get();
+        service.run();
+    }
+}
+
+class Config {
+    static int value;
+
+    static {
+        value = 1;
+        new Logger().log();
+    }
+}
+
+class Registry {
+    static Service service;
+
+    static {
+        // FastService is instantiated only in this initializer
+        service = new FastService();
+    }
+
+    static Service get() {
+        return service;
+    }
+}
+
+interface Service {
+    void run();
+}
+
+class FastService implements Service {
+    public void run() {
+    }
+}
+
+// instantiated only in an unreachable initializer, thus pruned by RTA
+class SlowService implements Service {
+    public void run() {
+    }
+}
+
+class Unused {
+    static {
+        new SlowService().run();
+    }
+}
+
+class Logger {
+    void log() {
+    }
+}
@@ -0,0 +1,38 @@
+public class Implicit {
+
+    public static void main(String[] args) {
+        // String is instantiated by the arguments of main
+        // and the string constants
+        Object s = "hello";
+        s.hashCode();
+        Shape shape = new Square();
+        shape.area();
+        Object o = shape;
+        o.toString();
+    }
+}
+
+interface Shape {
+    int area();
+}
+
+class Square implements Shape {
+    public int area() {
+        return 1;
+    }
+
+    public String toString() {
+        return "Square";
+    }
+}
+
+// never instantiated, thus pruned by RTA
+class Circle implements Shape {
+    public int area() {
+        return 3;
+    }
+
+    public String toString() {
+        return "Circle";
+    }
+}
@@ -0,0 +1,34 @@
+public class VirtualCall {
+
+    public static void main(String[] args) {
+        Animal a = new Dog();
+        a.speak();
+        Animal b = make();
+        b.speak();
+    }
+
+    static Animal make() {
+        // Cat is instantiated after a.speak() has been resolved
+        return new Cat();
+    }
+}
+
+abstract class Animal {
+    abstract void speak();
+}
+
+class Dog extends Animal {
+    void speak() {
+    }
+}
+
+class Cat extends Animal {
+    void speak() {
+    }
+}
+
+// never instantiated, thus pruned by RTA
+class Bird extends Animal {
+    void speak() {
+    }
+}
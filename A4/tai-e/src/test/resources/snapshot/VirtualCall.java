@@ -0,0 +1,31 @@
+public class VirtualCall {
+
+    public static void main(String[] args) {
+        // the call sites are at the same indexes, but invoke other methods
+        C b = new C();
+        b.foo();
+    }
+}
+
+class A {
+    void foo() {
+    }
+}
+
+class B extends A {
+}
+
+class C extends B {
+    void foo() {
+    }
+}
+
+class D extends B {
+    void foo() {
+    }
+}
+
+class E extends A {
+    void foo() {
+    }
+}
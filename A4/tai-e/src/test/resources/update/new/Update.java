@@ -0,0 +1,39 @@
+class Update {
+
+    public static void main(String[] args) {
+        A a = new B();
+        a.foo();
+        Util.run();
+    }
+}
+
+class A {
+    void foo() {
+    }
+}
+
+class B extends A {
+    // foo() is removed
+
+    void bar() {
+    }
+}
+
+class C extends A {
+    // foo() is added
+    void foo() {
+    }
+}
+
+class Util {
+    // run() is modified
+    static void run() {
+        other();
+    }
+
+    static void helper() {
+    }
+
+    static void other() {
+    }
+}
@@ -0,0 +1,37 @@
+class Update {
+
+    public static void main(String[] args) {
+        A a = new B();
+        a.foo();
+        Util.run();
+    }
+}
+
+class A {
+    void foo() {
+    }
+}
+
+class B extends A {
+    void foo() {
+        bar();
+    }
+
+    void bar() {
+    }
+}
+
+class C extends A {
+}
+
+class Util {
+    static void run() {
+        helper();
+    }
+
+    static void helper() {
+    }
+
+    static void other() {
+    }
+}
@@ -48,6 +48,7 @@ public class DefaultCallGraph extends AbstractCallGraph<Invoke, JMethod> {
      */
     public boolean addReachableMethod(JMethod method) {
         if (reachableMethods.add(method)) {
+            ++modCount;
             if (!method.isAbstract()) {
                 method.getIR().forEach(stmt -> {
                     if (stmt instanceof Invoke invoke) {
@@ -71,6 +72,7 @@ public class DefaultCallGraph extends AbstractCallGraph<Invoke, JMethod> {
     public boolean addEdge(Edge<Invoke, JMethod> edge) {
         if (callSiteToEdges.put(edge.getCallSite(), edge)) {
             calleeToEdges.put(edge.getCallee(), edge);
+            ++modCount;
             return true;
         } else {
             return false;
@@ -37,7 +37,8 @@ class ArrayIndex extends Pointer {
 
     private final Obj array;
 
-    ArrayIndex(Obj array) {
+    ArrayIndex(Obj array, int index) {
+        super(index);
         this.array = array;
     }
 
@@ -48,23 +49,6 @@ class ArrayIndex extends Pointer {
         return array;
     }
 
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) {
-            return true;
-        }
-        if (o == null || getClass() != o.getClass()) {
-            return false;
-        }
-        ArrayIndex that = (ArrayIndex) o;
-        return array.equals(that.array);
-    }
-
-    @Override
-    public int hashCode() {
-        return array.hashCode();
-    }
-
     @Override
     public String toString() {
         return array + "[*]";
@@ -34,7 +34,6 @@ import pascal.taie.language.classes.JMethod;
 import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.Pair;
 import pascal.taie.util.collection.Sets;
-import pascal.taie.util.collection.Views;
 
 import java.util.Collection;
 import java.util.Map;
@@ -64,10 +63,11 @@ class CIPTAResult implements PointerAnalysisResult {
 
     @Override
     public Collection<Var> getVars() {
-        return Views.toMappedCollection(
-                Views.toFilteredCollection(pointerFlowGraph.getPointers(),
-                        VarPtr.class::isInstance),
-                p -> ((VarPtr) p).getVar());
+        return pointerFlowGraph.getPointers()
+                .stream()
+                .filter(VarPtr.class::isInstance)
+                .flatMap(p -> ((VarPtr) p).getVars().stream())
+                .toList();
     }
 
     @Override
@@ -24,7 +24,6 @@ package pascal.taie.analysis.pta.ci;
 
 import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.language.classes.JField;
-import pascal.taie.util.Hashes;
 
 /**
  * Represents instance field pointers in PFG.
@@ -35,7 +34,8 @@ class InstanceField extends Pointer {
 
     private final JField field;
 
-    InstanceField(Obj base, JField field) {
+    InstanceField(Obj base, JField field, int index) {
+        super(index);
         this.base = base;
         this.field = field;
     }
@@ -54,23 +54,6 @@ class InstanceField extends Pointer {
         return field;
     }
 
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) {
-            return true;
-        }
-        if (o == null || getClass() != o.getClass()) {
-            return false;
-        }
-        InstanceField fieldPtr = (InstanceField) o;
-        return base.equals(fieldPtr.base) && field.equals(fieldPtr.field);
-    }
-
-    @Override
-    public int hashCode() {
-        return Hashes.hash(base, field);
-    }
-
     @Override
     public String toString() {
         return base + "." + field.getName();
@@ -0,0 +1,442 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.ci;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.CallGraphs;
+import pascal.taie.analysis.graph.callgraph.DefaultCallGraph;
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.proginfo.FieldRef;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.LoadArray;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.StmtVisitor;
+import pascal.taie.ir.stmt.StoreArray;
+import pascal.taie.ir.stmt.StoreField;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Multithreaded solver of context-insensitive pointer analysis.
+ * <p>
+ * Pointers are partitioned among worker threads by their indexes, and each
+ * worker has a queue of the entries sent to its pointers. As only the owner
+ * of a pointer adds objects to the points-to set of the pointer, propagation
+ * needs no locks; the points-to sets are concurrent sets, so that other
+ * workers may read them meanwhile. PFG edges, call edges and reachable
+ * methods are kept in concurrent sets, while the parts which are not
+ * thread-safe, i.e., the creation of pointers, abstract objects and IR,
+ * and the dispatch of calls and resolution of fields, are serialized.
+ * <p>
+ * The solver counts the entries which have been sent but not processed.
+ * An entry is counted before it is sent, and uncounted after it has been
+ * processed, i.e., after all entries caused by it have been counted, thus
+ * the count drops to zero only when the fixpoint is reached.
+ * <p>
+ * A worker whose queue is empty parks until an entry is sent to it,
+ * or the fixpoint is reached, or another worker fails.
+ */
+class ParallelSolver {
+
+    private static final Logger logger = LogManager.getLogger(ParallelSolver.class);
+
+    private final AnalysisOptions options;
+
+    private final HeapModel heapModel;
+
+    private final int nThreads;
+
+    /**
+     * Holds all pointers. The edges of this solver are kept in
+     * {@link #successors} instead, which allows concurrent updates.
+     */
+    private PointerFlowGraph pointerFlowGraph;
+
+    /**
+     * Lock for creating pointers.
+     */
+    private final Object pointerLock = new Object();
+
+    /**
+     * Lock for the parts of the world which are not thread-safe, i.e.,
+     * building IR, and resolving method and field references, as the
+     * class hierarchy caches the results of dispatch and resolution
+     * in plain hash maps.
+     */
+    private final Object worldLock = new Object();
+
+    private final ConcurrentMap<Var, VarPtr> varPtrs = Maps.newConcurrentMap();
+
+    private final ConcurrentMap<JMethod, IR> irs = Maps.newConcurrentMap();
+
+    private final ConcurrentMap<Pointer, Set<Pointer>> successors =
+            Maps.newConcurrentMap();
+
+    private final Set<JMethod> reachableMethods = Sets.newConcurrentSet();
+
+    private final Set<Edge<Invoke, JMethod>> callEdges = Sets.newConcurrentSet();
+
+    private final List<Queue<WorkList.Entry>> queues = new ArrayList<>();
+
+    /**
+     * Thread of each worker, which is unparked when entries are sent to
+     * the worker. Null until the worker starts.
+     */
+    private AtomicReferenceArray<Thread> workers;
+
+    /**
+     * Number of entries which have been sent but not processed.
+     */
+    private final AtomicLong pending = new AtomicLong();
+
+    private volatile boolean failed = false;
+
+    private final StmtProcessor stmtProcessor = new StmtProcessor();
+
+    private DefaultCallGraph callGraph;
+
+    ParallelSolver(AnalysisOptions options, HeapModel heapModel) {
+        this.options = options;
+        this.heapModel = heapModel;
+        Object threads = options.get("threads");
+        this.nThreads = threads != null ? (Integer) threads :
+                Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Runs pointer analysis algorithm.
+     */
+    void solve() {
+        initialize();
+        analyze();
+        buildCallGraph();
+    }
+
+    private void initialize() {
+        pointerFlowGraph = new PointerFlowGraph(
+                options.getBooleanOrDefault("merge-equivalent-vars", false),
+                true);
+        for (int i = 0; i < nThreads; ++i) {
+            queues.add(new ConcurrentLinkedQueue<>());
+        }
+        workers = new AtomicReferenceArray<>(nThreads);
+        addReachable(World.get().getMainMethod());
+    }
+
+    /**
+     * Runs the workers until the fixpoint is reached.
+     */
+    private void analyze() {
+        logger.info("Solving with {} threads", nThreads);
+        ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < nThreads; ++i) {
+                int id = i;
+                futures.add(executor.submit(() -> work(id)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AnalysisException("Pointer analysis is interrupted", e);
+        } catch (ExecutionException e) {
+            throw new AnalysisException("Pointer analysis failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void work(int id) {
+        Queue<WorkList.Entry> queue = queues.get(id);
+        // register before polling, so that the entries sent from now on
+        // either are polled below or unpark this worker
+        workers.set(id, Thread.currentThread());
+        try {
+            while (pending.get() > 0 && !failed
+                    && !Thread.currentThread().isInterrupted()) {
+                WorkList.Entry entry = queue.poll();
+                if (entry == null) {
+                    LockSupport.park(this);
+                    continue;
+                }
+                propagate(entry.pointer(), entry.pointsToSet());
+                if (pending.decrementAndGet() == 0) {
+                    unparkAll();
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            failed = true;
+            unparkAll();
+            throw e;
+        }
+    }
+
+    /**
+     * Sends pointsToSet to the worker owning pointer.
+     */
+    private void send(Pointer pointer, PointsToSet pointsToSet) {
+        pending.incrementAndGet();
+        int owner = pointer.getIndex() % nThreads;
+        queues.get(owner).add(new WorkList.Entry(pointer, pointsToSet));
+        Thread worker = workers.get(owner);
+        if (worker != null && worker != Thread.currentThread()) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    private void unparkAll() {
+        for (int i = 0; i < nThreads; ++i) {
+            Thread worker = workers.get(i);
+            if (worker != null) {
+                LockSupport.unpark(worker);
+            }
+        }
+    }
+
+    /**
+     * Propagates pointsToSet to pt(pointer) and its PFG successors,
+     * and processes the field accesses, array accesses and calls on
+     * the new objects. Only called by the owner of pointer.
+     */
+    private void propagate(Pointer pointer, PointsToSet pointsToSet) {
+        PointsToSet pts = pointer.getPointsToSet();
+        PointsToSet delta = new PointsToSet();
+        for (Obj obj : pointsToSet) {
+            if (pts.addObject(obj)) {
+                delta.addObject(obj);
+            }
+        }
+        if (delta.isEmpty()) {
+            return;
+        }
+        for (Pointer succ : successors.getOrDefault(pointer, Set.of())) {
+            send(succ, delta);
+        }
+        if (pointer instanceof VarPtr varPtr) {
+            for (Var var : varPtr.getVars()) {
+                for (Obj obj : delta) {
+                    processInstanceAccesses(var, obj);
+                    processCall(var, obj);
+                }
+            }
+        }
+    }
+
+    private void processInstanceAccesses(Var var, Obj obj) {
+        for (StoreField store : var.getStoreFields()) {
+            addPFGEdge(getVarPtr(store.getRValue()),
+                    getInstanceField(obj, resolveField(store.getFieldRef())));
+        }
+        for (LoadField load : var.getLoadFields()) {
+            addPFGEdge(getInstanceField(obj, resolveField(load.getFieldRef())),
+                    getVarPtr(load.getLValue()));
+        }
+        for (StoreArray store : var.getStoreArrays()) {
+            addPFGEdge(getVarPtr(store.getRValue()), getArrayIndex(obj));
+        }
+        for (LoadArray load : var.getLoadArrays()) {
+            addPFGEdge(getArrayIndex(obj), getVarPtr(load.getLValue()));
+        }
+    }
+
+    private void processCall(Var var, Obj recv) {
+        for (Invoke invoke : var.getInvokes()) {
+            JMethod callee = resolveCallee(recv.getType(), invoke);
+            if (callee != null) {
+                send(getVarPtr(getIR(callee).getThis()), new PointsToSet(recv));
+                processCallEdge(invoke, callee);
+            }
+        }
+    }
+
+    private void processCallEdge(Invoke invoke, JMethod callee) {
+        if (callEdges.add(new Edge<>(
+                CallGraphs.getCallKind(invoke), invoke, callee))) {
+            addReachable(callee);
+            IR ir = getIR(callee);
+            List<Var> args = invoke.getInvokeExp().getArgs();
+            for (int i = 0; i < args.size(); ++i) {
+                addPFGEdge(getVarPtr(args.get(i)), getVarPtr(ir.getParam(i)));
+            }
+            Var lhs = invoke.getLValue();
+            if (lhs != null) {
+                for (Var ret : ir.getReturnVars()) {
+                    addPFGEdge(getVarPtr(ret), getVarPtr(lhs));
+                }
+            }
+        }
+    }
+
+    private void addReachable(JMethod method) {
+        if (reachableMethods.add(method) && !method.isAbstract()) {
+            getIR(method).forEach(stmt -> stmt.accept(stmtProcessor));
+        }
+    }
+
+    private void addPFGEdge(Pointer source, Pointer target) {
+        if (successors.computeIfAbsent(source, p -> Sets.newConcurrentSet())
+                .add(target)) {
+            // the owner of source may be adding objects meanwhile,
+            // they reach target via either this entry or the owner
+            PointsToSet pts = source.getPointsToSet();
+            if (!pts.isEmpty()) {
+                send(target, pts);
+            }
+        }
+    }
+
+    private class StmtProcessor implements StmtVisitor<Void> {
+
+        @Override
+        public Void visit(New stmt) {
+            Obj obj;
+            synchronized (heapModel) {
+                obj = heapModel.getObj(stmt);
+            }
+            send(getVarPtr(stmt.getLValue()), new PointsToSet(obj));
+            return null;
+        }
+
+        @Override
+        public Void visit(Copy stmt) {
+            addPFGEdge(getVarPtr(stmt.getRValue()), getVarPtr(stmt.getLValue()));
+            return null;
+        }
+
+        @Override
+        public Void visit(LoadField stmt) {
+            if (stmt.isStatic()) {
+                addPFGEdge(getStaticField(resolveField(stmt.getFieldRef())),
+                        getVarPtr(stmt.getLValue()));
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(StoreField stmt) {
+            if (stmt.isStatic()) {
+                addPFGEdge(getVarPtr(stmt.getRValue()),
+                        getStaticField(resolveField(stmt.getFieldRef())));
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(Invoke stmt) {
+            if (stmt.isStatic()) {
+                JMethod callee = resolveCallee(null, stmt);
+                if (callee == null) { // unresolvable, e.g., missing class
+                    return null;
+                }
+                processCallEdge(stmt, callee);
+            }
+            return null;
+        }
+    }
+
+    private IR getIR(JMethod method) {
+        return irs.computeIfAbsent(method, m -> {
+            synchronized (worldLock) {
+                return m.getIR();
+            }
+        });
+    }
+
+    private JMethod resolveCallee(Type type, Invoke callSite) {
+        synchronized (worldLock) {
+            return CallGraphs.resolveCallee(type, callSite);
+        }
+    }
+
+    private JField resolveField(FieldRef fieldRef) {
+        synchronized (worldLock) {
+            return fieldRef.resolve();
+        }
+    }
+
+    private VarPtr getVarPtr(Var var) {
+        return varPtrs.computeIfAbsent(var, v -> {
+            synchronized (pointerLock) {
+                return pointerFlowGraph.getVarPtr(v);
+            }
+        });
+    }
+
+    private StaticField getStaticField(JField field) {
+        synchronized (pointerLock) {
+            return pointerFlowGraph.getStaticField(field);
+        }
+    }
+
+    private InstanceField getInstanceField(Obj base, JField field) {
+        synchronized (pointerLock) {
+            return pointerFlowGraph.getInstanceField(base, field);
+        }
+    }
+
+    private ArrayIndex getArrayIndex(Obj array) {
+        synchronized (pointerLock) {
+            return pointerFlowGraph.getArrayIndex(array);
+        }
+    }
+
+    private void buildCallGraph() {
+        callGraph = new DefaultCallGraph();
+        callGraph.addEntryMethod(World.get().getMainMethod());
+        reachableMethods.forEach(callGraph::addReachableMethod);
+        callEdges.forEach(callGraph::addEdge);
+    }
+
+    CIPTAResult getResult() {
+        return new CIPTAResult(pointerFlowGraph, callGraph);
+    }
+}
@@ -24,14 +24,37 @@ package pascal.taie.analysis.pta.ci;
 
 /**
  * Represents pointers in pointer analysis and nodes in pointer flow graph.
+ * Pointers are created and interned by {@link PointerManager}, thus
+ * they are compared by identity.
  *
  * @see PointerFlowGraph
  */
 abstract class Pointer {
 
-    private final PointsToSet pointsToSet = new PointsToSet();
+    private PointsToSet pointsToSet = new PointsToSet();
+
+    private final int index;
+
+    Pointer(int index) {
+        this.index = index;
+    }
+
+    /**
+     * @return the dense id of this pointer given by {@link PointerManager}.
+     */
+    int getIndex() {
+        return index;
+    }
 
     PointsToSet getPointsToSet() {
         return pointsToSet;
     }
+
+    /**
+     * Sets the points-to set of this pointer. This is used to share
+     * a single points-to set among the pointers in a collapsed cycle.
+     */
+    void setPointsToSet(PointsToSet pointsToSet) {
+        this.pointsToSet = pointsToSet;
+    }
 }
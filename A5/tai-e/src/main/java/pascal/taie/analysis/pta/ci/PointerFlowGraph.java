@@ -27,10 +27,15 @@ import pascal.taie.ir.exp.Var;
 import pascal.taie.language.classes.JField;
 import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Pair;
 import pascal.taie.util.collection.Sets;
-import pascal.taie.util.collection.TwoKeyMap;
 
-import java.util.Collections;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -40,62 +45,94 @@ import java.util.Set;
 class PointerFlowGraph {
 
     /**
-     * Set of all pointer in this PFG.
+     * Manager of all pointers in this PFG.
      */
-    private final Set<Pointer> pointers = Sets.newSet();
+    private final PointerManager pointerManager;
 
     /**
-     * Map from Variable to Var node.
+     * Map from a pointer (node) to its successors in PFG.
      */
-    private final Map<Var, VarPtr> varPtrs = Maps.newMap();
+    private final MultiMap<Pointer, Pointer> successors = Maps.newMultiMap();
 
     /**
-     * Map from JField to StaticField node.
+     * Map from a pointer to its rank in (approximate) topological order
+     * of this PFG.
      */
-    private final Map<JField, StaticField> staticFields = Maps.newMap();
+    private final Map<Pointer, Integer> ranks = Maps.newMap();
 
     /**
-     * Map from (Obj, Field) to InstanceField node.
+     * Number of edges in this PFG.
      */
-    private final TwoKeyMap<Obj, JField, InstanceField> instanceFields = Maps.newTwoKeyMap();
+    private int numberOfEdges = 0;
 
     /**
-     * Map from Obj (array) to ArrayIndex node.
+     * Number of edges when ranks were last computed.
      */
-    private final Map<Obj, ArrayIndex> arrayIndexes = Maps.newMap();
+    private int numberOfRankedEdges = 0;
 
     /**
-     * Map from a pointer (node) to its successors in PFG.
+     * Maximum number of pointers visited by one search for cycles.
      */
-    private final MultiMap<Pointer, Pointer> successors = Maps.newMultiMap();
+    private static final int CYCLE_SEARCH_LIMIT = 10000;
+
+    /**
+     * Union-find parent of each pointer which has been merged into a cycle.
+     * Representative pointers have no parent.
+     */
+    private final Map<Pointer, Pointer> parents = Maps.newMap();
+
+    /**
+     * Map from a representative pointer to the other pointers
+     * in its collapsed cycle.
+     */
+    private final MultiMap<Pointer, Pointer> members = Maps.newMultiMap();
+
+    /**
+     * Edges which have been searched for cycles. Each edge is searched
+     * at most once.
+     */
+    private final MultiMap<Pointer, Pointer> searchedEdges = Maps.newMultiMap();
+
+    /**
+     * @param mergeEquivalentVars whether the variables which are
+     *                            pointer-equivalent share one node.
+     *                            See {@link VarEquivalence}.
+     */
+    PointerFlowGraph(boolean mergeEquivalentVars) {
+        this(mergeEquivalentVars, false);
+    }
+
+    /**
+     * @param concurrentPointsToSets whether the pointers in this PFG are
+     *                               given points-to sets which support
+     *                               concurrent updates.
+     */
+    PointerFlowGraph(boolean mergeEquivalentVars,
+                     boolean concurrentPointsToSets) {
+        pointerManager = new PointerManager(
+                mergeEquivalentVars ? new VarEquivalence() : null,
+                concurrentPointsToSets);
+    }
 
     /**
      * Returns all pointers in this PFG.
      */
-    Set<Pointer> getPointers() {
-        return Collections.unmodifiableSet(pointers);
+    Collection<Pointer> getPointers() {
+        return pointerManager.getPointers();
     }
 
     /**
      * @return the corresponding Var node for the given variable.
      */
     VarPtr getVarPtr(Var var) {
-        return varPtrs.computeIfAbsent(var, v -> {
-            VarPtr varPtr = new VarPtr(v);
-            pointers.add(varPtr);
-            return varPtr;
-        });
+        return pointerManager.getVarPtr(var);
     }
 
     /**
      * @return the corresponding StaticField node for the given static field.
      */
     StaticField getStaticField(JField field) {
-        return staticFields.computeIfAbsent(field, f -> {
-            StaticField staticField = new StaticField(f);
-            pointers.add(staticField);
-            return staticField;
-        });
+        return pointerManager.getStaticField(field);
     }
 
     /**
@@ -103,22 +140,21 @@ class PointerFlowGraph {
      * and instance field.
      */
     InstanceField getInstanceField(Obj base, JField field) {
-        return instanceFields.computeIfAbsent(base, field, (b, f) -> {
-                InstanceField instanceField = new InstanceField(b, f);
-                pointers.add(instanceField);
-                return instanceField;
-            });
+        return pointerManager.getInstanceField(base, field);
     }
 
     /**
      * @return the corresponding ArrayIndex node for the given array object.
      */
     ArrayIndex getArrayIndex(Obj array) {
-        return arrayIndexes.computeIfAbsent(array, a -> {
-            ArrayIndex arrayIndex = new ArrayIndex(a);
-            pointers.add(arrayIndex);
-            return arrayIndex;
-        });
+        return pointerManager.getArrayIndex(array);
+    }
+
+    /**
+     * @return the manager of the pointers in this PFG.
+     */
+    PointerManager getPointerManager() {
+        return pointerManager;
     }
 
     /**
@@ -128,13 +164,207 @@ class PointerFlowGraph {
      * otherwise false.
      */
     boolean addEdge(Pointer source, Pointer target) {
-        return successors.put(source, target);
+        source = getRepresentative(source);
+        target = getRepresentative(target);
+        if (source != target && successors.put(source, target)) {
+            ++numberOfEdges;
+            return true;
+        }
+        return false;
     }
 
     /**
-     * @return successors of given pointer in the PFG.
+     * @return successors of given pointer in the PFG. For a pointer in
+     * a collapsed cycle, these are the successors of the whole cycle.
      */
     Set<Pointer> getSuccsOf(Pointer pointer) {
-        return successors.get(pointer);
+        return successors.get(getRepresentative(pointer));
+    }
+
+    /**
+     * @return the representative of the collapsed cycle containing
+     * given pointer, or the pointer itself if it is not in such a cycle.
+     */
+    Pointer getRepresentative(Pointer pointer) {
+        Pointer parent = parents.get(pointer);
+        if (parent == null) {
+            return pointer;
+        }
+        Pointer rep = getRepresentative(parent);
+        if (rep != parent) {
+            parents.put(pointer, rep); // path compression
+        }
+        return rep;
+    }
+
+    /**
+     * @return all pointers in the collapsed cycle containing given pointer,
+     * i.e., its representative and the pointers merged into it, or only
+     * the pointer itself if it is not in such a cycle. As these pointers
+     * share one points-to set, every change of the set must be processed
+     * for the statements of all of them.
+     */
+    Collection<Pointer> getCycleMembers(Pointer pointer) {
+        Pointer rep = getRepresentative(pointer);
+        Set<Pointer> merged = members.get(rep);
+        if (merged.isEmpty()) {
+            return List.of(rep);
+        }
+        List<Pointer> result = new ArrayList<>(merged.size() + 1);
+        result.add(rep);
+        result.addAll(merged);
+        return result;
+    }
+
+    /**
+     * Searches for a cycle through edge source -> target, and collapses
+     * the pointers on it into one representative, which shares a single
+     * points-to set with all of them. This is meant to be called lazily,
+     * when propagation along the edge adds nothing new to target, which
+     * hints that both pointers are in a cycle.
+     * <p>
+     * Each edge is searched at most once, and the search gives up after
+     * visiting {@link #CYCLE_SEARCH_LIMIT} pointers.
+     *
+     * @return the objects which each pointer of the collapsed cycle gains
+     * from the merge (pointers gaining nothing are absent), or null if
+     * no cycle was found. The gained objects have not been processed for
+     * the statements of the pointers yet; besides, the points-to set of
+     * the representative may contain objects which have not reached its
+     * successors yet.
+     */
+    Map<Pointer, PointsToSet> collapseCycle(Pointer source, Pointer target) {
+        source = getRepresentative(source);
+        target = getRepresentative(target);
+        if (source == target || !searchedEdges.put(source, target)) {
+            return null;
+        }
+        // search forwards from target, recording the edges between the
+        // visited pointers, and then backwards from source along these
+        // edges: the pointers found both ways are on cycles through the
+        // edge. A single depth-first search would miss the pointers which
+        // reach source only via the ones still on its stack
+        Set<Pointer> visited = Sets.newSet();
+        MultiMap<Pointer, Pointer> preds = Maps.newMultiMap();
+        Deque<Pointer> stack = new ArrayDeque<>();
+        visited.add(target);
+        stack.push(target);
+        while (!stack.isEmpty()) {
+            Pointer node = stack.pop();
+            for (Pointer s : successors.get(node)) {
+                Pointer succ = getRepresentative(s);
+                preds.put(succ, node);
+                if (succ != source && visited.add(succ)) {
+                    if (visited.size() > CYCLE_SEARCH_LIMIT) {
+                        return null;
+                    }
+                    stack.push(succ);
+                }
+            }
+        }
+        Set<Pointer> cycle = Sets.newSet();
+        Deque<Pointer> queue = new ArrayDeque<>(preds.get(source));
+        while (!queue.isEmpty()) {
+            Pointer node = queue.poll();
+            if (cycle.add(node)) {
+                queue.addAll(preds.get(node));
+            }
+        }
+        if (cycle.isEmpty()) {
+            return null;
+        }
+        // merge the points-to sets of the pointers on the cycle into source
+        PointsToSet repPts = source.getPointsToSet();
+        Map<Pointer, Set<Obj>> oldObjs = Maps.newMap();
+        oldObjs.put(source, Set.copyOf(repPts.getObjects()));
+        for (Pointer member : cycle) {
+            oldObjs.put(member, member.getPointsToSet().getObjects());
+            member.getPointsToSet().forEach(repPts::addObject);
+        }
+        Map<Pointer, PointsToSet> gains = Maps.newMap();
+        oldObjs.forEach((pointer, objs) -> {
+            if (objs.size() < repPts.size()) {
+                PointsToSet gain = new PointsToSet();
+                repPts.objects()
+                        .filter(obj -> !objs.contains(obj))
+                        .forEach(gain::addObject);
+                gains.put(pointer, gain);
+                // so do the pointers merged into it by earlier collapses
+                members.get(pointer).forEach(merged -> gains.put(merged, gain));
+            }
+        });
+        // redirect the pointers on the cycle (and the ones merged
+        // into them) to source
+        for (Pointer member : cycle) {
+            parents.put(member, source);
+            member.setPointsToSet(repPts);
+            members.put(source, member);
+            for (Pointer merged : List.copyOf(members.get(member))) {
+                merged.setPointsToSet(repPts);
+                members.put(source, merged);
+            }
+            members.removeAll(member);
+            for (Pointer succ : successors.get(member)) {
+                addEdge(source, succ);
+            }
+            successors.removeAll(member);
+        }
+        Pointer rep = source;
+        List<Pointer> selfLoops = successors.get(rep)
+                .stream()
+                .filter(succ -> getRepresentative(succ) == rep)
+                .toList();
+        selfLoops.forEach(succ -> successors.remove(rep, succ));
+        return gains;
+    }
+
+    /**
+     * @return the rank of given pointer in topological order of this PFG.
+     * Pointers in a cycle are ordered arbitrarily. Ranks are recomputed
+     * only after the number of edges has doubled since last computation;
+     * in between, pointers without a rank are ranked after all others.
+     */
+    int getTopologicalRank(Pointer pointer) {
+        if (numberOfEdges >= 2 * numberOfRankedEdges && numberOfEdges > 0) {
+            computeRanks();
+        }
+        pointer = getRepresentative(pointer);
+        Integer rank = ranks.get(pointer);
+        if (rank == null) {
+            rank = ranks.size();
+            ranks.put(pointer, rank);
+        }
+        return rank;
+    }
+
+    /**
+     * Ranks pointers by reverse post-order of depth-first search.
+     */
+    private void computeRanks() {
+        Set<Pointer> visited = Sets.newSet();
+        List<Pointer> postOrder = new ArrayList<>();
+        Deque<Pair<Pointer, Iterator<Pointer>>> stack = new ArrayDeque<>();
+        for (Pointer root : successors.keySet()) {
+            if (visited.add(root)) {
+                stack.push(new Pair<>(root, getSuccsOf(root).iterator()));
+                while (!stack.isEmpty()) {
+                    Iterator<Pointer> succs = stack.peek().second();
+                    if (succs.hasNext()) {
+                        Pointer succ = succs.next();
+                        if (visited.add(succ)) {
+                            stack.push(new Pair<>(succ,
+                                    getSuccsOf(succ).iterator()));
+                        }
+                    } else {
+                        postOrder.add(stack.pop().first());
+                    }
+                }
+            }
+        }
+        ranks.clear();
+        for (int i = postOrder.size() - 1; i >= 0; --i) {
+            ranks.put(postOrder.get(i), ranks.size());
+        }
+        numberOfRankedEdges = numberOfEdges;
     }
 }
@@ -0,0 +1,225 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.ci;
+
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Manages the pointers in context-insensitive pointer analysis.
+ * <p>
+ * Each pointer is created only once, thus pointers can be compared by
+ * identity. Variables are indexed by {@link Var#getIndex()} in per-method
+ * arrays, and objects and fields are given dense ids on their first
+ * occurrences, so that lookups of pointers are array accesses.
+ * Each pointer is also given a dense id, which can be retrieved by
+ * {@link Pointer#getIndex()}.
+ */
+class PointerManager {
+
+    /**
+     * Equivalence of variables, which share one VarPtr,
+     * or null if equivalent variables are not merged.
+     */
+    @Nullable
+    private final VarEquivalence varEquivalence;
+
+    /**
+     * Whether the pointers are given concurrent points-to sets.
+     */
+    private final boolean concurrent;
+
+    private final Map<JMethod, VarPtr[]> varPtrs = Maps.newMap();
+
+    private final Map<Obj, Integer> objIds = Maps.newMap();
+
+    private final Map<JField, Integer> fieldIds = Maps.newMap();
+
+    /**
+     * StaticField pointers, indexed by field ids.
+     */
+    private final List<StaticField> staticFields = new ArrayList<>();
+
+    /**
+     * InstanceField pointers of each object, indexed by object ids
+     * and field ids.
+     */
+    private final List<InstanceField[]> instanceFields = new ArrayList<>();
+
+    /**
+     * ArrayIndex pointers, indexed by object ids.
+     */
+    private final List<ArrayIndex> arrayIndexes = new ArrayList<>();
+
+    /**
+     * All pointers, indexed by pointer ids.
+     */
+    private final List<Pointer> pointers = new ArrayList<>();
+
+    /**
+     * @param concurrent whether the pointers are given points-to sets
+     *                   which support concurrent updates. Note that this
+     *                   manager itself is not thread-safe.
+     */
+    PointerManager(@Nullable VarEquivalence varEquivalence, boolean concurrent) {
+        this.varEquivalence = varEquivalence;
+        this.concurrent = concurrent;
+    }
+
+    /**
+     * @return the VarPtr for the given variable. Equivalent variables
+     * share the VarPtr of their representative.
+     */
+    VarPtr getVarPtr(Var var) {
+        if (varEquivalence != null) {
+            var = varEquivalence.getRepresentative(var);
+        }
+        VarPtr[] ptrs = varPtrs.computeIfAbsent(var.getMethod(),
+                m -> new VarPtr[m.getIR().getVars().size()]);
+        int index = var.getIndex();
+        if (index >= ptrs.length) { // should not happen for well-formed IR
+            ptrs = Arrays.copyOf(ptrs, index + 1);
+            varPtrs.put(var.getMethod(), ptrs);
+        }
+        VarPtr varPtr = ptrs[index];
+        if (varPtr == null) {
+            List<Var> vars = varEquivalence != null ?
+                    varEquivalence.getVarsOf(var) : List.of(var);
+            varPtr = new VarPtr(var, vars, pointers.size());
+            ptrs[index] = varPtr;
+            addPointer(varPtr);
+        }
+        return varPtr;
+    }
+
+    /**
+     * @return the StaticField pointer for the given static field.
+     */
+    StaticField getStaticField(JField field) {
+        int fieldId = getFieldId(field);
+        StaticField staticField = get(staticFields, fieldId);
+        if (staticField == null) {
+            staticField = new StaticField(field, pointers.size());
+            set(staticFields, fieldId, staticField);
+            addPointer(staticField);
+        }
+        return staticField;
+    }
+
+    /**
+     * @return the InstanceField pointer for the given object and
+     * instance field.
+     */
+    InstanceField getInstanceField(Obj base, JField field) {
+        int objId = getObjId(base);
+        int fieldId = getFieldId(field);
+        InstanceField[] fields = get(instanceFields, objId);
+        if (fields == null || fieldId >= fields.length) {
+            fields = fields == null ? new InstanceField[fieldId + 1] :
+                    Arrays.copyOf(fields, Math.max(fieldId + 1, fields.length * 2));
+            set(instanceFields, objId, fields);
+        }
+        InstanceField instanceField = fields[fieldId];
+        if (instanceField == null) {
+            instanceField = new InstanceField(base, field, pointers.size());
+            fields[fieldId] = instanceField;
+            addPointer(instanceField);
+        }
+        return instanceField;
+    }
+
+    /**
+     * @return the ArrayIndex pointer for the given array object.
+     */
+    ArrayIndex getArrayIndex(Obj array) {
+        int objId = getObjId(array);
+        ArrayIndex arrayIndex = get(arrayIndexes, objId);
+        if (arrayIndex == null) {
+            arrayIndex = new ArrayIndex(array, pointers.size());
+            set(arrayIndexes, objId, arrayIndex);
+            addPointer(arrayIndex);
+        }
+        return arrayIndex;
+    }
+
+    /**
+     * @return the pointer with the given id.
+     */
+    Pointer getPointer(int index) {
+        return pointers.get(index);
+    }
+
+    /**
+     * @return all pointers created by this manager.
+     */
+    List<Pointer> getPointers() {
+        return Collections.unmodifiableList(pointers);
+    }
+
+    /**
+     * @return the number of pointers created by this manager.
+     */
+    int getNumberOfPointers() {
+        return pointers.size();
+    }
+
+    /**
+     * @return the dense id of the given object.
+     */
+    int getObjId(Obj obj) {
+        return objIds.computeIfAbsent(obj, o -> objIds.size());
+    }
+
+    private void addPointer(Pointer pointer) {
+        if (concurrent) {
+            pointer.setPointsToSet(PointsToSet.newConcurrentSet());
+        }
+        pointers.add(pointer);
+    }
+
+    private int getFieldId(JField field) {
+        return fieldIds.computeIfAbsent(field, f -> fieldIds.size());
+    }
+
+    private static <T> T get(List<T> list, int index) {
+        return index < list.size() ? list.get(index) : null;
+    }
+
+    private static <T> void set(List<T> list, int index, T element) {
+        while (list.size() <= index) {
+            list.add(null);
+        }
+        list.set(index, element);
+    }
+}
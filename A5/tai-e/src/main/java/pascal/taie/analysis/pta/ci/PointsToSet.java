@@ -35,21 +35,35 @@ import java.util.stream.Stream;
  */
 class PointsToSet implements Iterable<Obj> {
 
-    private final Set<Obj> set = Sets.newHybridSet();
+    private final Set<Obj> set;
 
     /**
      * Constructs an empty points-to set.
      */
     PointsToSet() {
+        this(Sets.newHybridSet());
     }
 
     /**
      * Constructs a points-to set containing one object.
      */
     PointsToSet(Obj obj) {
+        this();
         addObject(obj);
     }
 
+    private PointsToSet(Set<Obj> set) {
+        this.set = set;
+    }
+
+    /**
+     * @return an empty points-to set which supports concurrent additions
+     * and iterations. Its iterators are weakly consistent.
+     */
+    static PointsToSet newConcurrentSet() {
+        return new PointsToSet(Sets.newConcurrentSet());
+    }
+
     /**
      * Adds an object to this set.
      *
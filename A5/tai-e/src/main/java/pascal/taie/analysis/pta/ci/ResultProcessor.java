@@ -43,6 +43,7 @@ import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.function.Predicate;
 import java.util.function.ToIntFunction;
 
@@ -117,7 +118,7 @@ class ResultProcessor {
         } else {  // otherwise, dump to System.out
             out = System.out;
         }
-        dumpPointers(out, getPointers(result, VarPtr.class), "variables");
+        dumpPointers(out, getVarPointers(result), "variables");
         dumpPointers(out, getPointers(result, StaticField.class), "static fields");
         dumpPointers(out, getPointers(result, InstanceField.class), "instance fields");
         dumpPointers(out, getPointers(result, ArrayIndex.class), "array indexes");
@@ -133,12 +134,30 @@ class ResultProcessor {
                 klass::isInstance);
     }
 
+    /**
+     * @return the variable pointers, keyed by each variable they represent,
+     * as equivalent variables may share one VarPtr.
+     */
+    private static Map<String, Pointer> getVarPointers(CIPTAResult result) {
+        Map<String, Pointer> varPointers = new TreeMap<>();
+        getPointers(result, VarPtr.class).forEach(p ->
+                ((VarPtr) p).getVars().forEach(v ->
+                        varPointers.put(v.getMethod() + "/" + v.getName(), p)));
+        return varPointers;
+    }
+
     private static void dumpPointers(
             PrintStream out, Collection<? extends Pointer> pointers, String desc) {
+        Map<String, Pointer> map = new LinkedHashMap<>();
+        addPointers(map, pointers);
+        dumpPointers(out, map, desc);
+    }
+
+    private static void dumpPointers(
+            PrintStream out, Map<String, Pointer> pointers, String desc) {
         out.println(HEADER + desc);
-        pointers.stream()
-                .sorted(Comparator.comparing(Pointer::toString))
-                .forEach(p -> out.println(p + SEP + toString(p.getPointsToSet())));
+        pointers.forEach((pointerStr, p) ->
+                out.println(pointerStr + SEP + toString(p.getPointsToSet())));
         out.println();
     }
 
@@ -150,7 +169,7 @@ class ResultProcessor {
         logger.info("Comparing points-to set with {} ...", input);
         var inputs = readPointsToSets(input);
         Map<String, Pointer> pointers = new LinkedHashMap<>();
-        addPointers(pointers, getPointers(result, VarPtr.class));
+        pointers.putAll(getVarPointers(result));
         addPointers(pointers, getPointers(result, StaticField.class));
         addPointers(pointers, getPointers(result, InstanceField.class));
         addPointers(pointers, getPointers(result, ArrayIndex.class));
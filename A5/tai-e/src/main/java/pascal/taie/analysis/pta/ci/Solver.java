@@ -31,6 +31,7 @@ import pascal.taie.analysis.graph.callgraph.DefaultCallGraph;
 import pascal.taie.analysis.graph.callgraph.Edge;
 import pascal.taie.analysis.pta.core.heap.HeapModel;
 import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.config.AnalysisOptions;
 import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.InvokeExp;
 import pascal.taie.ir.exp.Var;
@@ -41,13 +42,17 @@ import pascal.taie.language.classes.JMethod;
 import pascal.taie.util.AnalysisException;
 import pascal.taie.language.type.Type;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 class Solver {
 
     private static final Logger logger = LogManager.getLogger(Solver.class);
 
+    private final AnalysisOptions options;
+
     private final HeapModel heapModel;
 
     private DefaultCallGraph callGraph;
@@ -60,7 +65,8 @@ class Solver {
 
     private ClassHierarchy hierarchy;
 
-    Solver(HeapModel heapModel) {
+    Solver(AnalysisOptions options, HeapModel heapModel) {
+        this.options = options;
         this.heapModel = heapModel;
     }
 
@@ -76,8 +82,11 @@ class Solver {
      * Initializes pointer analysis.
      */
     private void initialize() {
-        workList = new WorkList();
-        pointerFlowGraph = new PointerFlowGraph();
+        pointerFlowGraph = new PointerFlowGraph(
+                options.getBooleanOrDefault("merge-equivalent-vars", false));
+        workList = new WorkList(
+                WorkList.Order.of(options.getString("worklist-order")),
+                pointerFlowGraph::getTopologicalRank);
         callGraph = new DefaultCallGraph();
         stmtProcessor = new StmtProcessor();
         hierarchy = World.get().getClassHierarchy();
@@ -91,124 +100,168 @@ class Solver {
      * Processes new reachable method.
      */
     private void addReachable(JMethod method) {
-        // TODO - finish me
-
-        //TODO 静态方法
-        if(!callGraph.contains(method)){
-            callGraph.addReachableMethod(method);
-
-            List<Stmt> Sm = method.getIR().getStmts();
-            for(Stmt stmt:Sm){
-                if(stmt instanceof New newStmt){
-                    Var lVar = newStmt.getLValue();
-                    VarPtr varPtr=new VarPtr(lVar);
-                    Obj obj = heapModel.getObj(newStmt);
-                    PointsToSet pointsToSet=new PointsToSet();
-                    pointsToSet.addObject(obj);
-                    workList.addEntry(varPtr,pointsToSet);
-
-                }else if(stmt instanceof Copy copyStmt){
-                    Var lVar = copyStmt.getLValue();
-                    Var rVal = copyStmt.getRValue();
-
-                    VarPtr lvarPtr=new VarPtr(lVar);
-                    VarPtr rvarPtr=new VarPtr(rVal);
-                    addPFGEdge(rvarPtr,lvarPtr);
-                }
-            }
-
+        if (callGraph.addReachableMethod(method) && !method.isAbstract()) {
+            method.getIR().forEach(stmt -> stmt.accept(stmtProcessor));
         }
-
     }
 
     /**
      * Processes statements in new reachable methods.
      */
     private class StmtProcessor implements StmtVisitor<Void> {
-        // TODO - if you choose to implement addReachable()
-        //  via visitor pattern, then finish me
+
+        @Override
+        public Void visit(New stmt) {
+            workList.addEntry(pointerFlowGraph.getVarPtr(stmt.getLValue()),
+                    new PointsToSet(heapModel.getObj(stmt)));
+            return null;
+        }
+
+        @Override
+        public Void visit(Copy stmt) {
+            addPFGEdge(pointerFlowGraph.getVarPtr(stmt.getRValue()),
+                    pointerFlowGraph.getVarPtr(stmt.getLValue()));
+            return null;
+        }
+
+        @Override
+        public Void visit(LoadField stmt) {
+            if (stmt.isStatic()) {
+                addPFGEdge(pointerFlowGraph.getStaticField(stmt.getFieldRef().resolve()),
+                        pointerFlowGraph.getVarPtr(stmt.getLValue()));
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(StoreField stmt) {
+            if (stmt.isStatic()) {
+                addPFGEdge(pointerFlowGraph.getVarPtr(stmt.getRValue()),
+                        pointerFlowGraph.getStaticField(stmt.getFieldRef().resolve()));
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(Invoke stmt) {
+            if (stmt.isStatic()) {
+                JMethod callee = resolveCallee(null, stmt);
+                if (callee == null) { // unresolvable, e.g., missing class
+                    return null;
+                }
+                processCallEdge(stmt, callee);
+            }
+            return null;
+        }
     }
 
     /**
      * Adds an edge "source -> target" to the PFG.
      */
     private void addPFGEdge(Pointer source, Pointer target) {
-        // TODO - finish me
-
-        //如果PFG发生改变则 返回值为 true
-        if(pointerFlowGraph.addEdge(source, target)){
-            if(!source.getPointsToSet().isEmpty()){
-                workList.addEntry(target,source.getPointsToSet());
+        if (pointerFlowGraph.addEdge(source, target)) {
+            PointsToSet pts = source.getPointsToSet();
+            if (!pts.isEmpty()) {
+                workList.addEntry(target, pts);
             }
         }
     }
 
     /**
      * Processes work-list entries until the work-list is empty.
-     *  PTA-FD P125
      */
     private void analyze() {
-        // TODO - finish me
-
-        while (!workList.isEmpty()){
+        while (!workList.isEmpty()) {
             WorkList.Entry entry = workList.pollEntry();
-            Pointer pointer = entry.pointer();
-
+            Pointer pointer = pointerFlowGraph.getRepresentative(entry.pointer());
+            // the members before propagation, as the ones merged by
+            // the propagation process their gains by themselves
+            Collection<Pointer> members = pointerFlowGraph.getCycleMembers(pointer);
             PointsToSet delta = propagate(pointer, entry.pointsToSet());
-            if(pointer instanceof VarPtr varPtr){
-                List<StoreField> storeFields = varPtr.getVar().getStoreFields();
-                List<LoadField> loadFields = varPtr.getVar().getLoadFields();
-
-                //外层 foreach
-                for(Obj obj:delta){
-
-                    //内层 foreach
-                    for(StoreField storeField:storeFields){
-                        Var rValue = storeField.getRValue();
-                        VarPtr ptr=new VarPtr(rValue);
-
-                        //如何表示 oi.f ?
-
-
-                    }
-
-                    //内层 foreach
-                    for(LoadField loadField:loadFields){
-
-                    }
+            if (!delta.isEmpty()) {
+                members.forEach(member -> processDelta(member, delta));
+            }
+        }
+    }
 
-                    processCall(varPtr.getVar(),obj);
+    /**
+     * Processes the statements of given pointer for the objects
+     * newly pointed to by it.
+     */
+    private void processDelta(Pointer pointer, PointsToSet delta) {
+        if (pointer instanceof VarPtr varPtr) {
+            for (Var var : varPtr.getVars()) {
+                for (Obj obj : delta) {
+                    processInstanceAccesses(var, obj);
+                    processCall(var, obj);
                 }
             }
         }
     }
 
+    private void processInstanceAccesses(Var var, Obj obj) {
+        for (StoreField store : var.getStoreFields()) {
+            addPFGEdge(pointerFlowGraph.getVarPtr(store.getRValue()),
+                    pointerFlowGraph.getInstanceField(obj, store.getFieldRef().resolve()));
+        }
+        for (LoadField load : var.getLoadFields()) {
+            addPFGEdge(pointerFlowGraph.getInstanceField(obj, load.getFieldRef().resolve()),
+                    pointerFlowGraph.getVarPtr(load.getLValue()));
+        }
+        for (StoreArray store : var.getStoreArrays()) {
+            addPFGEdge(pointerFlowGraph.getVarPtr(store.getRValue()),
+                    pointerFlowGraph.getArrayIndex(obj));
+        }
+        for (LoadArray load : var.getLoadArrays()) {
+            addPFGEdge(pointerFlowGraph.getArrayIndex(obj),
+                    pointerFlowGraph.getVarPtr(load.getLValue()));
+        }
+    }
+
     /**
      * Propagates pointsToSet to pt(pointer) and its PFG successors,
      * returns the difference set of pointsToSet and pt(pointer).
      */
     private PointsToSet propagate(Pointer pointer, PointsToSet pointsToSet) {
-        // TODO - finish me
-
-        //计算差集的笨方法
-        PointsToSet delta=new PointsToSet();
-        for(Obj obj:pointer.getPointsToSet()){
-            if(!pointsToSet.contains(obj))
-                delta.addObject(obj);
+        PointsToSet pts = pointer.getPointsToSet();
+        PointsToSet delta = new PointsToSet();
+        pointsToSet.objects()
+                .filter(obj -> !pts.contains(obj))
+                .forEach(delta::addObject);
+        if (!delta.isEmpty()) {
+            delta.forEach(pts::addObject);
+            pointerFlowGraph.getSuccsOf(pointer)
+                    .forEach(succ -> workList.addEntry(succ, delta));
+            collapseCycles(pointer, delta);
         }
+        return delta;
+    }
 
-        if(!delta.isEmpty()){
-            for(Obj obj:delta){
-                pointer.getPointsToSet().addObject(obj);
-            }
-
-            Set<Pointer> succs = pointerFlowGraph.getSuccsOf(pointer);
-            for(Pointer ptr:succs){
-                workList.addEntry(ptr,delta);
+    /**
+     * Lazy cycle detection: if a successor of pointer already contains
+     * all objects of delta, propagation along the edge adds nothing new,
+     * which hints that the edge is in a cycle. Searches such edges for
+     * cycles. For a collapsed cycle, processes the objects which each
+     * member gains from the merge, and re-propagates the merged points-to
+     * set to the successors of the cycle, as the members may not have
+     * sent all their objects.
+     */
+    private void collapseCycles(Pointer pointer, PointsToSet delta) {
+        for (Pointer succ : List.copyOf(pointerFlowGraph.getSuccsOf(pointer))) {
+            PointsToSet succPts = succ.getPointsToSet();
+            if (succPts != pointer.getPointsToSet()
+                    && succPts.getObjects().containsAll(delta.getObjects())) {
+                Map<Pointer, PointsToSet> gains =
+                        pointerFlowGraph.collapseCycle(pointer, succ);
+                if (gains != null) {
+                    gains.forEach(this::processDelta);
+                    PointsToSet repPts = pointer.getPointsToSet();
+                    pointerFlowGraph.getSuccsOf(pointer)
+                            .forEach(s -> workList.addEntry(s, repPts));
+                    return;
+                }
             }
         }
-
-        return delta;
     }
 
     /**
@@ -218,44 +271,40 @@ class Solver {
      * @param recv a new discovered object pointed by the variable.
      */
     private void processCall(Var var, Obj recv) {
-        // TODO - finish me
-
-        PointsToSet pointsToSet=new PointsToSet();
-        pointsToSet.addObject(recv);
-
-        List<Invoke> invokes = var.getInvokes();
-        for(Invoke invoke:invokes){
-
-            JMethod jMethod = resolveCallee(recv, invoke);      //dispatch 的方法
-            VarPtr varPtr=new VarPtr(jMethod.getIR().getThis());
-            workList.addEntry(varPtr,pointsToSet);
-
-            if(callGraph.addEdge(new Edge<>(CallKind.VIRTUAL, invoke, jMethod))){
-                callGraph.addReachableMethod(jMethod);
-
-                List<Var> params = jMethod.getIR().getParams();
-                List<Var> args = invoke.getInvokeExp().getArgs();
-
-                //a表示args(传递参数)，p表示param(接收参数)
-                for(int i=0;i<params.size();i++){
-                    VarPtr paramPtr=new VarPtr(params.get(i));
-                    VarPtr argPtr=new VarPtr(args.get(i));
-
-                    addPFGEdge(argPtr,paramPtr);
-                }
-
-                List<Var> returnVars = jMethod.getIR().getReturnVars();
-                Var lValue = invoke.getLValue();
-                VarPtr lPtr=new VarPtr(lValue);
-
-                for(Var each:returnVars){
-                    VarPtr tmp=new VarPtr(each);
+        for (Invoke invoke : var.getInvokes()) {
+            JMethod callee = resolveCallee(recv, invoke);
+            if (callee != null) {
+                workList.addEntry(
+                        pointerFlowGraph.getVarPtr(callee.getIR().getThis()),
+                        new PointsToSet(recv));
+                processCallEdge(invoke, callee);
+            }
+        }
+    }
 
-                    addPFGEdge(tmp,lPtr);
+    /**
+     * Adds the call edge to the call graph, and if it is new, makes the
+     * callee reachable, and adds the PFG edges for parameter passing
+     * and return values.
+     */
+    private void processCallEdge(Invoke invoke, JMethod callee) {
+        if (callGraph.addEdge(new Edge<>(
+                CallGraphs.getCallKind(invoke), invoke, callee))) {
+            addReachable(callee);
+            IR ir = callee.getIR();
+            List<Var> args = invoke.getInvokeExp().getArgs();
+            for (int i = 0; i < args.size(); ++i) {
+                addPFGEdge(pointerFlowGraph.getVarPtr(args.get(i)),
+                        pointerFlowGraph.getVarPtr(ir.getParam(i)));
+            }
+            Var lhs = invoke.getLValue();
+            if (lhs != null) {
+                for (Var ret : ir.getReturnVars()) {
+                    addPFGEdge(pointerFlowGraph.getVarPtr(ret),
+                            pointerFlowGraph.getVarPtr(lhs));
                 }
             }
         }
-
     }
 
     /**
@@ -31,7 +31,8 @@ class StaticField extends Pointer {
 
     private final JField field;
 
-    StaticField(JField field) {
+    StaticField(JField field, int index) {
+        super(index);
         this.field = field;
     }
 
@@ -42,23 +43,6 @@ class StaticField extends Pointer {
         return field;
     }
 
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) {
-            return true;
-        }
-        if (o == null || getClass() != o.getClass()) {
-            return false;
-        }
-        StaticField that = (StaticField) o;
-        return field.equals(that.field);
-    }
-
-    @Override
-    public int hashCode() {
-        return field.hashCode();
-    }
-
     @Override
     public String toString() {
         return field.toString();
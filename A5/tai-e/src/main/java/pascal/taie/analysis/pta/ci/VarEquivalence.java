@@ -0,0 +1,269 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.ci;
+
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.CastExp;
+import pascal.taie.ir.exp.InstanceFieldAccess;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Cast;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.LoadArray;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Pair;
+import pascal.taie.util.graph.MergedNode;
+import pascal.taie.util.graph.MergedSCCGraph;
+import pascal.taie.util.graph.SimpleGraph;
+import pascal.taie.util.graph.TopoSorter;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Offline pointer equivalence of variables, computed by hash-based value
+ * numbering (HVN) over the IR of each method before its statements are
+ * processed by the solver.
+ * <p>
+ * Each variable is given a set of labels, such that variables with the same
+ * label set are guaranteed to have the same points-to set:
+ * <ul>
+ *     <li>x = y: x gets the labels of y;</li>
+ *     <li>x = (T) y, x = y.f, x = y[i] and x = T.f: x gets a label which
+ *     is hashed from the operation and the label set of y, so that e.g.
+ *     loads of the same field from equivalent bases get the same label;</li>
+ *     <li>this, parameters and all other definitions (e.g., x = new T and
+ *     x = m()) get fresh labels.</li>
+ * </ul>
+ * Variables in a cycle of copies share one label set. Variables in other
+ * cycles, e.g., x = y.f; y = x, get fresh labels.
+ * <p>
+ * Equivalence is computed per method on first query, thus only for the
+ * methods whose variables are asked by the solver.
+ */
+class VarEquivalence {
+
+    /**
+     * Operator of array loads, which are not distinguished by index.
+     */
+    private static final Object ARRAY_LOAD = new Object();
+
+    /**
+     * Map from method to the representatives of its variables,
+     * indexed by {@link Var#getIndex()}.
+     */
+    private final Map<JMethod, Var[]> representatives = Maps.newMap();
+
+    /**
+     * Map from representative to the variables it represents, for the
+     * representatives of more than one variable.
+     */
+    private final MultiMap<Var, Var> equivalentVars = Maps.newMultiMap();
+
+    /**
+     * @return the representative of the variables equivalent to given var.
+     */
+    Var getRepresentative(Var var) {
+        return representatives.computeIfAbsent(var.getMethod(), this::compute)
+                [var.getIndex()];
+    }
+
+    /**
+     * @return all variables represented by given representative.
+     */
+    List<Var> getVarsOf(Var representative) {
+        return equivalentVars.containsKey(representative) ?
+                List.copyOf(equivalentVars.get(representative)) :
+                List.of(representative);
+    }
+
+    private Var[] compute(JMethod method) {
+        Var[] reps = new ValueNumbering(method.getIR()).run();
+        for (int i = 0; i < reps.length; ++i) {
+            Var rep = reps[i];
+            Var var = method.getIR().getVar(i);
+            if (rep != var) {
+                equivalentVars.put(rep, rep);
+                equivalentVars.put(rep, var);
+            }
+        }
+        return reps;
+    }
+
+    /**
+     * Value numbering of the variables in one method.
+     */
+    private static class ValueNumbering {
+
+        private final IR ir;
+
+        /**
+         * Map from x to y for each x = y.
+         */
+        private final MultiMap<Var, Var> copies = Maps.newMultiMap();
+
+        /**
+         * Map from x to (op, y) for each x = op(y). y is null for static
+         * field loads.
+         */
+        private final MultiMap<Var, Pair<Object, Var>> operations =
+                Maps.newMultiMap();
+
+        /**
+         * Labels given by operations, keyed by operator and the id
+         * of the label set of operand.
+         */
+        private final Map<Pair<Object, Integer>, Integer> operationLabels =
+                Maps.newMap();
+
+        private final Map<BitSet, Integer> labelSetIds = Maps.newMap();
+
+        /**
+         * Label sets of variables, indexed by {@link Var#getIndex()}.
+         */
+        private final BitSet[] labels;
+
+        private int nextLabel = 0;
+
+        private ValueNumbering(IR ir) {
+            this.ir = ir;
+            this.labels = new BitSet[ir.getVars().size()];
+        }
+
+        private Var[] run() {
+            SimpleGraph<Var> graph = buildGraph();
+            MergedSCCGraph<Var> sccGraph = new MergedSCCGraph<>(graph);
+            for (MergedNode<Var> scc : new TopoSorter<>(sccGraph).get()) {
+                labelSCC(scc.getNodes());
+            }
+            Map<BitSet, Var> reps = Maps.newMap();
+            Var[] result = new Var[labels.length];
+            for (Var var : ir.getVars()) {
+                result[var.getIndex()] =
+                        reps.computeIfAbsent(labels[var.getIndex()], s -> var);
+            }
+            return result;
+        }
+
+        /**
+         * Collects the definitions of variables and builds the graph
+         * of dependencies among variables, i.e., y -> x for x = op(y).
+         */
+        private SimpleGraph<Var> buildGraph() {
+            SimpleGraph<Var> graph = new SimpleGraph<>();
+            for (Var var : ir.getVars()) {
+                labels[var.getIndex()] = new BitSet();
+                graph.addNode(var);
+            }
+            if (ir.getThis() != null) {
+                addFreshLabel(ir.getThis());
+            }
+            ir.getParams().forEach(this::addFreshLabel);
+            for (Stmt stmt : ir) {
+                if (!(stmt.getDef().orElse(null) instanceof Var lhs)) {
+                    continue;
+                }
+                if (stmt instanceof Copy copy) {
+                    copies.put(lhs, copy.getRValue());
+                    graph.addEdge(copy.getRValue(), lhs);
+                } else if (stmt instanceof Cast cast) {
+                    CastExp exp = cast.getRValue();
+                    operations.put(lhs,
+                            new Pair<>(exp.getCastType(), exp.getValue()));
+                    graph.addEdge(exp.getValue(), lhs);
+                } else if (stmt instanceof LoadField load) {
+                    if (load.isStatic()) {
+                        operations.put(lhs, new Pair<>(load.getFieldRef(), null));
+                    } else {
+                        Var base = ((InstanceFieldAccess) load.getFieldAccess())
+                                .getBase();
+                        operations.put(lhs, new Pair<>(load.getFieldRef(), base));
+                        graph.addEdge(base, lhs);
+                    }
+                } else if (stmt instanceof LoadArray load) {
+                    Var base = load.getArrayAccess().getBase();
+                    operations.put(lhs, new Pair<>(ARRAY_LOAD, base));
+                    graph.addEdge(base, lhs);
+                } else {
+                    addFreshLabel(lhs);
+                }
+            }
+            return graph;
+        }
+
+        private void addFreshLabel(Var var) {
+            labels[var.getIndex()].set(nextLabel++);
+        }
+
+        /**
+         * Computes the label set of the variables in an SCC of the
+         * dependency graph. The SCCs which they depend on have been labeled.
+         */
+        private void labelSCC(List<Var> vars) {
+            Set<Var> scc = Set.copyOf(vars);
+            BitSet labelSet = new BitSet();
+            boolean copyCycle = true;
+            for (Var var : scc) {
+                labelSet.or(labels[var.getIndex()]);
+                for (Var source : copies.get(var)) {
+                    if (!scc.contains(source)) {
+                        labelSet.or(labels[source.getIndex()]);
+                    }
+                }
+                for (Pair<Object, Var> op : operations.get(var)) {
+                    Var operand = op.second();
+                    if (operand != null && scc.contains(operand)) {
+                        copyCycle = false;
+                    } else {
+                        labelSet.set(getOperationLabel(op.first(), operand));
+                    }
+                }
+            }
+            for (Var var : scc) {
+                if (copyCycle) {
+                    labels[var.getIndex()] = labelSet;
+                } else {
+                    BitSet s = (BitSet) labelSet.clone();
+                    s.set(nextLabel++);
+                    labels[var.getIndex()] = s;
+                }
+            }
+        }
+
+        private int getOperationLabel(Object operator, Var operand) {
+            int operandId = operand == null ? -1 : labelSetIds.computeIfAbsent(
+                    labels[operand.getIndex()], s -> labelSetIds.size());
+            Integer label = operationLabels.get(new Pair<>(operator, operandId));
+            if (label == null) {
+                label = nextLabel++;
+                operationLabels.put(new Pair<>(operator, operandId), label);
+            }
+            return label;
+        }
+    }
+}
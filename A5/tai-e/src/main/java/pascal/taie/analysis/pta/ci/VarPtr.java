@@ -24,6 +24,8 @@ package pascal.taie.analysis.pta.ci;
 
 import pascal.taie.ir.exp.Var;
 
+import java.util.List;
+
 /**
  * Represents local variable pointer in PFG.
  */
@@ -31,32 +33,29 @@ class VarPtr extends Pointer {
 
     private final Var var;
 
-    VarPtr(Var var) {
+    private final List<Var> vars;
+
+    VarPtr(Var var, List<Var> vars, int index) {
+        super(index);
         this.var = var;
+        this.vars = vars;
     }
 
     /**
      * @return the corresponding variable of the variable pointer.
+     * If the pointer represents several equivalent variables,
+     * this is their representative.
      */
     Var getVar() {
         return var;
     }
 
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) {
-            return true;
-        }
-        if (o == null || getClass() != o.getClass()) {
-            return false;
-        }
-        VarPtr other = (VarPtr) o;
-        return var.equals(other.var);
-    }
-
-    @Override
-    public int hashCode() {
-        return var.hashCode();
+    /**
+     * @return all variables represented by the variable pointer.
+     * @see VarEquivalence
+     */
+    List<Var> getVars() {
+        return vars;
     }
 
     @Override
@@ -22,21 +22,117 @@
 
 package pascal.taie.analysis.pta.ci;
 
+import pascal.taie.config.ConfigException;
+import pascal.taie.util.collection.Maps;
+
 import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Queue;
+import java.util.function.ToIntFunction;
 
 /**
  * Represents work list in pointer analysis.
+ * <p>
+ * The work list keeps at most one pending entry per pointer: when a pointer
+ * which is still in the work list is added again, the new objects are merged
+ * into its pending points-to set instead of being queued as another entry.
+ * The order in which pending pointers are retrieved is given by {@link Order}.
  */
 class WorkList {
 
-    private final Queue<Entry> entries = new ArrayDeque<>();
+    /**
+     * Ordering policies of the work list.
+     */
+    enum Order {
+        /**
+         * First in, first out.
+         */
+        FIFO,
+        /**
+         * Least recently fired: the pointer which was propagated longest
+         * ago (or never) goes first.
+         */
+        LRF,
+        /**
+         * Topological: pointers ranked earlier in the pointer flow graph
+         * go first, so that objects reach a pointer before it is propagated.
+         */
+        TOPO;
+
+        /**
+         * @param order "fifo" (default, also used for null), "lrf" or "topo".
+         */
+        static Order of(String order) {
+            if (order == null) {
+                return FIFO;
+            }
+            return switch (order) {
+                case "fifo" -> FIFO;
+                case "lrf" -> LRF;
+                case "topo" -> TOPO;
+                default -> throw new ConfigException(
+                        "Unknown work list order: " + order);
+            };
+        }
+    }
+
+    private final Order order;
+
+    /**
+     * Gives topological rank of pointers, used by {@link Order#TOPO}.
+     */
+    private final ToIntFunction<Pointer> ranker;
+
+    /**
+     * Map from each queued pointer to its pending entry.
+     */
+    private final Map<Pointer, Pending> pending = Maps.newMap();
+
+    private final Queue<Pending> queue;
+
+    /**
+     * Map from pointer to the time when it was last retrieved,
+     * used by {@link Order#LRF}.
+     */
+    private final Map<Pointer, Long> lastFired;
+
+    /**
+     * Number of retrieved entries, serving as the clock of {@link Order#LRF}.
+     */
+    private long time = 0;
 
     /**
-     * Adds an entry to the work list.
+     * Number of added entries, used to break ties of priorities in
+     * first-in-first-out manner.
+     */
+    private long counter = 0;
+
+    WorkList(Order order, ToIntFunction<Pointer> ranker) {
+        this.order = order;
+        this.ranker = ranker;
+        this.queue = order == Order.FIFO ? new ArrayDeque<>() :
+                new PriorityQueue<>(Comparator
+                        .comparingLong((Pending p) -> p.priority)
+                        .thenComparingLong(p -> p.seq));
+        this.lastFired = order == Order.LRF ? Maps.newMap() : null;
+    }
+
+    /**
+     * Adds an entry to the work list. If the pointer is already in
+     * the work list, the objects in pointsToSet are merged into its
+     * pending points-to set.
      */
     void addEntry(Pointer pointer, PointsToSet pointsToSet) {
-        entries.add(new Entry(pointer, pointsToSet));
+        Pending p = pending.get(pointer);
+        if (p == null) {
+            p = new Pending(pointer, pointsToSet, priorityOf(pointer), counter++);
+            pending.put(pointer, p);
+            queue.add(p);
+        } else {
+            p.merge(pointsToSet);
+        }
     }
 
     /**
@@ -44,14 +140,30 @@ class WorkList {
      * if this work list is empty.
      */
     Entry pollEntry() {
-        return entries.poll();
+        Pending p = queue.poll();
+        if (p == null) {
+            return null;
+        }
+        pending.remove(p.pointer);
+        if (lastFired != null) {
+            lastFired.put(p.pointer, ++time);
+        }
+        return new Entry(p.pointer, p.pointsToSet);
     }
 
     /**
      * @return true if the work list is empty, otherwise false.
      */
     boolean isEmpty() {
-        return entries.isEmpty();
+        return queue.isEmpty();
+    }
+
+    private long priorityOf(Pointer pointer) {
+        return switch (order) {
+            case FIFO -> 0;
+            case LRF -> lastFired.getOrDefault(pointer, 0L);
+            case TOPO -> ranker.applyAsInt(pointer);
+        };
     }
 
     /**
@@ -60,4 +172,43 @@ class WorkList {
      */
     record Entry(Pointer pointer, PointsToSet pointsToSet) {
     }
+
+    /**
+     * Pending entry of a queued pointer.
+     */
+    private static class Pending {
+
+        private final Pointer pointer;
+
+        private final long priority;
+
+        private final long seq;
+
+        private PointsToSet pointsToSet;
+
+        /**
+         * Whether pointsToSet was given by the caller. Such a set may be
+         * referenced elsewhere (e.g., it is the points-to set of another
+         * pointer), thus it is copied before merging new objects into it.
+         */
+        private boolean shared = true;
+
+        private Pending(Pointer pointer, PointsToSet pointsToSet,
+                        long priority, long seq) {
+            this.pointer = pointer;
+            this.pointsToSet = pointsToSet;
+            this.priority = priority;
+            this.seq = seq;
+        }
+
+        private void merge(PointsToSet pts) {
+            if (shared) {
+                PointsToSet copy = new PointsToSet();
+                pointsToSet.forEach(copy::addObject);
+                pointsToSet = copy;
+                shared = false;
+            }
+            pts.forEach(pointsToSet::addObject);
+        }
+    }
 }
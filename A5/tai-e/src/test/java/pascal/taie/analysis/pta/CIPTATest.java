@@ -25,6 +25,8 @@ package pascal.taie.analysis.pta;
 import org.junit.Test;
 import pascal.taie.analysis.Tests;
 
+import java.util.List;
+
 public class CIPTATest {
 
     static final String DIR = "cipta";
@@ -78,4 +80,22 @@ public class CIPTATest {
     public void testMergeParam() {
         Tests.testCIPTA(DIR, "MergeParam");
     }
+
+    @Test
+    public void testCycle() {
+        Tests.testCIPTA(DIR, "Cycle");
+    }
+
+    @Test
+    public void testParallel() {
+        // the results of the parallel solver are checked against the
+        // expected results of the sequential one, over several runs
+        // to go through different thread schedules
+        for (int i = 0; i < 5; ++i) {
+            for (String main : List.of("Example", "Array", "InstanceField",
+                    "StaticField", "StaticCall", "MergeParam", "Cycle")) {
+                Tests.testCIPTA(DIR, main, "solver:parallel", "threads:4");
+            }
+        }
+    }
 }
@@ -0,0 +1,123 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.ci;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.World;
+import pascal.taie.analysis.Tests;
+import pascal.taie.ir.exp.Var;
+
+import java.util.List;
+import java.util.Set;
+
+public class PointerFlowGraphTest {
+
+    @Test
+    public void testCollapseCycle() {
+        PointerFlowGraph pfg = new PointerFlowGraph(false);
+        Pointer s = newPointer("s", 0);
+        Pointer t = newPointer("t", 1);
+        Pointer x = newPointer("x", 2);
+        Pointer y1 = newPointer("y1", 3);
+        Pointer y2 = newPointer("y2", 4);
+        Pointer z = newPointer("z", 5);
+        pfg.addEdge(s, t);
+        pfg.addEdge(t, x);
+        pfg.addEdge(t, z);
+        // y1 and y2 reach s only via x, which is on the stack of
+        // a depth-first search from t when they are visited
+        pfg.addEdge(x, y1);
+        pfg.addEdge(y1, x);
+        pfg.addEdge(x, y2);
+        pfg.addEdge(y2, x);
+        pfg.addEdge(x, s);
+        Assert.assertNotNull(pfg.collapseCycle(s, t));
+        for (Pointer p : List.of(t, x, y1, y2)) {
+            Assert.assertSame(s, pfg.getRepresentative(p));
+            Assert.assertSame(s.getPointsToSet(), p.getPointsToSet());
+        }
+        Assert.assertSame(z, pfg.getRepresentative(z));
+        Assert.assertEquals(Set.of(s, t, x, y1, y2),
+                Set.copyOf(pfg.getCycleMembers(y1)));
+        // the edges inside the cycle are gone
+        Assert.assertEquals(Set.of(z), pfg.getSuccsOf(x));
+        // each edge is searched only once
+        Assert.assertNull(pfg.collapseCycle(s, t));
+    }
+
+    @Test
+    public void testCollapseNestedCycles() {
+        PointerFlowGraph pfg = new PointerFlowGraph(false);
+        Pointer a = newPointer("a", 0);
+        Pointer b = newPointer("b", 1);
+        Pointer c = newPointer("c", 2);
+        Pointer d = newPointer("d", 3);
+        // inner cycle b <-> c inside outer cycle a -> b -> c -> d -> a
+        pfg.addEdge(a, b);
+        pfg.addEdge(b, c);
+        pfg.addEdge(c, b);
+        pfg.addEdge(c, d);
+        pfg.addEdge(d, a);
+        Assert.assertNotNull(pfg.collapseCycle(c, b));
+        Assert.assertSame(c, pfg.getRepresentative(b));
+        Assert.assertSame(a, pfg.getRepresentative(a));
+        // the outer cycle absorbs the collapsed inner one
+        Assert.assertNotNull(pfg.collapseCycle(d, a));
+        for (Pointer p : List.of(a, b, c)) {
+            Assert.assertSame(d, pfg.getRepresentative(p));
+            Assert.assertSame(d.getPointsToSet(), p.getPointsToSet());
+        }
+        Assert.assertEquals(Set.of(a, b, c, d),
+                Set.copyOf(pfg.getCycleMembers(b)));
+        Assert.assertTrue(pfg.getSuccsOf(a).isEmpty());
+    }
+
+    @Test
+    public void testCollapseInAnalysis() {
+        // the copies in the nested loops of Cycle form nested cycles in
+        // the PFG, which are collapsed lazily during the analysis
+        Tests.testCIPTA("cipta", "Cycle");
+        CIPTAResult result = World.get().getResult(CIPTA.ID);
+        PointerFlowGraph pfg = result.getPointerFlowGraph();
+        Pointer rep = pfg.getRepresentative(getVarPtr(pfg, "a"));
+        Assert.assertTrue(pfg.getCycleMembers(rep).size() > 1);
+        for (String name : List.of("b", "c", "t", "u")) {
+            Assert.assertSame(rep, pfg.getRepresentative(getVarPtr(pfg, name)));
+        }
+    }
+
+    private static Pointer newPointer(String name, int index) {
+        Var var = new Var(null, name, null, index);
+        return new VarPtr(var, List.of(var), index);
+    }
+
+    private static VarPtr getVarPtr(PointerFlowGraph pfg, String name) {
+        Var var = World.get().getMainMethod().getIR().getVars()
+                .stream()
+                .filter(v -> v.getName().equals(name))
+                .findFirst()
+                .orElseThrow();
+        return pfg.getVarPtr(var);
+    }
+}
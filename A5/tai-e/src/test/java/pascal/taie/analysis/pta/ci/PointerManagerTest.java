@@ -0,0 +1,131 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package pascal.taie.analysis.pta.ci;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import pascal.taie.World;
+import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.pta.core.heap.MockObj;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.type.NullType;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public class PointerManagerTest {
+
+    private static List<Var> vars;
+
+    private static List<JField> fields;
+
+    private static List<Obj> objs;
+
+    @BeforeClass
+    public static void buildWorld() {
+        Tests.testCIPTA("cipta", "InstanceField", "action:null");
+        vars = World.get().getMainMethod().getIR().getVars();
+        ClassHierarchy hierarchy = World.get().getClassHierarchy();
+        fields = Stream.of("java.lang.String", "java.util.HashMap", "java.lang.Thread")
+                .map(hierarchy::getJREClass)
+                .map(JClass::getDeclaredFields)
+                .flatMap(Collection::stream)
+                .toList();
+        objs = new ArrayList<>();
+        for (int i = 0; i < 10; ++i) {
+            objs.add(new MockObj("test", i, NullType.NULL));
+        }
+    }
+
+    @Test
+    public void testVarPtr() {
+        PointerManager manager = new PointerManager(null, false);
+        Set<Pointer> ptrs = Sets.newSet();
+        vars.forEach(var -> ptrs.add(manager.getVarPtr(var)));
+        // distinct variables have distinct pointers
+        Assert.assertEquals(vars.size(), ptrs.size());
+        for (Var var : vars) {
+            VarPtr ptr = manager.getVarPtr(var);
+            Assert.assertSame(ptr, manager.getVarPtr(var));
+            Assert.assertSame(var, ptr.getVar());
+            Assert.assertSame(ptr, manager.getPointer(ptr.getIndex()));
+        }
+        Assert.assertEquals(vars.size(), manager.getNumberOfPointers());
+    }
+
+    @Test
+    public void testFieldAndArrayPointers() {
+        PointerManager manager = new PointerManager(null, false);
+        Set<Pointer> ptrs = Sets.newSet();
+        // requests the fields in reverse order first, so that the field
+        // arrays of the objects are created small and then grow
+        for (Obj obj : objs) {
+            for (int i = fields.size() - 1; i >= 0; i -= 7) {
+                ptrs.add(manager.getInstanceField(obj, fields.get(i)));
+            }
+        }
+        for (Obj obj : objs) {
+            for (JField field : fields) {
+                ptrs.add(manager.getInstanceField(obj, field));
+            }
+            ptrs.add(manager.getArrayIndex(obj));
+        }
+        for (JField field : fields) {
+            ptrs.add(manager.getStaticField(field));
+        }
+        // each (object, field), array and static field has its own pointer
+        int expected = objs.size() * fields.size() + objs.size() + fields.size();
+        Assert.assertEquals(expected, ptrs.size());
+        Assert.assertEquals(expected, manager.getNumberOfPointers());
+        for (Obj obj : objs) {
+            for (JField field : fields) {
+                InstanceField ptr = manager.getInstanceField(obj, field);
+                Assert.assertSame(ptr, manager.getInstanceField(obj, field));
+                Assert.assertSame(obj, ptr.getBase());
+                Assert.assertSame(field, ptr.getField());
+                Assert.assertSame(ptr, manager.getPointer(ptr.getIndex()));
+            }
+            ArrayIndex ptr = manager.getArrayIndex(obj);
+            Assert.assertSame(ptr, manager.getArrayIndex(obj));
+            Assert.assertSame(obj, ptr.getArray());
+            Assert.assertSame(ptr, manager.getPointer(ptr.getIndex()));
+        }
+        for (JField field : fields) {
+            StaticField ptr = manager.getStaticField(field);
+            Assert.assertSame(ptr, manager.getStaticField(field));
+            Assert.assertSame(field, ptr.getField());
+            Assert.assertSame(ptr, manager.getPointer(ptr.getIndex()));
+        }
+        // equal objects are the same objects
+        Assert.assertSame(manager.getArrayIndex(objs.get(0)),
+                manager.getArrayIndex(new MockObj("test", 0, NullType.NULL)));
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.ci;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.World;
+import pascal.taie.analysis.Tests;
+import pascal.taie.ir.exp.Var;
+
+public class VarEquivalenceTest {
+
+    @Test
+    public void testMergeEquivalentVars() {
+        // with merged variables, the points-to set of each variable must
+        // be the same as the one computed without merging
+        Tests.testCIPTA("cipta", "Equivalence", "merge-equivalent-vars:true");
+        PointerFlowGraph pfg = getPointerFlowGraph();
+        // copies
+        assertEquivalent(pfg, "a", "b", "o", "temp$0");
+        // loads of the same field from equivalent bases
+        assertEquivalent(pfg, "e", "g");
+        // casts to the same type of the same variable
+        assertEquivalent(pfg, "c", "d");
+        // loads from the same array
+        assertEquivalent(pfg, "j", "k");
+        assertNotEquivalent(pfg, "a", "h");
+        assertNotEquivalent(pfg, "e", "i");
+        assertNotEquivalent(pfg, "a", "c");
+        assertNotEquivalent(pfg, "i", "j");
+    }
+
+    @Test
+    public void testNotMergeEquivalentVars() {
+        Tests.testCIPTA("cipta", "Equivalence");
+        PointerFlowGraph pfg = getPointerFlowGraph();
+        assertNotEquivalent(pfg, "a", "b");
+        Assert.assertEquals(1, pfg.getVarPtr(getVar("a")).getVars().size());
+    }
+
+    private static PointerFlowGraph getPointerFlowGraph() {
+        CIPTAResult result = World.get().getResult(CIPTA.ID);
+        return result.getPointerFlowGraph();
+    }
+
+    private static void assertEquivalent(PointerFlowGraph pfg, String... names) {
+        VarPtr rep = pfg.getVarPtr(getVar(names[0]));
+        for (String name : names) {
+            Var var = getVar(name);
+            Assert.assertSame(name, rep, pfg.getVarPtr(var));
+            Assert.assertTrue(name, rep.getVars().contains(var));
+        }
+    }
+
+    private static void assertNotEquivalent(PointerFlowGraph pfg,
+                                            String name1, String name2) {
+        Assert.assertNotSame(pfg.getVarPtr(getVar(name1)),
+                pfg.getVarPtr(getVar(name2)));
+    }
+
+    private static Var getVar(String name) {
+        return World.get().getMainMethod().getIR().getVars()
+                .stream()
+                .filter(v -> v.getName().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.ci;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.analysis.pta.core.heap.MockObj;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.exp.Var;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class WorkListTest {
+
+    private final Pointer a = newPointer("a", 0);
+
+    private final Pointer b = newPointer("b", 1);
+
+    private final Pointer c = newPointer("c", 2);
+
+    private final Obj o1 = new MockObj("test", 1, null);
+
+    private final Obj o2 = new MockObj("test", 2, null);
+
+    @Test
+    public void testMergeEntries() {
+        WorkList workList = new WorkList(WorkList.Order.FIFO, p -> 0);
+        PointsToSet pts = new PointsToSet(o1);
+        workList.addEntry(a, pts);
+        workList.addEntry(b, new PointsToSet(o2));
+        workList.addEntry(a, new PointsToSet(o2));
+        WorkList.Entry entry = workList.pollEntry();
+        Assert.assertSame(a, entry.pointer());
+        Assert.assertEquals(Set.of(o1, o2), entry.pointsToSet().getObjects());
+        // the given set may be referenced elsewhere, thus it is not changed
+        Assert.assertEquals(Set.of(o1), pts.getObjects());
+        entry = workList.pollEntry();
+        Assert.assertSame(b, entry.pointer());
+        Assert.assertEquals(Set.of(o2), entry.pointsToSet().getObjects());
+        Assert.assertTrue(workList.isEmpty());
+        Assert.assertNull(workList.pollEntry());
+    }
+
+    @Test
+    public void testFIFO() {
+        WorkList workList = new WorkList(WorkList.Order.of(null), p -> 0);
+        add(workList, c, a, b, a);
+        Assert.assertEquals(List.of(c, a, b), pollAll(workList));
+    }
+
+    @Test
+    public void testLRF() {
+        WorkList workList = new WorkList(WorkList.Order.of("lrf"), p -> 0);
+        add(workList, a, b);
+        Assert.assertEquals(List.of(a, b), pollAll(workList));
+        // c has never been fired, and a was fired before b
+        add(workList, b, a, c);
+        Assert.assertEquals(List.of(c, a, b), pollAll(workList));
+    }
+
+    @Test
+    public void testTOPO() {
+        Map<Pointer, Integer> ranks = Map.of(a, 2, b, 0, c, 1);
+        WorkList workList = new WorkList(WorkList.Order.of("topo"), ranks::get);
+        add(workList, a, b, c);
+        Assert.assertEquals(List.of(b, c, a), pollAll(workList));
+        // pointers of the same rank are retrieved in FIFO order
+        workList = new WorkList(WorkList.Order.TOPO, p -> 0);
+        add(workList, c, a, b);
+        Assert.assertEquals(List.of(c, a, b), pollAll(workList));
+    }
+
+    private void add(WorkList workList, Pointer... pointers) {
+        for (Pointer pointer : pointers) {
+            workList.addEntry(pointer, new PointsToSet(o1));
+        }
+    }
+
+    private static List<Pointer> pollAll(WorkList workList) {
+        List<Pointer> pointers = new ArrayList<>();
+        while (!workList.isEmpty()) {
+            pointers.add(workList.pollEntry().pointer());
+        }
+        return pointers;
+    }
+
+    private static Pointer newPointer(String name, int index) {
+        Var var = new Var(null, name, null, index);
+        return new VarPtr(var, List.of(var), index);
+    }
+}
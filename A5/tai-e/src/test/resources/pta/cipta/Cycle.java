@@ -0,0 +1,39 @@
+class Cycle {
+
+    public static void main(String[] args) {
+        A a = new A();
+        A b = new A();
+        A c = new B();
+        for (int i = 0; i < 10; ++i) {
+            A t = a;
+            a = b;
+            for (int j = 0; j < 10; ++j) {
+                // inner cycle: b -> u -> c -> b
+                A u = b;
+                b = c;
+                c = u;
+            }
+            // outer cycle: a -> t -> c -> b -> a
+            c = t;
+        }
+        A d = c.next();
+        d.f = b;
+        Object o = a.f;
+    }
+}
+
+class A {
+
+    A f;
+
+    A next() {
+        return new A();
+    }
+}
+
+class B extends A {
+
+    A next() {
+        return this;
+    }
+}
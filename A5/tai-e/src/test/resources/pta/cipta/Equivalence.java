@@ -0,0 +1,32 @@
+class Equivalence {
+
+    public static void main(String[] args) {
+        A a = new A();
+        A b = a;
+        a.f = new B();
+        // e and g are loads from equivalent bases
+        B e = a.f;
+        B g = b.f;
+        // c and d are casts of the same variable
+        Object o = b;
+        A c = (A) o;
+        A d = (A) o;
+        // h is allocated elsewhere, so it is not equivalent to a,
+        // and neither is i to e
+        A h = new A();
+        h.f = new B();
+        B i = h.f;
+        B[] arr = new B[1];
+        arr[0] = i;
+        // j and k are loads from the same array
+        B j = arr[0];
+        B k = arr[0];
+    }
+}
+
+class A {
+    B f;
+}
+
+class B {
+}
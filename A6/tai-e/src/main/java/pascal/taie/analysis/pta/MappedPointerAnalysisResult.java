@@ -0,0 +1,740 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta;
+
+import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.CallKind;
+import pascal.taie.analysis.graph.callgraph.DefaultCallGraph;
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.core.cs.element.InstanceField;
+import pascal.taie.analysis.pta.core.cs.element.StaticField;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.core.heap.MergedObj;
+import pascal.taie.analysis.pta.core.heap.MockObj;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.ir.exp.ClassLiteral;
+import pascal.taie.ir.exp.StringLiteral;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.AbstractResultHolder;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+/**
+ * Pointer analysis result stored in a binary columnar file, which serves
+ * queries directly from the memory-mapped file. A result written by
+ * {@link #write(PointerAnalysisResult, Path)} can thus be shared across
+ * processes without solving or parsing it again.
+ * <p>
+ * The file keeps the context-insensitive projection of a result, i.e.,
+ * the points-to sets of variables, static fields and instance fields,
+ * and the call graph. It consists of a header which gives the position
+ * of each section, followed by the sections, each of which is an array
+ * of ints, except the string bytes:
+ * <ul>
+ *     <li>string table: offsets of the strings in the UTF-8 string bytes.</li>
+ *     <li>method and field tables: string ids of the signatures,
+ *     sorted by signature. The position in a table is the id.</li>
+ *     <li>variable table: (method, index) of each variable, sorted.</li>
+ *     <li>object table: (kind, ...) of each object, i.e., (NEW, method,
+ *     statement index), (STRING, value), (CLASS, type name), or (MOCK,
+ *     description, type name, container method, allocation) for other
+ *     objects such as taint objects. The allocation of a mock object is
+ *     (method, statement index) if it is a statement, otherwise (-1,
+ *     string of the allocation). A merged object is stored as one of the
+ *     objects it represents.</li>
+ *     <li>points-to relations in CSR form: the objects pointed to by the
+ *     i-th variable (static field, instance field) are the i-th slice of
+ *     the targets, delimited by the offsets. Static fields are keyed by
+ *     field ids, and instance fields by sorted (object, field) pairs.</li>
+ *     <li>call graph: entry and reachable methods, and call edges
+ *     (kind, caller, statement index, callee) sorted by call site.</li>
+ * </ul>
+ * Elements are looked up by binary search in the sorted tables, and
+ * are resolved against the current {@link World} on demand. Context-sensitive
+ * elements are not stored, thus this class only supports the queries of
+ * {@link CIPointerAnalysisResult}.
+ */
+public class MappedPointerAnalysisResult extends AbstractResultHolder
+        implements CIPointerAnalysisResult {
+
+    private static final int MAGIC = 0x54414952;
+
+    private static final int VERSION = 2;
+
+    // sections
+    private static final int STRING_OFFSETS = 0;
+
+    private static final int STRING_BYTES = 1;
+
+    private static final int METHODS = 2;
+
+    private static final int FIELDS = 3;
+
+    private static final int VARS = 4;
+
+    private static final int OBJS = 5;
+
+    private static final int VAR_PTS_OFFSETS = 6;
+
+    private static final int VAR_PTS = 7;
+
+    private static final int STATIC_FIELDS = 8;
+
+    private static final int STATIC_FIELD_PTS_OFFSETS = 9;
+
+    private static final int STATIC_FIELD_PTS = 10;
+
+    private static final int INSTANCE_FIELDS = 11;
+
+    private static final int INSTANCE_FIELD_PTS_OFFSETS = 12;
+
+    private static final int INSTANCE_FIELD_PTS = 13;
+
+    private static final int ENTRY_METHODS = 14;
+
+    private static final int REACHABLE_METHODS = 15;
+
+    private static final int CALL_EDGES = 16;
+
+    private static final int N_SECTIONS = 17;
+
+    /**
+     * Magic, version, number of sections, and (offset, length)
+     * of each section.
+     */
+    private static final int HEADER_SIZE = 12 + 16 * N_SECTIONS;
+
+    // kinds of objects
+    private static final int NEW_OBJ = 0;
+
+    private static final int STRING_OBJ = 1;
+
+    private static final int CLASS_OBJ = 2;
+
+    private static final int MOCK_OBJ = 3;
+
+    /**
+     * Number of ints of each object in the object table.
+     */
+    private static final int OBJ_WIDTH = 6;
+
+    private final HeapModel heapModel;
+
+    private final ByteBuffer stringBytes;
+
+    /**
+     * Int sections, null for {@link #STRING_BYTES}.
+     */
+    private final IntBuffer[] sections;
+
+    private final Map<JMethod, Integer> methodIds = Maps.newConcurrentMap();
+
+    private final Map<JField, Integer> fieldIds = Maps.newConcurrentMap();
+
+    private final JMethod[] methods;
+
+    private final Obj[] objs;
+
+    private final Var[] vars;
+
+    private CallGraph<Invoke, JMethod> callGraph;
+
+    private MappedPointerAnalysisResult(HeapModel heapModel,
+                                        ByteBuffer stringBytes,
+                                        IntBuffer[] sections) {
+        this.heapModel = heapModel;
+        this.stringBytes = stringBytes;
+        this.sections = sections;
+        methods = new JMethod[sections[METHODS].limit()];
+        objs = new Obj[sections[OBJS].limit() / OBJ_WIDTH];
+        vars = new Var[sections[VARS].limit() / 2];
+    }
+
+    /**
+     * Writes the context-insensitive projection of result to file.
+     */
+    public static void write(PointerAnalysisResult result, Path file) {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            new Writer(result).write(temp);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new AnalysisException(
+                    "Failed to write pointer analysis result to " + file, e);
+        }
+    }
+
+    /**
+     * Maps a file written by {@link #write(PointerAnalysisResult, Path)}.
+     *
+     * @param heapModel the heap model to resolve objects, which should be
+     *                  the same kind as the one of the analysis
+     */
+    public static MappedPointerAnalysisResult open(Path file, HeapModel heapModel) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION
+                    || header.getInt() != N_SECTIONS) {
+                throw new AnalysisException(file + " is not a pointer analysis" +
+                        " result of this version");
+            }
+            ByteBuffer stringBytes = null;
+            IntBuffer[] sections = new IntBuffer[N_SECTIONS];
+            for (int i = 0; i < N_SECTIONS; ++i) {
+                long offset = header.getLong();
+                long length = header.getLong();
+                ByteBuffer section = channel.map(
+                        FileChannel.MapMode.READ_ONLY, offset, length);
+                if (i == STRING_BYTES) {
+                    stringBytes = section;
+                } else {
+                    sections[i] = section.asIntBuffer();
+                }
+            }
+            return new MappedPointerAnalysisResult(heapModel, stringBytes, sections);
+        } catch (IOException e) {
+            throw new AnalysisException(
+                    "Failed to read pointer analysis result from " + file, e);
+        }
+    }
+
+    @Override
+    public Collection<Var> getVars() {
+        return new AbstractList<>() {
+            @Override
+            public Var get(int index) {
+                return getVar(index);
+            }
+
+            @Override
+            public int size() {
+                return vars.length;
+            }
+        };
+    }
+
+    @Override
+    public Collection<Obj> getObjects() {
+        return new AbstractList<>() {
+            @Override
+            public Obj get(int index) {
+                return getObj(index);
+            }
+
+            @Override
+            public int size() {
+                return objs.length;
+            }
+        };
+    }
+
+    @Override
+    public Set<Obj> getPointsToSet(Var var) {
+        int method = getMethodId(var.getMethod());
+        int i = method < 0 ? -1 :
+                searchPair(sections[VARS], method, var.getIndex());
+        Set<Obj> result = Sets.newHybridSet();
+        if (i >= 0) {
+            forEachTarget(VAR_PTS_OFFSETS, VAR_PTS, i, o -> result.add(getObj(o)));
+        }
+        return result;
+    }
+
+    @Override
+    public Set<Obj> getPointsToSet(Var base, JField field) {
+        int method = getMethodId(base.getMethod());
+        int f = getFieldId(field);
+        int i = method < 0 || f < 0 ? -1 :
+                searchPair(sections[VARS], method, base.getIndex());
+        Set<Obj> result = Sets.newHybridSet();
+        if (i >= 0) {
+            forEachTarget(VAR_PTS_OFFSETS, VAR_PTS, i, o -> {
+                int j = searchPair(sections[INSTANCE_FIELDS], o, f);
+                if (j >= 0) {
+                    forEachTarget(INSTANCE_FIELD_PTS_OFFSETS, INSTANCE_FIELD_PTS,
+                            j, p -> result.add(getObj(p)));
+                }
+            });
+        }
+        return result;
+    }
+
+    @Override
+    public Set<Obj> getPointsToSet(JField field) {
+        int f = getFieldId(field);
+        int i = f < 0 ? -1 :
+                searchInt(sections[STATIC_FIELDS], f);
+        Set<Obj> result = Sets.newHybridSet();
+        if (i >= 0) {
+            forEachTarget(STATIC_FIELD_PTS_OFFSETS, STATIC_FIELD_PTS,
+                    i, o -> result.add(getObj(o)));
+        }
+        return result;
+    }
+
+    /**
+     * Builds the call graph from the file on the first call.
+     */
+    @Override
+    public synchronized CallGraph<Invoke, JMethod> getCallGraph() {
+        if (callGraph == null) {
+            DefaultCallGraph cg = new DefaultCallGraph();
+            IntBuffer entries = sections[ENTRY_METHODS];
+            for (int i = 0; i < entries.limit(); ++i) {
+                cg.addEntryMethod(getMethod(entries.get(i)));
+            }
+            IntBuffer reachable = sections[REACHABLE_METHODS];
+            for (int i = 0; i < reachable.limit(); ++i) {
+                cg.addReachableMethod(getMethod(reachable.get(i)));
+            }
+            CallKind[] kinds = CallKind.values();
+            IntBuffer edges = sections[CALL_EDGES];
+            for (int i = 0; i < edges.limit(); i += 4) {
+                Invoke invoke = (Invoke) getMethod(edges.get(i + 1))
+                        .getIR().getStmt(edges.get(i + 2));
+                cg.addEdge(new Edge<>(kinds[edges.get(i)], invoke,
+                        getMethod(edges.get(i + 3))));
+            }
+            callGraph = cg;
+        }
+        return callGraph;
+    }
+
+    private String getString(int id) {
+        IntBuffer offsets = sections[STRING_OFFSETS];
+        int start = offsets.get(id);
+        byte[] bytes = new byte[offsets.get(id + 1) - start];
+        stringBytes.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return position of signature in the sorted table, or -1 if absent.
+     */
+    private int searchSignature(int section, String signature) {
+        IntBuffer table = sections[section];
+        int low = 0, high = table.limit() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = getString(table.get(mid)).compareTo(signature);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return position of (first, second) in the sorted pairs, or -1 if absent.
+     */
+    private static int searchPair(IntBuffer pairs, int first, int second) {
+        int low = 0, high = pairs.limit() / 2 - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = Integer.compare(pairs.get(2 * mid), first);
+            if (cmp == 0) {
+                cmp = Integer.compare(pairs.get(2 * mid + 1), second);
+            }
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return position of key in the sorted ints, or -1 if absent.
+     */
+    private static int searchInt(IntBuffer ints, int key) {
+        int low = 0, high = ints.limit() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = Integer.compare(ints.get(mid), key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private void forEachTarget(int offsetsSection, int targetsSection, int i,
+                               IntConsumer action) {
+        IntBuffer offsets = sections[offsetsSection];
+        IntBuffer targets = sections[targetsSection];
+        for (int j = offsets.get(i); j < offsets.get(i + 1); ++j) {
+            action.accept(targets.get(j));
+        }
+    }
+
+    private int getMethodId(JMethod method) {
+        return methodIds.computeIfAbsent(method,
+                m -> searchSignature(METHODS, m.getSignature()));
+    }
+
+    private int getFieldId(JField field) {
+        return fieldIds.computeIfAbsent(field,
+                f -> searchSignature(FIELDS, f.getSignature()));
+    }
+
+    private JMethod getMethod(int id) {
+        if (methods[id] == null) {
+            String signature = getString(sections[METHODS].get(id));
+            JMethod method = World.get().getClassHierarchy().getMethod(signature);
+            if (method == null) {
+                throw new AnalysisException("Method is not found: " + signature);
+            }
+            methods[id] = method;
+        }
+        return methods[id];
+    }
+
+    private Var getVar(int id) {
+        if (vars[id] == null) {
+            IntBuffer table = sections[VARS];
+            vars[id] = getMethod(table.get(2 * id))
+                    .getIR().getVar(table.get(2 * id + 1));
+        }
+        return vars[id];
+    }
+
+    private Obj getObj(int id) {
+        if (objs[id] == null) {
+            IntBuffer table = sections[OBJS];
+            int base = OBJ_WIDTH * id;
+            int kind = table.get(base);
+            int a = table.get(base + 1);
+            objs[id] = switch (kind) {
+                case NEW_OBJ -> heapModel.getObj((New) getMethod(a)
+                        .getIR().getStmt(table.get(base + 2)));
+                case STRING_OBJ -> heapModel.getConstantObj(
+                        StringLiteral.get(getString(a)));
+                case CLASS_OBJ -> heapModel.getConstantObj(
+                        ClassLiteral.get(getType(a)));
+                case MOCK_OBJ -> getMockObj(table, base);
+                default -> throw new AnalysisException("Unknown object kind: " + kind);
+            };
+        }
+        return objs[id];
+    }
+
+    private MockObj getMockObj(IntBuffer table, int base) {
+        String desc = getString(table.get(base + 1));
+        Type type = getType(table.get(base + 2));
+        int container = table.get(base + 3);
+        int allocMethod = table.get(base + 4);
+        int allocIndex = table.get(base + 5);
+        Object alloc = allocMethod >= 0 ?
+                getMethod(allocMethod).getIR().getStmt(allocIndex) :
+                getString(allocIndex);
+        return container >= 0 ?
+                new MockObj(desc, alloc, type, getMethod(container)) :
+                new MockObj(desc, alloc, type);
+    }
+
+    private Type getType(int name) {
+        return World.get().getTypeSystem().getType(getString(name));
+    }
+
+    /**
+     * Encodes a result into sections.
+     */
+    private static class Writer {
+
+        private final Map<String, Integer> strings = new LinkedHashMap<>();
+
+        private final int[][] sections = new int[N_SECTIONS][];
+
+        private Map<JMethod, Integer> methodIds;
+
+        private Writer(PointerAnalysisResult result) {
+            CallGraph<Invoke, JMethod> callGraph = result.getCallGraph();
+            Set<JMethod> methods = Sets.newSet();
+            result.getVars().forEach(v -> methods.add(v.getMethod()));
+            callGraph.reachableMethods().forEach(methods::add);
+            callGraph.entryMethods().forEach(methods::add);
+            for (Obj obj : result.getObjects()) {
+                Obj o = unmerge(obj);
+                if (o.getAllocation() instanceof New stmt) {
+                    methods.add(stmt.getContainer());
+                } else if (o.getAllocation() instanceof Invoke invoke) {
+                    methods.add(invoke.getContainer());
+                }
+                o.getContainerMethod().ifPresent(methods::add);
+            }
+            methodIds = index(methods, JMethod::getSignature, METHODS);
+            Set<JField> fields = Sets.newSet();
+            result.getStaticFields().forEach(f -> fields.add(f.getField()));
+            result.getInstanceFields().forEach(f -> fields.add(f.getField()));
+            Map<JField, Integer> fieldIds = index(fields, JField::getSignature, FIELDS);
+            // objects, sorted by their encoding
+            List<Obj> objList = new ArrayList<>();
+            Map<Obj, int[]> objRows = Maps.newMap();
+            for (Obj obj : result.getObjects()) {
+                objList.add(obj);
+                objRows.put(obj, encode(obj));
+            }
+            objList.sort((o1, o2) -> Arrays.compare(objRows.get(o1), objRows.get(o2)));
+            Map<Obj, Integer> objIds = Maps.newMap();
+            int[] objTable = new int[objList.size() * OBJ_WIDTH];
+            for (int i = 0; i < objList.size(); ++i) {
+                objIds.put(objList.get(i), i);
+                System.arraycopy(objRows.get(objList.get(i)), 0,
+                        objTable, OBJ_WIDTH * i, OBJ_WIDTH);
+            }
+            sections[OBJS] = objTable;
+            // variables
+            List<Var> varList = new ArrayList<>(result.getVars());
+            varList.sort(Comparator.comparingInt((Var v) -> methodIds.get(v.getMethod()))
+                    .thenComparingInt(Var::getIndex));
+            int[] varTable = new int[varList.size() * 2];
+            List<BitSet> varPts = new ArrayList<>();
+            for (int i = 0; i < varList.size(); ++i) {
+                Var var = varList.get(i);
+                varTable[2 * i] = methodIds.get(var.getMethod());
+                varTable[2 * i + 1] = var.getIndex();
+                BitSet pts = new BitSet();
+                result.getPointsToSet(var).forEach(o -> pts.set(objIds.get(o)));
+                varPts.add(pts);
+            }
+            sections[VARS] = varTable;
+            encodeCSR(varPts, VAR_PTS_OFFSETS, VAR_PTS);
+            // static fields
+            TreeMap<Integer, BitSet> staticFieldPts = new TreeMap<>();
+            for (StaticField sf : result.getStaticFields()) {
+                addObjects(staticFieldPts.computeIfAbsent(
+                        fieldIds.get(sf.getField()), f -> new BitSet()),
+                        sf.getPointsToSet(), objIds);
+            }
+            sections[STATIC_FIELDS] = staticFieldPts.keySet().stream()
+                    .mapToInt(Integer::intValue).toArray();
+            encodeCSR(staticFieldPts.values(), STATIC_FIELD_PTS_OFFSETS, STATIC_FIELD_PTS);
+            // instance fields, keyed by (object, field)
+            TreeMap<Long, BitSet> instanceFieldPts = new TreeMap<>();
+            for (InstanceField ifield : result.getInstanceFields()) {
+                long key = ((long) objIds.get(ifield.getBase().getObject()) << 32)
+                        | fieldIds.get(ifield.getField());
+                addObjects(instanceFieldPts.computeIfAbsent(key, k -> new BitSet()),
+                        ifield.getPointsToSet(), objIds);
+            }
+            int[] instanceFields = new int[instanceFieldPts.size() * 2];
+            int i = 0;
+            for (long key : instanceFieldPts.keySet()) {
+                instanceFields[i++] = (int) (key >>> 32);
+                instanceFields[i++] = (int) key;
+            }
+            sections[INSTANCE_FIELDS] = instanceFields;
+            encodeCSR(instanceFieldPts.values(), INSTANCE_FIELD_PTS_OFFSETS, INSTANCE_FIELD_PTS);
+            // call graph
+            sections[ENTRY_METHODS] = callGraph.entryMethods()
+                    .mapToInt(methodIds::get).sorted().toArray();
+            sections[REACHABLE_METHODS] = callGraph.reachableMethods()
+                    .mapToInt(methodIds::get).sorted().toArray();
+            List<int[]> edges = new ArrayList<>();
+            callGraph.edges().forEach(e -> edges.add(new int[]{
+                    e.getKind().ordinal(),
+                    methodIds.get(e.getCallSite().getContainer()),
+                    e.getCallSite().getIndex(),
+                    methodIds.get(e.getCallee()) }));
+            edges.sort((e1, e2) -> Arrays.compare(e1, 1, 4, e2, 1, 4));
+            sections[CALL_EDGES] = edges.stream()
+                    .flatMapToInt(Arrays::stream).toArray();
+            // strings
+            int[] offsets = new int[strings.size() + 1];
+            i = 0;
+            int offset = 0;
+            for (String s : strings.keySet()) {
+                offsets[i++] = offset;
+                offset += s.getBytes(StandardCharsets.UTF_8).length;
+            }
+            offsets[i] = offset;
+            sections[STRING_OFFSETS] = offsets;
+        }
+
+        private int stringOf(String s) {
+            return strings.computeIfAbsent(s, k -> strings.size());
+        }
+
+        /**
+         * Assigns ids to elements in the order of their signatures,
+         * and stores the signatures to the section.
+         */
+        private <E> Map<E, Integer> index(Collection<E> elements,
+                                          Function<E, String> signature,
+                                          int section) {
+            List<E> sorted = elements.stream()
+                    .sorted(Comparator.comparing(signature))
+                    .toList();
+            Map<E, Integer> ids = Maps.newMap(sorted.size());
+            int[] table = new int[sorted.size()];
+            for (int i = 0; i < sorted.size(); ++i) {
+                ids.put(sorted.get(i), i);
+                table[i] = stringOf(signature.apply(sorted.get(i)));
+            }
+            sections[section] = table;
+            return ids;
+        }
+
+        private int[] encode(Obj obj) {
+            Obj o = unmerge(obj);
+            Object alloc = o.getAllocation();
+            if (!(o instanceof MockObj)) {
+                if (alloc instanceof New stmt) {
+                    return new int[]{ NEW_OBJ, methodIds.get(stmt.getContainer()),
+                            stmt.getIndex(), 0, 0, 0 };
+                } else if (alloc instanceof StringLiteral s) {
+                    return new int[]{ STRING_OBJ, stringOf(s.getString()), 0, 0, 0, 0 };
+                } else if (alloc instanceof ClassLiteral c) {
+                    return new int[]{ CLASS_OBJ,
+                            stringOf(c.getTypeValue().getName()), 0, 0, 0, 0 };
+                }
+            }
+            // other objects are stored as mock objects
+            String desc = o instanceof MockObj mock ?
+                    mock.getDescription() : o.getClass().getSimpleName();
+            int container = o.getContainerMethod().map(methodIds::get).orElse(-1);
+            int allocMethod, allocIndex;
+            if (alloc instanceof New stmt) {
+                allocMethod = methodIds.get(stmt.getContainer());
+                allocIndex = stmt.getIndex();
+            } else if (alloc instanceof Invoke invoke) {
+                allocMethod = methodIds.get(invoke.getContainer());
+                allocIndex = invoke.getIndex();
+            } else {
+                allocMethod = -1;
+                allocIndex = stringOf(String.valueOf(alloc));
+            }
+            return new int[]{ MOCK_OBJ, stringOf(desc),
+                    stringOf(o.getType().getName()), container, allocMethod, allocIndex };
+        }
+
+        /**
+         * @return one of the objects represented by obj if it is a merged
+         * object, which is resolved to obj again by the heap model that
+         * merges objects in the same way; otherwise obj itself.
+         */
+        private static Obj unmerge(Obj obj) {
+            if (obj instanceof MergedObj merged) {
+                for (Obj o : merged.getAllocation()) {
+                    return o;
+                }
+            }
+            return obj;
+        }
+
+        private static void addObjects(BitSet objs, PointsToSet pts,
+                                       Map<Obj, Integer> objIds) {
+            pts.objects().forEach(o -> objs.set(objIds.get(o.getObject())));
+        }
+
+        private void encodeCSR(Collection<BitSet> rows,
+                               int offsetsSection, int targetsSection) {
+            int[] offsets = new int[rows.size() + 1];
+            int[] targets = new int[rows.stream().mapToInt(BitSet::cardinality).sum()];
+            int i = 0, n = 0;
+            for (BitSet row : rows) {
+                offsets[i++] = n;
+                for (int o = row.nextSetBit(0); o >= 0; o = row.nextSetBit(o + 1)) {
+                    targets[n++] = o;
+                }
+            }
+            offsets[i] = n;
+            sections[offsetsSection] = offsets;
+            sections[targetsSection] = targets;
+        }
+
+        private void write(Path file) throws IOException {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(file), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(N_SECTIONS);
+                long offset = HEADER_SIZE;
+                for (int i = 0; i < N_SECTIONS; ++i) {
+                    long length = i == STRING_BYTES ?
+                            sections[STRING_OFFSETS][strings.size()] :
+                            4L * sections[i].length;
+                    out.writeLong(offset);
+                    out.writeLong(length);
+                    offset += length;
+                }
+                for (int i = 0; i < N_SECTIONS; ++i) {
+                    if (i == STRING_BYTES) {
+                        for (String s : strings.keySet()) {
+                            out.write(s.getBytes(StandardCharsets.UTF_8));
+                        }
+                    } else {
+                        for (int v : sections[i]) {
+                            out.writeInt(v);
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
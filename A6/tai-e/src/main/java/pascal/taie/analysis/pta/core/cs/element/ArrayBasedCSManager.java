@@ -0,0 +1,272 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.element;
+
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.language.classes.ClassMember;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * Manages context-sensitive elements in flat open-addressing tables.
+ * <p>
+ * Each kind of elements is kept in a table whose slots are parallel
+ * arrays of two keys and a value, probed linearly. Keys are compared by
+ * identity, which holds for IR elements, abstract objects, fields and
+ * CS objects as they are unique, and for contexts as they are interned
+ * {@link TrieContext}s (other contexts are converted to their interned
+ * counterparts). Keys are hashed by the ids of contexts and the indexes
+ * and signatures of program elements. Thus a lookup is a few array accesses
+ * without nested maps, boxing or calls to equals().
+ */
+public class ArrayBasedCSManager implements CSManager {
+
+    private final Table<Var, Context, CSVar> vars = new Table<>();
+
+    private final Table<Obj, Context, CSObj> objs = new Table<>();
+
+    private final Table<Invoke, Context, CSCallSite> callSites = new Table<>();
+
+    private final Table<JMethod, Context, CSMethod> methods = new Table<>();
+
+    private final Table<JField, Object, StaticField> staticFields = new Table<>();
+
+    private final Table<CSObj, JField, InstanceField> instanceFields = new Table<>();
+
+    private final Table<CSObj, Object, ArrayIndex> arrayIndexes = new Table<>();
+
+    /**
+     * Map from each variable to its CS variables.
+     */
+    private final Map<Var, List<CSVar>> csVarsOf = new LinkedHashMap<>();
+
+    @Override
+    public CSVar getCSVar(Context context, Var var) {
+        return vars.computeIfAbsent(var, intern(context), (v, c) -> {
+            CSVar csVar = initializePointsToSet(new CSVar(v, c));
+            csVarsOf.computeIfAbsent(v, unused -> new ArrayList<>()).add(csVar);
+            return csVar;
+        });
+    }
+
+    @Override
+    public CSObj getCSObj(Context heapContext, Obj obj) {
+        return objs.computeIfAbsent(obj, intern(heapContext),
+                (o, c) -> new CSObj(o, c));
+    }
+
+    @Override
+    public CSCallSite getCSCallSite(Context context, Invoke callSite) {
+        return callSites.computeIfAbsent(callSite, intern(context),
+                (cs, c) -> new CSCallSite(cs, c));
+    }
+
+    @Override
+    public CSMethod getCSMethod(Context context, JMethod method) {
+        return methods.computeIfAbsent(method, intern(context),
+                (m, c) -> new CSMethod(m, c));
+    }
+
+    @Override
+    public StaticField getStaticField(JField field) {
+        return staticFields.computeIfAbsent(field, null,
+                (f, unused) -> initializePointsToSet(new StaticField(f)));
+    }
+
+    @Override
+    public InstanceField getInstanceField(CSObj base, JField field) {
+        return instanceFields.computeIfAbsent(base, field,
+                (b, f) -> initializePointsToSet(new InstanceField(b, f)));
+    }
+
+    @Override
+    public ArrayIndex getArrayIndex(CSObj array) {
+        return arrayIndexes.computeIfAbsent(array, null,
+                (a, unused) -> initializePointsToSet(new ArrayIndex(a)));
+    }
+
+    @Override
+    public Collection<Var> getVars() {
+        return Collections.unmodifiableSet(csVarsOf.keySet());
+    }
+
+    @Override
+    public Collection<CSVar> getCSVarsOf(Var var) {
+        List<CSVar> csVars = csVarsOf.get(var);
+        return csVars == null ? List.of() :
+                Collections.unmodifiableList(csVars);
+    }
+
+    @Override
+    public Collection<CSVar> getCSVars() {
+        return vars.getValues();
+    }
+
+    @Override
+    public Collection<CSObj> getObjects() {
+        return objs.getValues();
+    }
+
+    @Override
+    public Collection<StaticField> getStaticFields() {
+        return staticFields.getValues();
+    }
+
+    @Override
+    public Collection<InstanceField> getInstanceFields() {
+        return instanceFields.getValues();
+    }
+
+    @Override
+    public Collection<ArrayIndex> getArrayIndexes() {
+        return arrayIndexes.getValues();
+    }
+
+    private static Context intern(Context context) {
+        return context instanceof TrieContext ? context :
+                TrieContext.truncate(context, context.getLength());
+    }
+
+    private static <P extends Pointer> P initializePointsToSet(P pointer) {
+        pointer.setPointsToSet(PointsToSetFactory.make());
+        return pointer;
+    }
+
+    /**
+     * Open-addressing table from pairs of keys, compared by identity,
+     * to values.
+     */
+    private static class Table<K1, K2, V> {
+
+        private static final int INITIAL_CAPACITY = 64;
+
+        private Object[] keys1 = new Object[INITIAL_CAPACITY];
+
+        private Object[] keys2 = new Object[INITIAL_CAPACITY];
+
+        private Object[] slots = new Object[INITIAL_CAPACITY];
+
+        /**
+         * Values in insertion order.
+         */
+        private final List<V> values = new ArrayList<>();
+
+        @SuppressWarnings("unchecked")
+        private V computeIfAbsent(K1 k1, K2 k2,
+                                  BiFunction<K1, K2, V> mappingFunction) {
+            int mask = slots.length - 1;
+            int i = hash(k1, k2) & mask;
+            Object value;
+            while ((value = slots[i]) != null) {
+                if (keys1[i] == k1 && keys2[i] == k2) {
+                    return (V) value;
+                }
+                i = (i + 1) & mask;
+            }
+            V newValue = mappingFunction.apply(k1, k2);
+            keys1[i] = k1;
+            keys2[i] = k2;
+            slots[i] = newValue;
+            values.add(newValue);
+            if (values.size() * 2 > slots.length) {
+                resize();
+            }
+            return newValue;
+        }
+
+        private Collection<V> getValues() {
+            return Collections.unmodifiableList(values);
+        }
+
+        private void resize() {
+            Object[] oldKeys1 = keys1;
+            Object[] oldKeys2 = keys2;
+            Object[] oldSlots = slots;
+            int capacity = oldSlots.length * 2;
+            keys1 = new Object[capacity];
+            keys2 = new Object[capacity];
+            slots = new Object[capacity];
+            int mask = capacity - 1;
+            for (int j = 0; j < oldSlots.length; ++j) {
+                if (oldSlots[j] != null) {
+                    int i = hash(oldKeys1[j], oldKeys2[j]) & mask;
+                    while (slots[i] != null) {
+                        i = (i + 1) & mask;
+                    }
+                    keys1[i] = oldKeys1[j];
+                    keys2[i] = oldKeys2[j];
+                    slots[i] = oldSlots[j];
+                }
+            }
+        }
+
+        private static int hash(Object k1, Object k2) {
+            int h = hashOf(k1) * 31 + hashOf(k2);
+            return h ^ (h >>> 16);
+        }
+    }
+
+    /**
+     * Computes the hash code of a key from the ids of contexts and the
+     * indexes and signatures of program elements. Unlike identity hash
+     * codes, they are cached in the keys or cheap to compute, and
+     * do not change from run to run. Equal keys are identical, thus
+     * they always get the same hash code.
+     */
+    private static int hashOf(Object key) {
+        if (key == null) {
+            return 0;
+        } else if (key instanceof TrieContext context) {
+            return context.getId();
+        } else if (key instanceof Var var) {
+            return hashOf(var.getMethod()) * 31 + var.getIndex();
+        } else if (key instanceof Invoke invoke) {
+            return hashOf(invoke.getContainer()) * 31 + invoke.getIndex();
+        } else if (key instanceof New newStmt) {
+            return hashOf(newStmt.getContainer()) * 31 + newStmt.getIndex();
+        } else if (key instanceof ClassMember member) {
+            // methods and fields
+            return member.getSignature().hashCode();
+        } else if (key instanceof CSObj csObj) {
+            return hashOf(csObj.getObject()) * 31 + hashOf(csObj.getContext());
+        } else if (key instanceof Obj obj) {
+            return hashOf(obj.getAllocation());
+        } else {
+            return key.hashCode();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.element;
+
+import java.util.Arrays;
+
+/**
+ * Assigns dense integer indexes to context-sensitive objects on demand,
+ * so that points-to sets can represent objects as bits.
+ * This class is thread-safe: indexes are assigned under a lock, and
+ * an object is stored before its index is published, so that the index
+ * read by any thread can be mapped back to the object without locking.
+ */
+public class CSObjIndexer {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private volatile CSObj[] objects = new CSObj[INITIAL_CAPACITY];
+
+    private int size = 0;
+
+    /**
+     * @return the index of given object, assigning a new one if the object
+     * has not been indexed yet.
+     */
+    public int getIndex(CSObj obj) {
+        int index = obj.getIndex();
+        if (index >= 0) {
+            return index;
+        }
+        synchronized (this) {
+            index = obj.getIndex();
+            if (index < 0) {
+                index = size++;
+                CSObj[] objs = objects;
+                if (index == objs.length) {
+                    objs = Arrays.copyOf(objs, objs.length * 2);
+                }
+                objs[index] = obj;
+                objects = objs;
+                obj.setIndex(index);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * @return the object with given index.
+     */
+    public CSObj getObject(int index) {
+        return objects[index];
+    }
+
+    /**
+     * @return the number of indexed objects.
+     */
+    public synchronized int getNumberOfObjects() {
+        return size;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.selector;
+
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Context selector which applies different context sensitivity variants
+ * to different methods, e.g., as selected by Scaler. The contexts of
+ * a callee, and the heap contexts of the objects allocated in a method,
+ * are selected by the selector of the variant of that method.
+ * Methods without a given variant are analyzed context-insensitively.
+ */
+public class GuidedSelector implements ContextSelector {
+
+    private final ContextSelector defaultSelector = new CISelector();
+
+    private final Map<JMethod, String> variants;
+
+    private final Map<JMethod, ContextSelector> selectors = Maps.newMap();
+
+    /**
+     * @param variants     map from methods to the names of their context
+     *                     sensitivity variants, e.g., "2-obj" or "ci".
+     * @param makeSelector creates the selector of a variant.
+     */
+    public GuidedSelector(Map<JMethod, String> variants,
+                          Function<String, ContextSelector> makeSelector) {
+        this.variants = Map.copyOf(variants);
+        Map<String, ContextSelector> variantSelectors = Maps.newMap();
+        variants.forEach((method, variant) -> selectors.put(method,
+                variantSelectors.computeIfAbsent(variant, makeSelector)));
+    }
+
+    /**
+     * @return the selected variants, i.e., map from methods to the names
+     * of their context sensitivity variants.
+     */
+    public Map<JMethod, String> getVariants() {
+        return variants;
+    }
+
+    @Override
+    public Context getEmptyContext() {
+        return defaultSelector.getEmptyContext();
+    }
+
+    @Override
+    public Context selectContext(CSCallSite callSite, JMethod callee) {
+        return getSelector(callee).selectContext(callSite, callee);
+    }
+
+    @Override
+    public Context selectContext(CSCallSite callSite, CSObj recv, JMethod callee) {
+        return getSelector(callee).selectContext(callSite, recv, callee);
+    }
+
+    @Override
+    public Context selectHeapContext(CSMethod method, Obj obj) {
+        return getSelector(method.getMethod()).selectHeapContext(method, obj);
+    }
+
+    private ContextSelector getSelector(JMethod method) {
+        return selectors.getOrDefault(method, defaultSelector);
+    }
+}
@@ -24,17 +24,27 @@ package pascal.taie.analysis.pta.cs;
 
 import pascal.taie.analysis.ProgramAnalysis;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
 import pascal.taie.analysis.pta.core.cs.selector.CISelector;
 import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
+import pascal.taie.analysis.pta.core.cs.selector.GuidedSelector;
 import pascal.taie.analysis.pta.core.heap.AllocationSiteBasedModel;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
 import pascal.taie.analysis.pta.plugin.ResultProcessor;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.analysis.pta.toolkit.scaler.Scaler;
+import pascal.taie.analysis.pta.toolkit.zipper.Zipper;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.config.AnalysisOptions;
 import pascal.taie.config.ConfigException;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
 import pascal.taie.util.Strings;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Context-sensitive pointer analysis.
@@ -50,15 +60,111 @@ public class CSPTA extends ProgramAnalysis {
     @Override
     public PointerAnalysisResult analyze() {
         AnalysisOptions options = getOptions();
-        Solver solver = new Solver(options,
-                new AllocationSiteBasedModel(options),
-                getContextSelector(options.getString("cs")));
-        solver.solve();
-        PointerAnalysisResult result = solver.getResult();
-        ResultProcessor.process(options, result);
+        // releases the contexts of previous analyses. As the contexts are
+        // interned in a global tree, pointer analyses which use them must
+        // not run concurrently or interleave in the same JVM
+        TrieContext.reset();
+        HeapModel heapModel = new AllocationSiteBasedModel(options);
+        ContextSelector selector = getContextSelector(options);
+        PointerAnalysisResult result;
+        try {
+            if ("parallel".equals(options.getString("solver"))) {
+                ParallelSolver solver = new ParallelSolver(options, heapModel, selector);
+                solver.solve();
+                result = solver.getResult();
+            } else {
+                Solver solver = new Solver(options, heapModel, selector);
+                solver.solve();
+                result = solver.getResult();
+            }
+            if (selector instanceof GuidedSelector guided) {
+                result.storeResult(GuidedSelector.class.getName(),
+                        guided.getVariants());
+            }
+            ResultProcessor.process(options, result);
+        } finally {
+            // the points-to set implementation selected by the solver is
+            // global; restores the default one, so that the objects indexed
+            // by this analysis are neither kept alive nor shared with
+            // the analyses running after it
+            PointsToSetFactory.setImplementation(null);
+        }
         return result;
     }
 
+    private static ContextSelector getContextSelector(AnalysisOptions options) {
+        String advanced = options.getString("advanced");
+        if (advanced == null) {
+            return getContextSelector(options.getString("cs"));
+        }
+        return switch (advanced) {
+            case "scaler" -> new GuidedSelector(
+                    selectByScaler(options), CSPTA::getContextSelector);
+            case "zipper" -> new GuidedSelector(
+                    selectByZipper(options), CSPTA::getContextSelector);
+            default -> throw new ConfigException(
+                    "Unknown advanced analysis: " + advanced);
+        };
+    }
+
+    /**
+     * Runs a context-insensitive pre-analysis and lets Scaler select
+     * context sensitivity variant for each method.
+     * The total scalability threshold can be given by option "scaler-tst".
+     */
+    private static Map<JMethod, String> selectByScaler(AnalysisOptions options) {
+        PointerAnalysisResult preResult = preAnalyze(options);
+        Object tst = options.get("scaler-tst");
+        Scaler scaler = tst == null ? new Scaler(preResult) :
+                new Scaler(preResult, ((Number) tst).longValue());
+        return scaler.selectContext();
+    }
+
+    /**
+     * Runs a context-insensitive pre-analysis and lets Zipper select
+     * precision-critical methods, which are analyzed with the
+     * context sensitivity variant given by option "cs";
+     * other methods are analyzed context-insensitively.
+     */
+    private static Map<JMethod, String> selectByZipper(AnalysisOptions options) {
+        String cs = options.getString("cs");
+        Map<JMethod, String> variants = Maps.newMap();
+        new Zipper(preAnalyze(options))
+                .selectPrecisionCriticalMethods()
+                .forEach(method -> variants.put(method, cs));
+        return variants;
+    }
+
+    /**
+     * Options of the main analysis which are not passed to the pre-analysis:
+     * the pre-analysis must neither restore nor overwrite the checkpoints
+     * of the main analysis, and it is not budgeted or logged.
+     */
+    private static final Set<String> MAIN_ONLY_OPTIONS = Set.of(
+            "checkpoint", "checkpoint-interval", "resume",
+            "incremental", "changes",
+            "budget-time", "budget-cs-pointers", "budget-heap",
+            "budget-downgrade-heaviest", "progress-interval");
+
+    private static PointerAnalysisResult preAnalyze(AnalysisOptions options) {
+        AnalysisOptions preOptions = new AnalysisOptions(Map.of()) {
+            @Override
+            public Object get(String key) {
+                return MAIN_ONLY_OPTIONS.contains(key) ? null : options.get(key);
+            }
+
+            @Override
+            public boolean getBooleanOrDefault(String key, boolean defaultValue) {
+                return MAIN_ONLY_OPTIONS.contains(key) ? defaultValue :
+                        options.getBooleanOrDefault(key, defaultValue);
+            }
+        };
+        Solver solver = new Solver(preOptions,
+                new AllocationSiteBasedModel(preOptions), new CISelector());
+        solver.solve();
+        return solver.getResult();
+    }
+
     private static ContextSelector getContextSelector(String cs) {
         if (cs.equals("ci")) {
             return new CISelector();
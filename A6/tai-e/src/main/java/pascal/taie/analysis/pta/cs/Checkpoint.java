@@ -0,0 +1,768 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.CallKind;
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.core.cs.CSCallGraph;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
+import pascal.taie.analysis.pta.core.cs.element.ArrayIndex;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.InstanceField;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.cs.element.StaticField;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
+import pascal.taie.language.type.TypeSystem;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Saves the state of {@link Solver} to a binary file, and restores it.
+ * <p>
+ * The state consists of the CS elements with their points-to sets,
+ * the edges of the pointer flow graph, the call
+ * graph, and the pending work-list entries. Every element is written as
+ * an index into a table: program elements (methods, fields and types)
+ * by their signatures, which are written once; IR elements by indexes
+ * in the IR of their containers; contexts as (parent, element) nodes
+ * of a prefix tree; CS elements by indexes of their parts.
+ * <p>
+ * Supported context elements are call sites, abstract objects and types,
+ * and supported abstract objects are the ones allocated by new statements.
+ */
+class Checkpoint {
+
+    private static final int MAGIC = 0x54414945;
+
+    private static final int VERSION = 2;
+
+    static final int INVOKE_ELEMENT = 0;
+
+    static final int OBJ_ELEMENT = 1;
+
+    static final int TYPE_ELEMENT = 2;
+
+    private Checkpoint() {
+    }
+
+    /**
+     * Saves given solver state to file. The file is replaced atomically,
+     * so that a previous checkpoint survives a failed save.
+     */
+    static void save(Path file, CSManager csManager,
+                     PointerFlowGraph pointerFlowGraph,
+                     CSCallGraph callGraph, WorkList workList) {
+        try {
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            Path body = file.resolveSibling(file.getFileName() + ".body.tmp");
+            try (OutputStream out = new BufferedOutputStream(
+                    Files.newOutputStream(tmp))) {
+                new Writer().write(new DataOutputStream(out), body, csManager,
+                        pointerFlowGraph, callGraph, workList);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | UncheckedIOException e) {
+            throw new AnalysisException("Failed to save checkpoint to " + file, e);
+        }
+    }
+
+    /**
+     * Loads solver state from file into given (empty) data structures.
+     */
+    static void load(Path file, HeapModel heapModel, CSManager csManager,
+                     PointerFlowGraph pointerFlowGraph,
+                     CSCallGraph callGraph, WorkList workList) {
+        read(file).restore(heapModel, csManager, pointerFlowGraph,
+                callGraph, workList, new Mask() {});
+    }
+
+    /**
+     * Reads solver state from file, without resolving its elements.
+     */
+    static State read(Path file) {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file)))) {
+            return new State(in);
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to load checkpoint from " + file, e);
+        }
+    }
+
+    /**
+     * Table which assigns consecutive indexes to elements.
+     */
+    private static class Table<E> {
+
+        private final Map<E, Integer> indexes = Maps.newMap();
+
+        private final List<E> elements = new ArrayList<>();
+
+        private int indexOf(E e) {
+            Integer i = indexes.get(e);
+            if (i == null) {
+                i = elements.size();
+                indexes.put(e, i);
+                elements.add(e);
+            }
+            return i;
+        }
+    }
+
+    private static class Writer {
+
+        private final Table<JMethod> methods = new Table<>();
+
+        private final Table<JField> fields = new Table<>();
+
+        private final Table<Type> types = new Table<>();
+
+        private final Table<Obj> objs = new Table<>();
+
+        /**
+         * Contexts, each is kept as its interned {@link TrieContext}.
+         */
+        private final Table<Context> contexts = new Table<>();
+
+        /**
+         * Encoded (parent, element kind, element indexes...) of each context.
+         */
+        private final List<int[]> contextNodes = new ArrayList<>();
+
+        private final Table<CSObj> csObjs = new Table<>();
+
+        private final Table<Pointer> pointers = new Table<>();
+
+        /**
+         * Writes the tables and then the body. As writing the body fills
+         * the tables, the body is written to bodyFile first, and then
+         * copied to out, so that neither is buffered in memory.
+         */
+        private void write(DataOutputStream out, Path bodyFile,
+                           CSManager csManager,
+                           PointerFlowGraph pointerFlowGraph,
+                           CSCallGraph callGraph, WorkList workList)
+                throws IOException {
+            try {
+                try (DataOutputStream body = new DataOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(bodyFile)))) {
+                    writeBody(body, csManager, pointerFlowGraph, callGraph, workList);
+                }
+                // objects may refer to new methods, thus the method table
+                // is complete only after encoding all objects
+                List<int[]> objEntries = new ArrayList<>();
+                for (Obj obj : objs.elements) {
+                    if (!(obj.getAllocation() instanceof New stmt)) {
+                        throw new AnalysisException("Cannot checkpoint object " + obj);
+                    }
+                    objEntries.add(new int[]{
+                            methods.indexOf(stmt.getContainer()), stmt.getIndex() });
+                }
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                writeStrings(out, methods, JMethod::getSignature);
+                writeStrings(out, fields, JField::getSignature);
+                writeStrings(out, types, Type::getName);
+                writeInts(out, objEntries);
+                writeInts(out, contextNodes);
+                Files.copy(bodyFile, out);
+                out.flush();
+            } finally {
+                Files.deleteIfExists(bodyFile);
+            }
+        }
+
+        private void writeBody(DataOutputStream body, CSManager csManager,
+                               PointerFlowGraph pointerFlowGraph,
+                               CSCallGraph callGraph, WorkList workList)
+                throws IOException {
+            writeElements(body, csManager.getObjects(), obj -> {
+                csObjs.indexOf(obj);
+                return new int[]{ contextOf(obj.getContext()), objs.indexOf(obj.getObject()) };
+            });
+            writeElements(body, csManager.getCSVars(), v -> {
+                pointers.indexOf(v);
+                return new int[]{ contextOf(v.getContext()),
+                        methods.indexOf(v.getVar().getMethod()), v.getVar().getIndex() };
+            });
+            writeElements(body, csManager.getStaticFields(), f -> {
+                pointers.indexOf(f);
+                return new int[]{ fields.indexOf(f.getField()) };
+            });
+            writeElements(body, csManager.getInstanceFields(), f -> {
+                pointers.indexOf(f);
+                return new int[]{ csObjs.indexOf(f.getBase()), fields.indexOf(f.getField()) };
+            });
+            writeElements(body, csManager.getArrayIndexes(), a -> {
+                pointers.indexOf(a);
+                return new int[]{ csObjs.indexOf(a.getArray()) };
+            });
+            for (Pointer pointer : pointers.elements) {
+                writePointsToSet(body, pointer.getPointsToSet());
+            }
+            body.writeInt(pointerFlowGraph.getNumberOfEdges());
+            pointerFlowGraph.forEachEdge((source, target) -> {
+                try {
+                    writeRow(body, new int[]{
+                            pointers.indexOf(source), pointers.indexOf(target) });
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writeElements(body, callGraph.entryMethods().toList(), this::encode);
+            writeElements(body, callGraph.reachableMethods().toList(), this::encode);
+            writeElements(body, callGraph.edges().toList(), e -> {
+                CSCallSite cs = e.getCallSite();
+                Invoke invoke = cs.getCallSite();
+                int[] callee = encode(e.getCallee());
+                return new int[]{ e.getKind().ordinal(), contextOf(cs.getContext()),
+                        methods.indexOf(invoke.getContainer()), invoke.getIndex(),
+                        callee[0], callee[1] };
+            });
+            List<WorkList.Entry> entries = workList.getEntries();
+            body.writeInt(entries.size());
+            for (WorkList.Entry entry : entries) {
+                body.writeInt(pointers.indexOf(entry.pointer()));
+                writePointsToSet(body, entry.pointsToSet());
+            }
+        }
+
+        private int[] encode(CSMethod csMethod) {
+            return new int[]{ contextOf(csMethod.getContext()),
+                    methods.indexOf(csMethod.getMethod()) };
+        }
+
+        /**
+         * @return index of given context, encoding it (and its prefixes)
+         * if it has not been encoded.
+         */
+        private int contextOf(Context context) {
+            Context interned = TrieContext.truncate(context, context.getLength());
+            Integer i = contexts.indexes.get(interned);
+            if (i != null) {
+                return i;
+            }
+            int length = context.getLength();
+            int parent = -1;
+            if (length > 0) {
+                Object[] prefix = new Object[length - 1];
+                for (int j = 0; j < prefix.length; ++j) {
+                    prefix[j] = context.getElementAt(j);
+                }
+                parent = contextOf(TrieContext.make(prefix));
+            }
+            int[] node;
+            if (length == 0) {
+                node = new int[]{ parent };
+            } else {
+                Object element = context.getElementAt(length - 1);
+                if (element instanceof Invoke invoke) {
+                    node = new int[]{ parent, INVOKE_ELEMENT,
+                            methods.indexOf(invoke.getContainer()), invoke.getIndex() };
+                } else if (element instanceof Obj obj) {
+                    node = new int[]{ parent, OBJ_ELEMENT, objs.indexOf(obj) };
+                } else if (element instanceof Type type) {
+                    node = new int[]{ parent, TYPE_ELEMENT, types.indexOf(type) };
+                } else {
+                    throw new AnalysisException(
+                            "Cannot checkpoint context element " + element);
+                }
+            }
+            contextNodes.add(node);
+            return contexts.indexOf(interned);
+        }
+
+        private void writePointsToSet(DataOutputStream out, PointsToSet pts)
+                throws IOException {
+            out.writeInt(pts.size());
+            for (CSObj obj : pts) {
+                out.writeInt(csObjs.indexOf(obj));
+            }
+        }
+
+        private static <E> void writeElements(
+                DataOutputStream out, Collection<E> elements,
+                Function<E, int[]> encoder) throws IOException {
+            out.writeInt(elements.size());
+            for (E e : elements) {
+                writeRow(out, encoder.apply(e));
+            }
+        }
+
+        private static void writeInts(DataOutputStream out, List<int[]> rows)
+                throws IOException {
+            out.writeInt(rows.size());
+            for (int[] row : rows) {
+                writeRow(out, row);
+            }
+        }
+
+        private static void writeRow(DataOutputStream out, int[] row)
+                throws IOException {
+            out.writeByte(row.length);
+            for (int v : row) {
+                out.writeInt(v);
+            }
+        }
+
+        private static <E> void writeStrings(DataOutputStream out, Table<E> table,
+                                             Function<E, String> toString)
+                throws IOException {
+            out.writeInt(table.elements.size());
+            for (E e : table.elements) {
+                out.writeUTF(toString.apply(e));
+            }
+        }
+    }
+
+    /**
+     * Selects the parts of a {@link State} to restore. By default,
+     * everything is restored. Indexes are the ones used by {@link State}.
+     */
+    interface Mask {
+
+        /**
+         * @return true if the pointer is not restored.
+         */
+        default boolean isDroppedPointer(int pointer) {
+            return false;
+        }
+
+        /**
+         * @return true if the pointer is restored with empty points-to set,
+         * and its saved points-to set is added to the work list instead.
+         */
+        default boolean isResetPointer(int pointer) {
+            return false;
+        }
+
+        /**
+         * @return true if the CS object is not restored.
+         */
+        default boolean isDroppedObject(int csObj) {
+            return false;
+        }
+
+        /**
+         * @return true if the CS method is not restored as an entry
+         * or reachable method.
+         */
+        default boolean isDroppedMethod(int context, int method) {
+            return false;
+        }
+
+        /**
+         * @return true if the reachable CS method should be processed again.
+         * Such a method is not restored as reachable.
+         */
+        default boolean isReplayedMethod(int context, int method) {
+            return false;
+        }
+    }
+
+    /**
+     * Solver state read from a checkpoint, whose elements are still indexes
+     * into the tables. Pointers are indexed in the order of CS variables,
+     * static fields, instance fields and array indexes.
+     */
+    static class State {
+
+        final String[] methods;
+
+        final String[] fields;
+
+        final String[] types;
+
+        /**
+         * (method, statement index) of the allocation site of each object.
+         */
+        final int[][] objs;
+
+        /**
+         * (parent) for the empty context, otherwise
+         * (parent, element kind, element indexes...).
+         */
+        final int[][] contexts;
+
+        /**
+         * (context, object) of each CS object.
+         */
+        final int[][] csObjs;
+
+        /**
+         * (context, method, variable index) of each CS variable.
+         */
+        final int[][] csVars;
+
+        /**
+         * (field) of each static field.
+         */
+        final int[][] staticFields;
+
+        /**
+         * (CS object, field) of each instance field.
+         */
+        final int[][] instanceFields;
+
+        /**
+         * (CS object) of each array index.
+         */
+        final int[][] arrayIndexes;
+
+        /**
+         * CS objects pointed to by each pointer.
+         */
+        final int[][] pointsToSets;
+
+        /**
+         * (source, target) of each PFG edge.
+         */
+        final int[][] edges;
+
+        /**
+         * (context, method) of entry and reachable methods.
+         */
+        final int[][] entryMethods;
+
+        final int[][] reachableMethods;
+
+        /**
+         * (kind, context, method, statement index, callee context, callee)
+         * of each call edge.
+         */
+        final int[][] callEdges;
+
+        /**
+         * (pointer, CS objects...) of each pending work-list entry.
+         */
+        final int[][] entries;
+
+        private State(DataInputStream in) throws IOException {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new AnalysisException("Not a checkpoint of this version");
+            }
+            methods = readStrings(in);
+            fields = readStrings(in);
+            types = readStrings(in);
+            objs = readInts(in);
+            contexts = readInts(in);
+            csObjs = readInts(in);
+            csVars = readInts(in);
+            staticFields = readInts(in);
+            instanceFields = readInts(in);
+            arrayIndexes = readInts(in);
+            int nPointers = getNumberOfPointers();
+            pointsToSets = new int[nPointers][];
+            for (int i = 0; i < nPointers; ++i) {
+                pointsToSets[i] = readPointsToSet(in);
+            }
+            edges = readInts(in);
+            entryMethods = readInts(in);
+            reachableMethods = readInts(in);
+            callEdges = readInts(in);
+            entries = new int[in.readInt()][];
+            for (int i = 0; i < entries.length; ++i) {
+                int pointer = in.readInt();
+                int[] pts = readPointsToSet(in);
+                entries[i] = new int[pts.length + 1];
+                entries[i][0] = pointer;
+                System.arraycopy(pts, 0, entries[i], 1, pts.length);
+            }
+        }
+
+        int getNumberOfPointers() {
+            return csVars.length + staticFields.length +
+                    instanceFields.length + arrayIndexes.length;
+        }
+
+        /**
+         * Restores the parts of this state selected by mask into given
+         * (empty) data structures. Elements are resolved against the current
+         * program only when they are restored.
+         *
+         * @return the reachable methods selected by
+         * {@link Mask#isReplayedMethod(int, int)}.
+         */
+        List<CSMethod> restore(HeapModel heapModel, CSManager csManager,
+                               PointerFlowGraph pointerFlowGraph,
+                               CSCallGraph callGraph, WorkList workList,
+                               Mask mask) {
+            Resolver resolver = new Resolver(this, heapModel, csManager);
+            int nPointers = getNumberOfPointers();
+            Pointer[] pointers = new Pointer[nPointers];
+            for (int i = 0; i < nPointers; ++i) {
+                if (!mask.isDroppedPointer(i)) {
+                    pointers[i] = resolver.getPointer(i);
+                }
+            }
+            for (int i = 0; i < nPointers; ++i) {
+                if (pointers[i] != null) {
+                    PointsToSet pts = resolver.getPointsToSet(pointsToSets[i], 0, mask);
+                    if (mask.isResetPointer(i)) {
+                        if (!pts.isEmpty()) {
+                            workList.addEntry(pointers[i], pts);
+                        }
+                    } else {
+                        pointers[i].getPointsToSet().addAll(pts);
+                    }
+                }
+            }
+            for (int[] e : edges) {
+                if (pointers[e[0]] != null && pointers[e[1]] != null) {
+                    pointerFlowGraph.addEdge(pointers[e[0]], pointers[e[1]]);
+                }
+            }
+            for (int[] m : entryMethods) {
+                if (!mask.isDroppedMethod(m[0], m[1])) {
+                    callGraph.addEntryMethod(resolver.getCSMethod(m[0], m[1]));
+                }
+            }
+            List<CSMethod> replayed = new ArrayList<>();
+            for (int[] m : reachableMethods) {
+                if (mask.isReplayedMethod(m[0], m[1])) {
+                    replayed.add(resolver.getCSMethod(m[0], m[1]));
+                } else if (!mask.isDroppedMethod(m[0], m[1])) {
+                    callGraph.addReachableMethod(resolver.getCSMethod(m[0], m[1]));
+                }
+            }
+            CallKind[] kinds = CallKind.values();
+            for (int[] e : callEdges) {
+                if (!mask.isDroppedMethod(e[1], e[2]) &&
+                        !mask.isDroppedMethod(e[4], e[5])) {
+                    CSCallSite csCallSite = csManager.getCSCallSite(
+                            resolver.getContext(e[1]),
+                            (Invoke) resolver.getStmt(e[2], e[3]));
+                    callGraph.addEdge(new Edge<>(kinds[e[0]], csCallSite,
+                            resolver.getCSMethod(e[4], e[5])));
+                }
+            }
+            for (int[] entry : entries) {
+                if (pointers[entry[0]] != null) {
+                    workList.addEntry(pointers[entry[0]],
+                            resolver.getPointsToSet(entry, 1, mask));
+                }
+            }
+            return replayed;
+        }
+
+        private static int[] readPointsToSet(DataInputStream in) throws IOException {
+            int[] pts = new int[in.readInt()];
+            for (int i = 0; i < pts.length; ++i) {
+                pts[i] = in.readInt();
+            }
+            return pts;
+        }
+
+        private static String[] readStrings(DataInputStream in) throws IOException {
+            String[] strings = new String[in.readInt()];
+            for (int i = 0; i < strings.length; ++i) {
+                strings[i] = in.readUTF();
+            }
+            return strings;
+        }
+
+        private static int[][] readInts(DataInputStream in) throws IOException {
+            int[][] rows = new int[in.readInt()][];
+            for (int i = 0; i < rows.length; ++i) {
+                int[] row = new int[in.readUnsignedByte()];
+                for (int j = 0; j < row.length; ++j) {
+                    row[j] = in.readInt();
+                }
+                rows[i] = row;
+            }
+            return rows;
+        }
+    }
+
+    /**
+     * Resolves the elements of a {@link State} against the current program
+     * on demand, and caches them.
+     */
+    private static class Resolver {
+
+        private final State state;
+
+        private final HeapModel heapModel;
+
+        private final CSManager csManager;
+
+        private final JMethod[] methods;
+
+        private final JField[] fields;
+
+        private final Type[] types;
+
+        private final Obj[] objs;
+
+        private final Context[] contexts;
+
+        private final CSObj[] csObjs;
+
+        private Resolver(State state, HeapModel heapModel, CSManager csManager) {
+            this.state = state;
+            this.heapModel = heapModel;
+            this.csManager = csManager;
+            methods = new JMethod[state.methods.length];
+            fields = new JField[state.fields.length];
+            types = new Type[state.types.length];
+            objs = new Obj[state.objs.length];
+            contexts = new Context[state.contexts.length];
+            csObjs = new CSObj[state.csObjs.length];
+        }
+
+        private JMethod getMethod(int i) {
+            if (methods[i] == null) {
+                methods[i] = World.get().getClassHierarchy()
+                        .getMethod(state.methods[i]);
+                if (methods[i] == null) {
+                    throw new AnalysisException(
+                            "Method in checkpoint is not found: " + state.methods[i]);
+                }
+            }
+            return methods[i];
+        }
+
+        private JField getField(int i) {
+            if (fields[i] == null) {
+                fields[i] = World.get().getClassHierarchy()
+                        .getField(state.fields[i]);
+            }
+            return fields[i];
+        }
+
+        private Type getType(int i) {
+            if (types[i] == null) {
+                types[i] = World.get().getTypeSystem().getType(state.types[i]);
+            }
+            return types[i];
+        }
+
+        private Object getStmt(int method, int index) {
+            return getMethod(method).getIR().getStmt(index);
+        }
+
+        private Obj getObj(int i) {
+            if (objs[i] == null) {
+                int[] o = state.objs[i];
+                objs[i] = heapModel.getObj((New) getStmt(o[0], o[1]));
+            }
+            return objs[i];
+        }
+
+        private Context getContext(int i) {
+            if (contexts[i] == null) {
+                int[] c = state.contexts[i];
+                contexts[i] = c[0] < 0 ? TrieContext.make() :
+                        TrieContext.append(getContext(c[0]),
+                                getElement(c), Integer.MAX_VALUE);
+            }
+            return contexts[i];
+        }
+
+        private Object getElement(int[] node) {
+            return switch (node[1]) {
+                case INVOKE_ELEMENT -> getStmt(node[2], node[3]);
+                case OBJ_ELEMENT -> getObj(node[2]);
+                case TYPE_ELEMENT -> getType(node[2]);
+                default -> throw new AnalysisException(
+                        "Unknown context element kind: " + node[1]);
+            };
+        }
+
+        private CSObj getCSObj(int i) {
+            if (csObjs[i] == null) {
+                int[] o = state.csObjs[i];
+                csObjs[i] = csManager.getCSObj(getContext(o[0]), getObj(o[1]));
+            }
+            return csObjs[i];
+        }
+
+        private CSMethod getCSMethod(int context, int method) {
+            return csManager.getCSMethod(getContext(context), getMethod(method));
+        }
+
+        private Pointer getPointer(int i) {
+            if (i < state.csVars.length) {
+                int[] v = state.csVars[i];
+                return csManager.getCSVar(getContext(v[0]),
+                        getMethod(v[1]).getIR().getVar(v[2]));
+            }
+            i -= state.csVars.length;
+            if (i < state.staticFields.length) {
+                return csManager.getStaticField(getField(state.staticFields[i][0]));
+            }
+            i -= state.staticFields.length;
+            if (i < state.instanceFields.length) {
+                int[] f = state.instanceFields[i];
+                return csManager.getInstanceField(getCSObj(f[0]), getField(f[1]));
+            }
+            i -= state.instanceFields.length;
+            return csManager.getArrayIndex(getCSObj(state.arrayIndexes[i][0]));
+        }
+
+        /**
+         * @return points-to set of the CS objects in row from given offset,
+         * excluding the objects dropped by mask.
+         */
+        private PointsToSet getPointsToSet(int[] row, int offset, Mask mask) {
+            PointsToSet pts = PointsToSetFactory.make();
+            for (int i = offset; i < row.length; ++i) {
+                if (!mask.isDroppedObject(row[i])) {
+                    pts.addObject(getCSObj(row[i]));
+                }
+            }
+            return pts;
+        }
+    }
+}
@@ -0,0 +1,584 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import pascal.taie.World;
+import pascal.taie.analysis.pta.core.cs.CSCallGraph;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.proginfo.MethodRef;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.LoadArray;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.StoreArray;
+import pascal.taie.ir.stmt.StoreField;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.classes.Subsignature;
+import pascal.taie.language.type.ClassType;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Incremental pointer analysis, which restores the result of a previous
+ * run (saved by option "checkpoint") after the program has changed.
+ * <p>
+ * For removed and modified methods, the facts which depend on them are
+ * deleted and then re-derived: the affected region, i.e., the CS methods
+ * of changed methods
+ * together with all pointers, objects, PFG edges and call edges which are
+ * (transitively) derived from them, is dropped, and the unaffected methods
+ * which have facts flowing into or out of the region are processed again,
+ * with their saved points-to sets re-added to the work list. Propagation
+ * then rebuilds the region as a fresh run would do, thus the result is
+ * the same as the one of a fresh run.
+ * <p>
+ * An added method becomes reachable from its (modified) callers by monotone
+ * propagation, but it may also override or hide a method, and then change
+ * the callees of unchanged call sites of the same subsignature. For such an
+ * instance call site, its receiver variable is affected if it points to
+ * objects of subtypes of the declaring class of the added method; for such
+ * a static or special call site, its callees are affected and its
+ * container is processed again.
+ * <p>
+ * The region is computed on the indexes of {@link Checkpoint.State},
+ * so that the elements of changed methods are never resolved.
+ */
+class Incremental implements Checkpoint.Mask {
+
+    private final Checkpoint.State state;
+
+    /**
+     * Whether each method in the checkpoint is removed or modified.
+     */
+    private final boolean[] changed;
+
+    /**
+     * Index of each CS variable, by (context, method, variable index).
+     */
+    private final Map<List<Integer>, Integer> csVarIndexes = Maps.newMap();
+
+    /**
+     * CS variables of each CS method.
+     */
+    private final Map<Long, List<Integer>> csVarsOf = Maps.newMap();
+
+    /**
+     * CS objects allocated in each method.
+     */
+    private final Map<Integer, List<Integer>> csObjsIn = Maps.newMap();
+
+    /**
+     * Pointers whose points-to sets contain each CS object.
+     */
+    private final Map<Integer, List<Integer>> holders = Maps.newMap();
+
+    /**
+     * Instance fields and array indexes of each CS object.
+     */
+    private final Map<Integer, List<Integer>> fieldsOf = Maps.newMap();
+
+    /**
+     * Callees of each call site, by (context, method, statement index).
+     */
+    private final Map<List<Integer>, List<Long>> calleesAt = Maps.newMap();
+
+    /**
+     * Callees of each CS method.
+     */
+    private final Map<Long, List<Long>> calleesOf = Maps.newMap();
+
+    /**
+     * Successors of each pointer in the PFG.
+     */
+    private final Map<Integer, List<Integer>> succs = Maps.newMap();
+
+    private final BitSet affectedPointers = new BitSet();
+
+    private final BitSet affectedObjs = new BitSet();
+
+    private final Set<Long> affectedMethods = Sets.newSet();
+
+    private final Set<Long> replayedMethods = Sets.newSet();
+
+    /**
+     * CS methods which have static or special call sites that may
+     * resolve to added methods.
+     */
+    private final Set<Long> redispatchedMethods = Sets.newSet();
+
+    private final BitSet resetPointers = new BitSet();
+
+    private final Deque<Integer> pointerQueue = new ArrayDeque<>();
+
+    private final Deque<Integer> objQueue = new ArrayDeque<>();
+
+    private final Deque<Long> methodQueue = new ArrayDeque<>();
+
+    /**
+     * @param state   the state of the previous run
+     * @param changes the changes of the program since the previous run
+     */
+    Incremental(Checkpoint.State state, Changes changes) {
+        this.state = state;
+        changed = new boolean[state.methods.length];
+        for (int i = 0; i < changed.length; ++i) {
+            changed[i] = changes.changedMethods().contains(state.methods[i]);
+        }
+        buildIndexes();
+        computeRegion(changes.addedMethods());
+    }
+
+    /**
+     * Changes of the program, as method signatures.
+     *
+     * @param changedMethods removed and modified methods
+     * @param addedMethods   added methods
+     */
+    record Changes(Set<String> changedMethods, Set<String> addedMethods) {
+    }
+
+    /**
+     * Reads the changes of the program from given file. Each line
+     * is a method signature prefixed by "+ " (added), "- " (removed)
+     * or "~ " (modified).
+     */
+    static Changes readChanges(Path file) {
+        Set<String> changedMethods = Sets.newSet();
+        Set<String> addedMethods = Sets.newSet();
+        try {
+            for (String line : Files.readAllLines(file)) {
+                line = line.strip();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                String signature = line.substring(1).strip();
+                switch (line.charAt(0)) {
+                    case '+' -> addedMethods.add(signature);
+                    case '-', '~' -> changedMethods.add(signature);
+                    default -> throw new AnalysisException(
+                            "Invalid change in " + file + ": " + line);
+                }
+            }
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to read changes from " + file, e);
+        }
+        return new Changes(changedMethods, addedMethods);
+    }
+
+    /**
+     * Restores the unaffected part of the previous result into given
+     * (empty) data structures.
+     *
+     * @return the CS methods to be processed again.
+     */
+    List<CSMethod> restore(HeapModel heapModel, CSManager csManager,
+                           PointerFlowGraph pointerFlowGraph,
+                           CSCallGraph callGraph, WorkList workList) {
+        return state.restore(heapModel, csManager, pointerFlowGraph,
+                callGraph, workList, this);
+    }
+
+    /**
+     * @return true if any entry method is affected or replayed, then it
+     * has been dropped and needs to be added again.
+     */
+    boolean isEntryAffected() {
+        for (int[] m : state.entryMethods) {
+            if (isDroppedMethod(m[0], m[1])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of dropped pointers, for logging.
+     */
+    int getNumberOfAffectedPointers() {
+        return affectedPointers.cardinality();
+    }
+
+    @Override
+    public boolean isDroppedPointer(int pointer) {
+        return affectedPointers.get(pointer);
+    }
+
+    @Override
+    public boolean isResetPointer(int pointer) {
+        return resetPointers.get(pointer);
+    }
+
+    @Override
+    public boolean isDroppedObject(int csObj) {
+        return affectedObjs.get(csObj);
+    }
+
+    @Override
+    public boolean isDroppedMethod(int context, int method) {
+        long key = key(context, method);
+        return affectedMethods.contains(key) || replayedMethods.contains(key);
+    }
+
+    @Override
+    public boolean isReplayedMethod(int context, int method) {
+        return replayedMethods.contains(key(context, method));
+    }
+
+    private static long key(int context, int method) {
+        return ((long) context << 32) | (method & 0xffffffffL);
+    }
+
+    private void buildIndexes() {
+        for (int i = 0; i < state.csVars.length; ++i) {
+            int[] v = state.csVars[i];
+            csVarIndexes.put(List.of(v[0], v[1], v[2]), i);
+            csVarsOf.computeIfAbsent(key(v[0], v[1]), k -> new ArrayList<>()).add(i);
+        }
+        for (int i = 0; i < state.csObjs.length; ++i) {
+            int method = state.objs[state.csObjs[i][1]][0];
+            csObjsIn.computeIfAbsent(method, k -> new ArrayList<>()).add(i);
+        }
+        for (int p = 0; p < state.pointsToSets.length; ++p) {
+            for (int o : state.pointsToSets[p]) {
+                holders.computeIfAbsent(o, k -> new ArrayList<>()).add(p);
+            }
+        }
+        int base = state.csVars.length + state.staticFields.length;
+        for (int i = 0; i < state.instanceFields.length; ++i) {
+            fieldsOf.computeIfAbsent(state.instanceFields[i][0],
+                    k -> new ArrayList<>()).add(base + i);
+        }
+        base += state.instanceFields.length;
+        for (int i = 0; i < state.arrayIndexes.length; ++i) {
+            fieldsOf.computeIfAbsent(state.arrayIndexes[i][0],
+                    k -> new ArrayList<>()).add(base + i);
+        }
+        for (int[] e : state.callEdges) {
+            long callee = key(e[4], e[5]);
+            calleesAt.computeIfAbsent(List.of(e[1], e[2], e[3]),
+                    k -> new ArrayList<>()).add(callee);
+            calleesOf.computeIfAbsent(key(e[1], e[2]),
+                    k -> new ArrayList<>()).add(callee);
+        }
+        for (int[] e : state.edges) {
+            addSucc(e[0], e[1]);
+        }
+    }
+
+    private void addSucc(int source, int target) {
+        succs.computeIfAbsent(source, k -> new ArrayList<>()).add(target);
+    }
+
+    private void computeRegion(Set<String> addedMethods) {
+        seed();
+        if (!addedMethods.isEmpty()) {
+            seedRedispatched(addedMethods);
+        }
+        propagate();
+        computeReplayedMethods();
+    }
+
+    /**
+     * Affects the elements of changed methods, and the elements which
+     * refer to them via contexts, as they cannot be resolved any more.
+     */
+    private void seed() {
+        boolean[] tainted = new boolean[state.contexts.length];
+        for (int i = 0; i < tainted.length; ++i) {
+            // parents are always encoded before their children
+            int[] c = state.contexts[i];
+            tainted[i] = c[0] >= 0 && (tainted[c[0]] || switch (c[1]) {
+                case Checkpoint.INVOKE_ELEMENT -> changed[c[2]];
+                case Checkpoint.OBJ_ELEMENT -> changed[state.objs[c[2]][0]];
+                default -> false;
+            });
+        }
+        for (int[] m : state.reachableMethods) {
+            if (changed[m[1]] || tainted[m[0]]) {
+                affectMethod(key(m[0], m[1]));
+            }
+        }
+        for (int i = 0; i < state.csVars.length; ++i) {
+            int[] v = state.csVars[i];
+            if (changed[v[1]] || tainted[v[0]]) {
+                affectPointer(i);
+            }
+        }
+        for (int i = 0; i < state.csObjs.length; ++i) {
+            int[] o = state.csObjs[i];
+            if (changed[state.objs[o[1]][0]] || tainted[o[0]]) {
+                affectObj(i);
+            }
+        }
+    }
+
+    /**
+     * Affects the facts of the unchanged call sites whose callees may
+     * be changed by the added methods.
+     */
+    private void seedRedispatched(Set<String> addedMethods) {
+        ClassHierarchy hierarchy = World.get().getClassHierarchy();
+        MultiMap<Subsignature, JClass> addedClasses = Maps.newMultiMap();
+        for (String signature : addedMethods) {
+            JMethod method = hierarchy.getMethod(signature);
+            if (method == null) {
+                throw new AnalysisException("Added method is not found: " + signature);
+            }
+            addedClasses.put(method.getSubsignature(), method.getDeclaringClass());
+        }
+        Map<Integer, JClass> objClasses = Maps.newMap();
+        for (int i = 0; i < state.csVars.length; ++i) {
+            int[] v = state.csVars[i];
+            if (changed[v[1]] || affectedPointers.get(i)) {
+                continue;
+            }
+            Var var = getMethod(v[1]).getIR().getVar(v[2]);
+            for (Invoke invoke : var.getInvokes()) {
+                Set<JClass> classes = addedClasses.get(
+                        invoke.getMethodRef().getSubsignature());
+                if (!classes.isEmpty() && pointsToSubclass(
+                        state.pointsToSets[i], classes, objClasses)) {
+                    affectPointer(i);
+                    break;
+                }
+            }
+        }
+        for (int[] m : state.reachableMethods) {
+            if (changed[m[1]] || affectedMethods.contains(key(m[0], m[1]))) {
+                continue;
+            }
+            for (Stmt stmt : getMethod(m[1]).getIR()) {
+                if (stmt instanceof Invoke invoke &&
+                        (invoke.isStatic() || invoke.isSpecial())) {
+                    MethodRef ref = invoke.getMethodRef();
+                    for (JClass c : addedClasses.get(ref.getSubsignature())) {
+                        if (hierarchy.isSubclass(c, ref.getDeclaringClass())) {
+                            redispatchedMethods.add(key(m[0], m[1]));
+                            calleesAt.getOrDefault(List.of(m[0], m[1], invoke.getIndex()),
+                                    List.of()).forEach(this::affectMethod);
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true if any object in pts, except the ones allocated in
+     * changed methods, is of a subclass of given classes.
+     */
+    private boolean pointsToSubclass(int[] pts, Set<JClass> classes,
+                                     Map<Integer, JClass> objClasses) {
+        ClassHierarchy hierarchy = World.get().getClassHierarchy();
+        for (int csObj : pts) {
+            int obj = state.csObjs[csObj][1];
+            int[] site = state.objs[obj];
+            if (changed[site[0]]) {
+                // the holders of such objects are affected anyway
+                continue;
+            }
+            JClass objClass = objClasses.computeIfAbsent(obj, o -> {
+                New stmt = (New) getMethod(site[0]).getIR().getStmt(site[1]);
+                return stmt.getRValue().getType() instanceof ClassType type ?
+                        type.getJClass() : null;
+            });
+            if (objClass != null) {
+                for (JClass c : classes) {
+                    if (hierarchy.isSubclass(c, objClass)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private JMethod getMethod(int method) {
+        return World.get().getClassHierarchy().getMethod(state.methods[method]);
+    }
+
+    private void propagate() {
+        while (!methodQueue.isEmpty() || !objQueue.isEmpty()
+                || !pointerQueue.isEmpty()) {
+            while (!methodQueue.isEmpty()) {
+                long m = methodQueue.poll();
+                csVarsOf.getOrDefault(m, List.of()).forEach(this::affectPointer);
+                csObjsIn.getOrDefault((int) m, List.of()).forEach(this::affectObj);
+                calleesOf.getOrDefault(m, List.of()).forEach(this::affectMethod);
+            }
+            while (!objQueue.isEmpty()) {
+                int o = objQueue.poll();
+                holders.getOrDefault(o, List.of()).forEach(this::affectPointer);
+                fieldsOf.getOrDefault(o, List.of()).forEach(this::affectPointer);
+            }
+            while (!pointerQueue.isEmpty()) {
+                int p = pointerQueue.poll();
+                succs.getOrDefault(p, List.of()).forEach(this::affectPointer);
+                if (p < state.csVars.length) {
+                    affectUses(p);
+                }
+            }
+        }
+    }
+
+    /**
+     * Affects the facts derived from the points-to set of given CS variable,
+     * i.e., the call edges of its invocations, the variables loaded through
+     * it, and the fields and array indexes stored through it.
+     */
+    private void affectUses(int csVar) {
+        int[] v = state.csVars[csVar];
+        int context = v[0];
+        int method = v[1];
+        if (changed[method]) {
+            // the statements of changed methods are unknown, thus
+            // all fields of the pointed-to objects are affected
+            for (int o : state.pointsToSets[csVar]) {
+                fieldsOf.getOrDefault(o, List.of()).forEach(this::affectPointer);
+            }
+            return;
+        }
+        Var var = getMethod(method).getIR().getVar(v[2]);
+        for (Invoke invoke : var.getInvokes()) {
+            calleesAt.getOrDefault(List.of(context, method, invoke.getIndex()),
+                    List.of()).forEach(this::affectMethod);
+        }
+        for (LoadField load : var.getLoadFields()) {
+            affectVar(context, method, load.getLValue());
+        }
+        for (LoadArray load : var.getLoadArrays()) {
+            affectVar(context, method, load.getLValue());
+        }
+        boolean stores = !var.getStoreFields().isEmpty() ||
+                !var.getStoreArrays().isEmpty();
+        if (stores) {
+            Set<String> storedFields = Sets.newSet();
+            for (StoreField store : var.getStoreFields()) {
+                storedFields.add(store.getFieldRef().resolve().getSignature());
+            }
+            boolean storesArray = !var.getStoreArrays().isEmpty();
+            int arrayBase = state.getNumberOfPointers() - state.arrayIndexes.length;
+            for (int o : state.pointsToSets[csVar]) {
+                for (int f : fieldsOf.getOrDefault(o, List.of())) {
+                    boolean stored = f >= arrayBase ? storesArray :
+                            storedFields.contains(state.fields[state.instanceFields[
+                                    f - state.csVars.length - state.staticFields.length][1]]);
+                    if (stored) {
+                        affectPointer(f);
+                    }
+                }
+            }
+        }
+    }
+
+    private void affectVar(int context, int method, Var var) {
+        Integer i = csVarIndexes.get(List.of(context, method, var.getIndex()));
+        if (i != null) {
+            affectPointer(i);
+        }
+    }
+
+    /**
+     * Collects the unaffected CS methods which have facts flowing into or
+     * out of the affected region, i.e., which have affected variables,
+     * PFG edges into the region, or call edges into the region, and the
+     * ones whose static or special call sites may resolve to added methods.
+     * Their variables are reset.
+     */
+    private void computeReplayedMethods() {
+        replayedMethods.clear();
+        resetPointers.clear();
+        for (int[] m : state.reachableMethods) {
+            long key = key(m[0], m[1]);
+            if (!affectedMethods.contains(key) &&
+                    (isBoundary(key) || redispatchedMethods.contains(key))) {
+                replayedMethods.add(key);
+                for (int v : csVarsOf.getOrDefault(key, List.of())) {
+                    if (!affectedPointers.get(v)) {
+                        resetPointers.set(v);
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean isBoundary(long method) {
+        for (int v : csVarsOf.getOrDefault(method, List.of())) {
+            if (affectedPointers.get(v)) {
+                return true;
+            }
+            for (int s : succs.getOrDefault(v, List.of())) {
+                if (affectedPointers.get(s)) {
+                    return true;
+                }
+            }
+        }
+        for (long callee : calleesOf.getOrDefault(method, List.of())) {
+            if (affectedMethods.contains(callee)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void affectPointer(int pointer) {
+        if (!affectedPointers.get(pointer)) {
+            affectedPointers.set(pointer);
+            resetPointers.clear(pointer);
+            pointerQueue.add(pointer);
+        }
+    }
+
+    private void affectObj(int csObj) {
+        if (!affectedObjs.get(csObj)) {
+            affectedObjs.set(csObj);
+            objQueue.add(csObj);
+        }
+    }
+
+    private void affectMethod(long method) {
+        if (affectedMethods.add(method)) {
+            methodQueue.add(method);
+        }
+    }
+}
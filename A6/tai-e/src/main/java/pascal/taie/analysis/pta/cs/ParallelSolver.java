@@ -0,0 +1,639 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.CallGraphs;
+import pascal.taie.analysis.graph.callgraph.CallKind;
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.PointerAnalysisResultImpl;
+import pascal.taie.analysis.pta.core.cs.CSCallGraph;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.ConcurrentCSManager;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.plugin.PointerAnalysisMetrics;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.ConfigException;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.proginfo.FieldRef;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.LoadArray;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.StmtVisitor;
+import pascal.taie.ir.stmt.StoreArray;
+import pascal.taie.ir.stmt.StoreField;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Multithreaded solver of context-sensitive pointer analysis.
+ * <p>
+ * Each worker thread has a deque of work-list entries. A worker pushes the
+ * entries it produces to the head of its own deque and takes entries from
+ * there, and when its deque is empty, it steals entries from the tails of
+ * the other deques. Points-to sets are concurrent sets, so any worker may
+ * process an entry of any pointer: as adding an object to a set succeeds
+ * only once, the differences computed by concurrent propagations to the same
+ * pointer are disjoint, and each new object is processed exactly once.
+ * <p>
+ * CS elements are managed by {@link ConcurrentCSManager}, and the PFG is
+ * in concurrent mode. Reachable methods and call edges are collected in
+ * concurrent sets, and the call graph is built from them, in a fixed order,
+ * after the fixpoint is reached. The parts of the world which are not
+ * thread-safe, i.e., the creation of abstract objects and IR, and the
+ * dispatch of calls and resolution of fields, are serialized. The fixpoint,
+ * and thus the output, does not depend on the scheduling of workers.
+ * <p>
+ * As in the multithreaded context-insensitive solver, the solver counts the
+ * entries which have been sent but not processed, and the workers stop when
+ * the count drops to zero. A worker which finds no entry to take or steal
+ * parks until an entry is sent, or the workers stop.
+ * <p>
+ * With option "checkpoint", a worker holds a read lock while it takes and
+ * processes an entry, and the main thread periodically takes the write lock
+ * and saves the state, as {@link Solver} does. The state is then consistent:
+ * every entry is either processed or pending in a deque.
+ */
+class ParallelSolver {
+
+    private static final Logger logger = LogManager.getLogger(ParallelSolver.class);
+
+    private final HeapModel heapModel;
+
+    private final ContextSelector contextSelector;
+
+    private final int nThreads;
+
+    private CSManager csManager;
+
+    private PointerFlowGraph pointerFlowGraph;
+
+    private CSCallGraph callGraph;
+
+    /**
+     * Lock for the parts of the world which are not thread-safe, i.e.,
+     * building IR, and resolving method and field references, as the
+     * class hierarchy caches the results of dispatch and resolution
+     * in plain hash maps.
+     */
+    private final Object worldLock = new Object();
+
+    private final ConcurrentMap<JMethod, IR> irs = Maps.newConcurrentMap();
+
+    private final Set<CSMethod> reachableMethods = Sets.newConcurrentSet();
+
+    private final Set<Edge<CSCallSite, CSMethod>> callEdges = Sets.newConcurrentSet();
+
+    private final List<Deque<WorkList.Entry>> deques = new ArrayList<>();
+
+    /**
+     * Deque of the current worker thread, or null for other threads.
+     */
+    private final ThreadLocal<Deque<WorkList.Entry>> localDeque = new ThreadLocal<>();
+
+    /**
+     * Number of entries which have been sent but not processed.
+     */
+    private final AtomicLong pending = new AtomicLong();
+
+    private volatile boolean failed = false;
+
+    /**
+     * Workers which have found no entry to process, and are going to park
+     * (or have parked) until an entry is sent.
+     */
+    private final Queue<Thread> idleWorkers = new ConcurrentLinkedQueue<>();
+
+    private final List<Thread> workers = new CopyOnWriteArrayList<>();
+
+    private final long progressInterval;
+
+    /**
+     * File given by option "checkpoint", or null if checkpointing is disabled.
+     */
+    private final Path checkpointFile;
+
+    private final long checkpointInterval;
+
+    private long nextCheckpoint;
+
+    /**
+     * Lock which excludes checkpointing from processing of entries,
+     * or null if checkpointing is disabled.
+     */
+    private final ReadWriteLock stateLock;
+
+    private PointerAnalysisMetrics metrics;
+
+    private PointerAnalysisResult result;
+
+    /**
+     * Options of the sequential solver which this solver does not support.
+     * This solver always uses concurrent points-to sets and CS manager,
+     * and it has no global work list.
+     */
+    private static final List<String> UNSUPPORTED_OPTIONS = List.of(
+            "cs-manager", "worklist-order",
+            "budget-time", "budget-cs-pointers", "budget-heap",
+            "budget-downgrade-heaviest", "resume",
+            "incremental", "changes");
+
+    ParallelSolver(AnalysisOptions options, HeapModel heapModel,
+                   ContextSelector contextSelector) {
+        for (String key : UNSUPPORTED_OPTIONS) {
+            if (options.get(key) != null) {
+                throw new ConfigException("Option " + key +
+                        " is not supported by the parallel solver");
+            }
+        }
+        String ptsImpl = options.getString("pts-impl");
+        if (ptsImpl != null && !ptsImpl.equals("concurrent")) {
+            throw new ConfigException("The parallel solver requires" +
+                    " concurrent points-to sets, but pts-impl is " + ptsImpl);
+        }
+        this.heapModel = heapModel;
+        this.contextSelector = contextSelector;
+        Object threads = options.get("threads");
+        this.nThreads = threads != null ? (Integer) threads :
+                Runtime.getRuntime().availableProcessors();
+        Object interval = options.get("progress-interval");
+        this.progressInterval = interval != null ?
+                ((Number) interval).longValue() * 1000 : 0;
+        String checkpoint = options.getString("checkpoint");
+        if (checkpoint != null) {
+            Object seconds = options.get("checkpoint-interval");
+            this.checkpointFile = Path.of(checkpoint);
+            this.checkpointInterval = (seconds != null ?
+                    ((Number) seconds).longValue() : 600) * 1000;
+            this.stateLock = new ReentrantReadWriteLock();
+        } else {
+            this.checkpointFile = null;
+            this.checkpointInterval = 0;
+            this.stateLock = null;
+        }
+    }
+
+    void solve() {
+        initialize();
+        analyze();
+        metrics.stopProgressLog();
+        callGraph = buildCallGraph();
+        getResult().storeResult(PointerAnalysisMetrics.class.getName(), metrics);
+        if (checkpointFile != null) {
+            // the final state serves as the previous result of
+            // incremental analysis
+            Checkpoint.save(checkpointFile, csManager, pointerFlowGraph,
+                    callGraph, new WorkList(WorkList.Order.FIFO, null));
+        }
+    }
+
+    private void initialize() {
+        PointsToSetFactory.setImplementation("concurrent");
+        csManager = new ConcurrentCSManager();
+        pointerFlowGraph = new PointerFlowGraph(true);
+        metrics = new PointerAnalysisMetrics(csManager, reachableMethods::size,
+                callEdges::size, () -> (int) pending.get(), true);
+        metrics.startProgressLog(progressInterval);
+        for (int i = 0; i < nThreads; ++i) {
+            deques.add(new ConcurrentLinkedDeque<>());
+        }
+        // process program entry, i.e., main method
+        Context defContext = contextSelector.getEmptyContext();
+        JMethod main = World.get().getMainMethod();
+        addReachable(csManager.getCSMethod(defContext, main));
+    }
+
+    /**
+     * Runs the workers until the fixpoint is reached.
+     */
+    private void analyze() {
+        logger.info("Solving with {} threads", nThreads);
+        ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < nThreads; ++i) {
+                int id = i;
+                futures.add(executor.submit(() -> work(id)));
+            }
+            nextCheckpoint = System.currentTimeMillis() + checkpointInterval;
+            for (Future<?> future : futures) {
+                await(future);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AnalysisException("Pointer analysis is interrupted", e);
+        } catch (ExecutionException e) {
+            throw new AnalysisException("Pointer analysis failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Waits for the worker of given future to stop, and saves checkpoints
+     * meanwhile if checkpointing is enabled.
+     */
+    private void await(Future<?> future)
+            throws InterruptedException, ExecutionException {
+        while (checkpointFile != null) {
+            long delay = nextCheckpoint - System.currentTimeMillis();
+            try {
+                future.get(Math.max(delay, 0), TimeUnit.MILLISECONDS);
+                return;
+            } catch (TimeoutException e) {
+                saveCheckpoint();
+            }
+        }
+        future.get();
+    }
+
+    /**
+     * Saves the state to the checkpoint file while no entry is being processed.
+     */
+    private void saveCheckpoint() {
+        Lock lock = stateLock.writeLock();
+        lock.lock();
+        try {
+            WorkList workList = new WorkList(WorkList.Order.FIFO, null);
+            deques.forEach(deque -> deque.forEach(entry ->
+                    workList.addEntry(entry.pointer(), entry.pointsToSet())));
+            Checkpoint.save(checkpointFile, csManager, pointerFlowGraph,
+                    buildCallGraph(), workList);
+        } finally {
+            lock.unlock();
+        }
+        logger.info("Saved checkpoint to {}", checkpointFile);
+        nextCheckpoint = System.currentTimeMillis() + checkpointInterval;
+    }
+
+    private void work(int id) {
+        Deque<WorkList.Entry> deque = deques.get(id);
+        localDeque.set(deque);
+        Thread thread = Thread.currentThread();
+        workers.add(thread);
+        try {
+            while (pending.get() > 0 && !failed && !thread.isInterrupted()) {
+                metrics.logProgressIfDue();
+                lockState();
+                WorkList.Entry entry = take(id);
+                if (entry == null) {
+                    unlockState();
+                    // announce idleness before checking the deques again,
+                    // so that an entry sent meanwhile either is taken here
+                    // or unparks this worker
+                    idleWorkers.add(thread);
+                    lockState();
+                    entry = take(id);
+                    if (entry == null) {
+                        unlockState();
+                        if (pending.get() > 0 && !failed) {
+                            LockSupport.park(this);
+                        }
+                        idleWorkers.remove(thread);
+                        continue;
+                    }
+                    idleWorkers.remove(thread);
+                }
+                metrics.addProcessedEntry();
+                try {
+                    propagate(entry.pointer(), entry.pointsToSet());
+                } finally {
+                    unlockState();
+                }
+                if (pending.decrementAndGet() == 0) {
+                    unparkAll();
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            failed = true;
+            unparkAll();
+            throw e;
+        }
+    }
+
+    /**
+     * Prevents checkpointing until {@link #unlockState()}, so that an entry
+     * can be taken and processed. This is a no-op if checkpointing is disabled.
+     */
+    private void lockState() {
+        if (stateLock != null) {
+            stateLock.readLock().lock();
+        }
+    }
+
+    private void unlockState() {
+        if (stateLock != null) {
+            stateLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Takes an entry from the head of the deque of worker id,
+     * or steals one if the deque is empty.
+     */
+    private WorkList.Entry take(int id) {
+        WorkList.Entry entry = deques.get(id).pollFirst();
+        return entry != null ? entry : steal(id);
+    }
+
+    private void unparkAll() {
+        workers.forEach(LockSupport::unpark);
+    }
+
+    /**
+     * Takes an entry from the tail of the deque of another worker.
+     */
+    private WorkList.Entry steal(int thief) {
+        for (int i = 1; i < nThreads; ++i) {
+            WorkList.Entry entry = deques.get((thief + i) % nThreads).pollLast();
+            if (entry != null) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private void send(Pointer pointer, PointsToSet pointsToSet) {
+        pending.incrementAndGet();
+        Deque<WorkList.Entry> deque = localDeque.get();
+        if (deque == null) { // sent before the workers start
+            deque = deques.get(0);
+        }
+        deque.addFirst(new WorkList.Entry(pointer, pointsToSet));
+        Thread idle = idleWorkers.poll();
+        if (idle != null) {
+            LockSupport.unpark(idle);
+        }
+    }
+
+    /**
+     * Propagates pointsToSet to pt(pointer) and its PFG successors,
+     * and processes the field accesses, array accesses and calls on
+     * the new objects.
+     */
+    private void propagate(Pointer pointer, PointsToSet pointsToSet) {
+        PointsToSet delta = pointer.getPointsToSet().addAllDiff(pointsToSet);
+        if (delta.isEmpty()) {
+            return;
+        }
+        metrics.addPointsTo(pointer, delta.size());
+        for (Pointer succ : pointerFlowGraph.getSuccsOf(pointer)) {
+            send(succ, delta);
+        }
+        if (pointer instanceof CSVar csVar) {
+            Var var = csVar.getVar();
+            Context context = csVar.getContext();
+            for (CSObj obj : delta) {
+                for (StoreField store : var.getStoreFields()) {
+                    addPFGEdge(csManager.getCSVar(context, store.getRValue()),
+                            csManager.getInstanceField(obj, resolveField(store.getFieldRef())));
+                }
+                for (LoadField load : var.getLoadFields()) {
+                    addPFGEdge(csManager.getInstanceField(obj, resolveField(load.getFieldRef())),
+                            csManager.getCSVar(context, load.getLValue()));
+                }
+                for (StoreArray store : var.getStoreArrays()) {
+                    addPFGEdge(csManager.getCSVar(context, store.getRValue()),
+                            csManager.getArrayIndex(obj));
+                }
+                for (LoadArray load : var.getLoadArrays()) {
+                    addPFGEdge(csManager.getArrayIndex(obj),
+                            csManager.getCSVar(context, load.getLValue()));
+                }
+                processCall(csVar, obj);
+            }
+        }
+    }
+
+    private void processCall(CSVar recv, CSObj recvObj) {
+        Context context = recv.getContext();
+        for (Invoke invoke : recv.getVar().getInvokes()) {
+            JMethod callee = resolveCallee(recvObj.getObject().getType(), invoke);
+            if (callee == null || callee.isAbstract()) {
+                continue;
+            }
+            CSCallSite csCallSite = csManager.getCSCallSite(context, invoke);
+            Context calleeContext = contextSelector.selectContext(
+                    csCallSite, recvObj, callee);
+            CSMethod csCallee = csManager.getCSMethod(calleeContext, callee);
+            send(csManager.getCSVar(calleeContext, getIR(callee).getThis()),
+                    PointsToSetFactory.make(recvObj));
+            processCallEdge(new Edge<>(
+                    CallGraphs.getCallKind(invoke), csCallSite, csCallee));
+        }
+    }
+
+    private void processCallEdge(Edge<CSCallSite, CSMethod> edge) {
+        if (callEdges.add(edge)) {
+            CSMethod csCallee = edge.getCallee();
+            JMethod callee = csCallee.getMethod();
+            addReachable(csCallee);
+            Context callerContext = edge.getCallSite().getContext();
+            Context calleeContext = csCallee.getContext();
+            Invoke invoke = edge.getCallSite().getCallSite();
+            IR ir = getIR(callee);
+            List<Var> args = invoke.getInvokeExp().getArgs();
+            for (int i = 0; i < args.size(); ++i) {
+                addPFGEdge(csManager.getCSVar(callerContext, args.get(i)),
+                        csManager.getCSVar(calleeContext, ir.getParam(i)));
+            }
+            Var lhs = invoke.getLValue();
+            if (lhs != null) {
+                CSVar csLHS = csManager.getCSVar(callerContext, lhs);
+                for (Var ret : ir.getReturnVars()) {
+                    addPFGEdge(csManager.getCSVar(calleeContext, ret), csLHS);
+                }
+            }
+        }
+    }
+
+    private void addReachable(CSMethod csMethod) {
+        if (reachableMethods.add(csMethod)) {
+            StmtProcessor stmtProcessor = new StmtProcessor(csMethod);
+            getIR(csMethod.getMethod()).forEach(stmt -> stmt.accept(stmtProcessor));
+        }
+    }
+
+    private void addPFGEdge(Pointer source, Pointer target) {
+        if (pointerFlowGraph.addEdge(source, target)) {
+            // other workers may be adding objects to source meanwhile,
+            // they reach target via either this entry or the other workers
+            PointsToSet pts = source.getPointsToSet();
+            if (!pts.isEmpty()) {
+                send(target, pts);
+            }
+        }
+    }
+
+    private class StmtProcessor implements StmtVisitor<Void> {
+
+        private final CSMethod csMethod;
+
+        private final Context context;
+
+        private StmtProcessor(CSMethod csMethod) {
+            this.csMethod = csMethod;
+            this.context = csMethod.getContext();
+        }
+
+        @Override
+        public Void visit(New stmt) {
+            Obj obj;
+            synchronized (heapModel) {
+                obj = heapModel.getObj(stmt);
+            }
+            Context heapContext = contextSelector.selectHeapContext(csMethod, obj);
+            send(csManager.getCSVar(context, stmt.getLValue()),
+                    PointsToSetFactory.make(csManager.getCSObj(heapContext, obj)));
+            return null;
+        }
+
+        @Override
+        public Void visit(Copy stmt) {
+            addPFGEdge(csManager.getCSVar(context, stmt.getRValue()),
+                    csManager.getCSVar(context, stmt.getLValue()));
+            return null;
+        }
+
+        @Override
+        public Void visit(LoadField stmt) {
+            if (stmt.isStatic()) {
+                addPFGEdge(csManager.getStaticField(resolveField(stmt.getFieldRef())),
+                        csManager.getCSVar(context, stmt.getLValue()));
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(StoreField stmt) {
+            if (stmt.isStatic()) {
+                addPFGEdge(csManager.getCSVar(context, stmt.getRValue()),
+                        csManager.getStaticField(resolveField(stmt.getFieldRef())));
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(Invoke stmt) {
+            if (stmt.isStatic()) {
+                JMethod callee = resolveCallee(null, stmt);
+                if (callee == null) { // unresolvable, e.g., missing class
+                    return null;
+                }
+                CSCallSite csCallSite = csManager.getCSCallSite(context, stmt);
+                Context calleeContext = contextSelector.selectContext(csCallSite, callee);
+                processCallEdge(new Edge<>(CallKind.STATIC, csCallSite,
+                        csManager.getCSMethod(calleeContext, callee)));
+            }
+            return null;
+        }
+    }
+
+    private IR getIR(JMethod method) {
+        return irs.computeIfAbsent(method, m -> {
+            synchronized (worldLock) {
+                return m.getIR();
+            }
+        });
+    }
+
+    private JMethod resolveCallee(Type type, Invoke callSite) {
+        synchronized (worldLock) {
+            return CallGraphs.resolveCallee(type, callSite);
+        }
+    }
+
+    private JField resolveField(FieldRef fieldRef) {
+        synchronized (worldLock) {
+            return fieldRef.resolve();
+        }
+    }
+
+    /**
+     * Builds the call graph from the collected methods and edges,
+     * in the order of their string representations.
+     */
+    private CSCallGraph buildCallGraph() {
+        CSCallGraph callGraph = new CSCallGraph(csManager);
+        JMethod main = World.get().getMainMethod();
+        callGraph.addEntryMethod(csManager.getCSMethod(
+                contextSelector.getEmptyContext(), main));
+        reachableMethods.stream()
+                .sorted(Comparator.comparing(CSMethod::toString))
+                .forEach(callGraph::addReachableMethod);
+        callEdges.stream()
+                .sorted(Comparator.comparing(Edge::toString))
+                .forEach(callGraph::addEdge);
+        return callGraph;
+    }
+
+    PointerAnalysisResult getResult() {
+        if (result == null) {
+            result = new PointerAnalysisResultImpl(csManager, callGraph);
+        }
+        return result;
+    }
+}
@@ -23,10 +23,21 @@
 package pascal.taie.analysis.pta.cs;
 
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.util.collection.MapSetMultiMap;
 import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Pair;
+import pascal.taie.util.collection.Sets;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 
 /**
  * Represents pointer flow graph in context-sensitive pointer analysis.
@@ -36,7 +47,38 @@ class PointerFlowGraph {
     /**
      * Map from a pointer (node) to its successors in PFG.
      */
-    private final MultiMap<Pointer, Pointer> successors = Maps.newMultiMap();
+    private final MultiMap<Pointer, Pointer> successors;
+
+    /**
+     * Map from a pointer to its rank in (approximate) topological order
+     * of this PFG.
+     */
+    private final Map<Pointer, Integer> ranks = Maps.newMap();
+
+    /**
+     * Number of edges in this PFG.
+     */
+    private final AtomicInteger numberOfEdges = new AtomicInteger();
+
+    /**
+     * Number of edges when ranks were last computed.
+     */
+    private int numberOfRankedEdges = 0;
+
+    PointerFlowGraph() {
+        this(false);
+    }
+
+    /**
+     * @param concurrent whether edges may be added and queried by multiple
+     *                   threads at the same time. Topological ranks
+     *                   are not supported in this mode.
+     */
+    PointerFlowGraph(boolean concurrent) {
+        successors = concurrent ?
+                new MapSetMultiMap<>(Maps.newConcurrentMap(), Sets::newConcurrentSet) :
+                Maps.newMultiMap();
+    }
 
     /**
      * Adds an edge (source -> target) to this PFG.
@@ -45,7 +87,11 @@ class PointerFlowGraph {
      * otherwise false.
      */
     boolean addEdge(Pointer source, Pointer target) {
-        return successors.put(source, target);
+        if (successors.put(source, target)) {
+            numberOfEdges.incrementAndGet();
+            return true;
+        }
+        return false;
     }
 
     /**
@@ -54,4 +100,68 @@ class PointerFlowGraph {
     Set<Pointer> getSuccsOf(Pointer pointer) {
         return successors.get(pointer);
     }
+
+    /**
+     * @return the number of edges in this PFG.
+     */
+    int getNumberOfEdges() {
+        return numberOfEdges.get();
+    }
+
+    /**
+     * Performs the given action for each edge of this PFG.
+     */
+    void forEachEdge(BiConsumer<Pointer, Pointer> action) {
+        successors.forEach(action);
+    }
+
+    /**
+     * @return the rank of given pointer in topological order of this PFG.
+     * Pointers in a cycle are ordered arbitrarily. Ranks are recomputed
+     * only after the number of edges has doubled since last computation;
+     * in between, pointers without a rank are ranked after all others.
+     */
+    int getTopologicalRank(Pointer pointer) {
+        int nEdges = numberOfEdges.get();
+        if (nEdges >= 2 * numberOfRankedEdges && nEdges > 0) {
+            computeRanks();
+        }
+        Integer rank = ranks.get(pointer);
+        if (rank == null) {
+            rank = ranks.size();
+            ranks.put(pointer, rank);
+        }
+        return rank;
+    }
+
+    /**
+     * Ranks pointers by reverse post-order of depth-first search.
+     */
+    private void computeRanks() {
+        Set<Pointer> visited = Sets.newSet();
+        List<Pointer> postOrder = new ArrayList<>();
+        Deque<Pair<Pointer, Iterator<Pointer>>> stack = new ArrayDeque<>();
+        for (Pointer root : successors.keySet()) {
+            if (visited.add(root)) {
+                stack.push(new Pair<>(root, getSuccsOf(root).iterator()));
+                while (!stack.isEmpty()) {
+                    Iterator<Pointer> succs = stack.peek().second();
+                    if (succs.hasNext()) {
+                        Pointer succ = succs.next();
+                        if (visited.add(succ)) {
+                            stack.push(new Pair<>(succ,
+                                    getSuccsOf(succ).iterator()));
+                        }
+                    } else {
+                        postOrder.add(stack.pop().first());
+                    }
+                }
+            }
+        }
+        ranks.clear();
+        for (int i = postOrder.size() - 1; i >= 0; --i) {
+            ranks.put(postOrder.get(i), ranks.size());
+        }
+        numberOfRankedEdges = numberOfEdges.get();
+    }
 }
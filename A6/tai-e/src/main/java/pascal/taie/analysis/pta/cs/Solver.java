@@ -32,6 +32,7 @@ import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.analysis.pta.PointerAnalysisResultImpl;
 import pascal.taie.analysis.pta.core.cs.CSCallGraph;
 import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.element.ArrayBasedCSManager;
 import pascal.taie.analysis.pta.core.cs.element.ArrayIndex;
 import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSManager;
@@ -42,12 +43,15 @@ import pascal.taie.analysis.pta.core.cs.element.InstanceField;
 import pascal.taie.analysis.pta.core.cs.element.MapBasedCSManager;
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
 import pascal.taie.analysis.pta.core.cs.element.StaticField;
+import pascal.taie.analysis.pta.core.cs.selector.BudgetedSelector;
 import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
 import pascal.taie.analysis.pta.core.heap.HeapModel;
 import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.plugin.PointerAnalysisMetrics;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.analysis.pta.pts.PointsToSetFactory;
 import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.ConfigException;
 import pascal.taie.ir.exp.InvokeExp;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.stmt.Copy;
@@ -62,6 +66,9 @@ import pascal.taie.language.classes.JField;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.language.type.Type;
 
+import java.nio.file.Path;
+import java.util.List;
+
 class Solver {
 
     private static final Logger logger = LogManager.getLogger(Solver.class);
@@ -70,7 +77,7 @@ class Solver {
 
     private final HeapModel heapModel;
 
-    private final ContextSelector contextSelector;
+    private ContextSelector contextSelector;
 
     private CSManager csManager;
 
@@ -80,8 +87,16 @@ class Solver {
 
     private WorkList workList;
 
+    private PointerAnalysisMetrics metrics;
+
     private PointerAnalysisResult result;
 
+    private Path checkpointFile;
+
+    private long checkpointInterval;
+
+    private long nextCheckpoint;
+
     Solver(AnalysisOptions options, HeapModel heapModel,
            ContextSelector contextSelector) {
         this.options = options;
@@ -92,13 +107,56 @@ class Solver {
     void solve() {
         initialize();
         analyze();
+        metrics.stopProgressLog();
+        getResult().storeResult(PointerAnalysisMetrics.class.getName(), metrics);
+        if (checkpointFile != null) {
+            // the final state serves as the previous result of
+            // incremental analysis
+            Checkpoint.save(checkpointFile, csManager, pointerFlowGraph,
+                    callGraph, workList);
+        }
+        if (contextSelector instanceof BudgetedSelector budgeted) {
+            budgeted.report();
+            getResult().storeResult(BudgetedSelector.class.getName(),
+                    budgeted.getDowngradedMethods());
+        }
     }
 
     private void initialize() {
-        csManager = new MapBasedCSManager();
+        PointsToSetFactory.setImplementation(options.getString("pts-impl"));
+        csManager = makeCSManager(options.getString("cs-manager"));
         callGraph = new CSCallGraph(csManager);
+        contextSelector = applyBudget(contextSelector);
         pointerFlowGraph = new PointerFlowGraph();
-        workList = new WorkList();
+        workList = new WorkList(
+                WorkList.Order.of(options.getString("worklist-order")),
+                pointerFlowGraph::getTopologicalRank);
+        String resume = options.getString("resume");
+        String previous = options.getString("incremental");
+        // the points-to facts restored from checkpoints are not reported
+        metrics = new PointerAnalysisMetrics(csManager,
+                callGraph::getNumberOfMethods, callGraph::getNumberOfEdges,
+                workList::size, resume == null && previous == null);
+        // option "progress-interval" (in seconds) enables progress log
+        metrics.startProgressLog(getLongOption("progress-interval") * 1000);
+        workList.setPollHook(this::beforePoll);
+        String checkpoint = options.getString("checkpoint");
+        if (checkpoint != null) {
+            long interval = getLongOption("checkpoint-interval");
+            checkpointFile = Path.of(checkpoint);
+            checkpointInterval = (interval > 0 ? interval : 600) * 1000;
+            nextCheckpoint = System.currentTimeMillis() + checkpointInterval;
+        }
+        if (resume != null) {
+            Checkpoint.load(Path.of(resume), heapModel, csManager,
+                    pointerFlowGraph, callGraph, workList);
+            logger.info("Resumed from checkpoint {}", resume);
+            return;
+        }
+        if (previous != null) {
+            initializeIncrementally(Path.of(previous));
+            return;
+        }
         // process program entry, i.e., main method
         Context defContext = contextSelector.getEmptyContext();
         JMethod main = World.get().getMainMethod();
@@ -107,11 +165,114 @@ class Solver {
         addReachable(csMethod);
     }
 
+    /**
+     * Restores the result of a previous run from the checkpoint file,
+     * and processes the methods affected by the changes given by option
+     * "changes" again. See {@link Incremental} for details.
+     */
+    private void initializeIncrementally(Path previous) {
+        String changes = options.getString("changes");
+        if (changes == null) {
+            throw new ConfigException("Incremental analysis requires option \"changes\"");
+        }
+        Incremental incremental = new Incremental(Checkpoint.read(previous),
+                Incremental.readChanges(Path.of(changes)));
+        List<CSMethod> replayed = incremental.restore(heapModel, csManager,
+                pointerFlowGraph, callGraph, workList);
+        logger.info("Incremental analysis: {} pointers affected, {} methods replayed",
+                incremental.getNumberOfAffectedPointers(), replayed.size());
+        if (incremental.isEntryAffected()) {
+            CSMethod csMethod = csManager.getCSMethod(
+                    contextSelector.getEmptyContext(), World.get().getMainMethod());
+            callGraph.addEntryMethod(csMethod);
+            addReachable(csMethod);
+        }
+        replayed.forEach(this::addReachable);
+    }
+
+    /**
+     * Runs before each retrieval of work-list entries, i.e., between
+     * processing of entries, when the state is consistent.
+     */
+    private void beforePoll() {
+        metrics.logProgressIfDue();
+        checkpointIfDue();
+    }
+
+    /**
+     * Saves the solver state to the file given by option "checkpoint",
+     * if "checkpoint-interval" (in seconds, 600 by default) has elapsed
+     * since the last save. The state can be restored by option "resume".
+     */
+    private void checkpointIfDue() {
+        if (checkpointFile != null &&
+                System.currentTimeMillis() >= nextCheckpoint) {
+            Checkpoint.save(checkpointFile, csManager, pointerFlowGraph,
+                    callGraph, workList);
+            logger.info("Saved checkpoint to {}", checkpointFile);
+            nextCheckpoint = System.currentTimeMillis() + checkpointInterval;
+        }
+    }
+
+    /**
+     * @param csManager "map" (default, also used for null) for nested
+     *                  hash maps, or "array" for flat open-addressing tables.
+     */
+    private static CSManager makeCSManager(String csManager) {
+        if (csManager == null) {
+            csManager = "map";
+        }
+        return switch (csManager) {
+            case "map" -> new MapBasedCSManager();
+            case "array" -> new ArrayBasedCSManager();
+            default -> throw new ConfigException(
+                    "Unknown CS manager: " + csManager);
+        };
+    }
+
+    /**
+     * Wraps the selector by {@link BudgetedSelector} if any budget is given
+     * by options "budget-time" (in seconds), "budget-cs-pointers" (counting
+     * CS pointers of all kinds), or "budget-heap" (in MB).
+     * Option "budget-downgrade-heaviest" gives the number of methods
+     * with most contexts to downgrade on exceeding.
+     */
+    private ContextSelector applyBudget(ContextSelector selector) {
+        long time = getLongOption("budget-time");
+        long csPointers = getLongOption("budget-cs-pointers");
+        long heap = getLongOption("budget-heap");
+        if (time <= 0 && csPointers <= 0 && heap <= 0) {
+            return selector;
+        }
+        return new BudgetedSelector(selector, time * 1000, csPointers,
+                heap << 20, (int) getLongOption("budget-downgrade-heaviest"),
+                this::countCSPointers);
+    }
+
+    /**
+     * @return the number of CS pointers of all kinds, i.e., CS variables,
+     * static fields, instance fields and array indexes.
+     */
+    private long countCSPointers() {
+        return (long) csManager.getCSVars().size() +
+                csManager.getStaticFields().size() +
+                csManager.getInstanceFields().size() +
+                csManager.getArrayIndexes().size();
+    }
+
+    private long getLongOption(String key) {
+        Object value = options.get(key);
+        return value == null ? 0 : ((Number) value).longValue();
+    }
+
     /**
      * Processes new reachable context-sensitive method.
      */
     private void addReachable(CSMethod csMethod) {
-        // TODO - finish me
+        if (callGraph.addReachableMethod(csMethod)) {
+            StmtProcessor stmtProcessor = new StmtProcessor(csMethod);
+            csMethod.getMethod().getIR().forEach(stmt -> stmt.accept(stmtProcessor));
+        }
     }
 
     /**
@@ -128,22 +289,101 @@ class Solver {
             this.context = csMethod.getContext();
         }
 
-        // TODO - if you choose to implement addReachable()
-        //  via visitor pattern, then finish me
+        @Override
+        public Void visit(New stmt) {
+            Obj obj = heapModel.getObj(stmt);
+            Context heapContext = contextSelector.selectHeapContext(csMethod, obj);
+            workList.addEntry(csManager.getCSVar(context, stmt.getLValue()),
+                    PointsToSetFactory.make(csManager.getCSObj(heapContext, obj)));
+            return null;
+        }
+
+        @Override
+        public Void visit(Copy stmt) {
+            addPFGEdge(csManager.getCSVar(context, stmt.getRValue()),
+                    csManager.getCSVar(context, stmt.getLValue()));
+            return null;
+        }
+
+        @Override
+        public Void visit(LoadField stmt) {
+            if (stmt.isStatic()) {
+                addPFGEdge(csManager.getStaticField(stmt.getFieldRef().resolve()),
+                        csManager.getCSVar(context, stmt.getLValue()));
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(StoreField stmt) {
+            if (stmt.isStatic()) {
+                addPFGEdge(csManager.getCSVar(context, stmt.getRValue()),
+                        csManager.getStaticField(stmt.getFieldRef().resolve()));
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(Invoke stmt) {
+            if (stmt.isStatic()) {
+                JMethod callee = resolveCallee(null, stmt);
+                if (callee == null) { // unresolvable, e.g., missing class
+                    return null;
+                }
+                CSCallSite csCallSite = csManager.getCSCallSite(context, stmt);
+                Context calleeContext = contextSelector.selectContext(csCallSite, callee);
+                processCallEdge(new Edge<>(CallKind.STATIC, csCallSite,
+                        csManager.getCSMethod(calleeContext, callee)));
+            }
+            return null;
+        }
     }
 
     /**
      * Adds an edge "source -> target" to the PFG.
      */
     private void addPFGEdge(Pointer source, Pointer target) {
-        // TODO - finish me
+        if (pointerFlowGraph.addEdge(source, target)) {
+            PointsToSet pts = source.getPointsToSet();
+            if (!pts.isEmpty()) {
+                workList.addEntry(target, pts);
+            }
+        }
     }
 
     /**
      * Processes work-list entries until the work-list is empty.
      */
     private void analyze() {
-        // TODO - finish me
+        WorkList.Entry entry;
+        while ((entry = workList.pollEntry()) != null) {
+            metrics.addProcessedEntry();
+            Pointer pointer = entry.pointer();
+            PointsToSet delta = propagate(pointer, entry.pointsToSet());
+            if (pointer instanceof CSVar csVar && !delta.isEmpty()) {
+                Var var = csVar.getVar();
+                Context context = csVar.getContext();
+                for (CSObj obj : delta) {
+                    for (StoreField store : var.getStoreFields()) {
+                        addPFGEdge(csManager.getCSVar(context, store.getRValue()),
+                                csManager.getInstanceField(obj, store.getFieldRef().resolve()));
+                    }
+                    for (LoadField load : var.getLoadFields()) {
+                        addPFGEdge(csManager.getInstanceField(obj, load.getFieldRef().resolve()),
+                                csManager.getCSVar(context, load.getLValue()));
+                    }
+                    for (StoreArray store : var.getStoreArrays()) {
+                        addPFGEdge(csManager.getCSVar(context, store.getRValue()),
+                                csManager.getArrayIndex(obj));
+                    }
+                    for (LoadArray load : var.getLoadArrays()) {
+                        addPFGEdge(csManager.getArrayIndex(obj),
+                                csManager.getCSVar(context, load.getLValue()));
+                    }
+                    processCall(csVar, obj);
+                }
+            }
+        }
     }
 
     /**
@@ -151,8 +391,14 @@ class Solver {
      * returns the difference set of pointsToSet and pt(pointer).
      */
     private PointsToSet propagate(Pointer pointer, PointsToSet pointsToSet) {
-        // TODO - finish me
-        return null;
+        PointsToSet delta = pointer.getPointsToSet().addAllDiff(pointsToSet);
+        if (!delta.isEmpty()) {
+            metrics.addPointsTo(pointer, delta.size());
+            for (Pointer succ : pointerFlowGraph.getSuccsOf(pointer)) {
+                workList.addEntry(succ, delta);
+            }
+        }
+        return delta;
     }
 
     /**
@@ -162,7 +408,48 @@ class Solver {
      * @param recvObj set of new discovered objects pointed by the variable.
      */
     private void processCall(CSVar recv, CSObj recvObj) {
-        // TODO - finish me
+        Context context = recv.getContext();
+        for (Invoke invoke : recv.getVar().getInvokes()) {
+            JMethod callee = resolveCallee(recvObj, invoke);
+            if (callee == null || callee.isAbstract()) {
+                continue;
+            }
+            CSCallSite csCallSite = csManager.getCSCallSite(context, invoke);
+            Context calleeContext = contextSelector.selectContext(
+                    csCallSite, recvObj, callee);
+            CSMethod csCallee = csManager.getCSMethod(calleeContext, callee);
+            workList.addEntry(csManager.getCSVar(calleeContext, callee.getIR().getThis()),
+                    PointsToSetFactory.make(recvObj));
+            processCallEdge(new Edge<>(
+                    CallGraphs.getCallKind(invoke), csCallSite, csCallee));
+        }
+    }
+
+    /**
+     * Adds a call edge, and if it is new, makes the callee reachable and
+     * connects the arguments and return values by PFG edges.
+     */
+    private void processCallEdge(Edge<CSCallSite, CSMethod> edge) {
+        if (callGraph.addEdge(edge)) {
+            CSMethod csCallee = edge.getCallee();
+            JMethod callee = csCallee.getMethod();
+            addReachable(csCallee);
+            Context callerContext = edge.getCallSite().getContext();
+            Context calleeContext = csCallee.getContext();
+            Invoke invoke = edge.getCallSite().getCallSite();
+            List<Var> args = invoke.getInvokeExp().getArgs();
+            for (int i = 0; i < args.size(); ++i) {
+                addPFGEdge(csManager.getCSVar(callerContext, args.get(i)),
+                        csManager.getCSVar(calleeContext, callee.getIR().getParam(i)));
+            }
+            Var lhs = invoke.getLValue();
+            if (lhs != null) {
+                CSVar csLHS = csManager.getCSVar(callerContext, lhs);
+                for (Var ret : callee.getIR().getReturnVars()) {
+                    addPFGEdge(csManager.getCSVar(calleeContext, ret), csLHS);
+                }
+            }
+        }
     }
 
     /**
@@ -0,0 +1,347 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin;
+
+import pascal.taie.util.AnalysisException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.BiConsumer;
+
+/**
+ * Sorts (key, value) records of strings by key with bounded memory.
+ * Records are buffered until the buffer limit is reached, then the buffer
+ * is sorted and spilled to a temporary file as a sorted run, and finally
+ * all runs are merged. At most a given number of runs are open at the same
+ * time: if there are more, consecutive runs are merged into longer ones
+ * in several passes. Records with equal keys keep the order in which
+ * they are added.
+ */
+class ExternalSorter implements AutoCloseable {
+
+    /**
+     * Estimated memory of a buffered record besides its characters.
+     */
+    private static final int RECORD_OVERHEAD = 96;
+
+    /**
+     * Size of the stream buffer of each run.
+     */
+    private static final int RUN_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Default maximum number of runs to be merged at a time.
+     */
+    private static final int DEFAULT_MAX_FAN_IN = 64;
+
+    private static final Comparator<Record> COMPARATOR =
+            Comparator.comparing(Record::key);
+
+    private record Record(String key, String value) {
+    }
+
+    /**
+     * Maximum estimated memory (in bytes) of buffered records.
+     */
+    private final long bufferLimit;
+
+    /**
+     * Maximum number of runs (including the in-memory buffer)
+     * to be merged at a time.
+     */
+    private final int maxFanIn;
+
+    private final List<Record> buffer = new ArrayList<>();
+
+    private long bufferSize;
+
+    private final List<Path> runs = new ArrayList<>();
+
+    ExternalSorter(long bufferLimit) {
+        this(bufferLimit, DEFAULT_MAX_FAN_IN);
+    }
+
+    ExternalSorter(long bufferLimit, int maxFanIn) {
+        if (maxFanIn < 2) {
+            throw new IllegalArgumentException(
+                    "Fan-in must be at least 2, but was " + maxFanIn);
+        }
+        this.bufferLimit = bufferLimit;
+        this.maxFanIn = maxFanIn;
+    }
+
+    void add(String key, String value) {
+        buffer.add(new Record(key, value));
+        bufferSize += 2L * (key.length() + value.length()) + RECORD_OVERHEAD;
+        if (bufferSize >= bufferLimit) {
+            spill();
+        }
+    }
+
+    /**
+     * Passes all added records to consumer in the order of their keys.
+     */
+    void forEachSorted(BiConsumer<String, String> consumer) {
+        buffer.sort(COMPARATOR);
+        if (runs.isEmpty()) {
+            buffer.forEach(r -> consumer.accept(r.key(), r.value()));
+            return;
+        }
+        try {
+            // the in-memory buffer is the last run of the final merge
+            while (runs.size() >= maxFanIn) {
+                mergePass();
+            }
+            List<Run> readers = new ArrayList<>();
+            try {
+                for (Path file : runs) {
+                    readers.add(new FileRun(file, readers.size()));
+                }
+                readers.add(new BufferRun(buffer, readers.size()));
+                merge(readers, consumer::accept);
+            } finally {
+                readers.forEach(Run::close);
+            }
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to merge sorted runs", e);
+        }
+    }
+
+    /**
+     * Merges each maxFanIn consecutive runs into one, so that the runs
+     * are still in the order of addition.
+     */
+    private void mergePass() throws IOException {
+        List<Path> inputs = List.copyOf(runs);
+        runs.clear();
+        try {
+            for (int i = 0; i < inputs.size(); i += maxFanIn) {
+                List<Path> group = inputs.subList(i,
+                        Math.min(i + maxFanIn, inputs.size()));
+                if (group.size() == 1) {
+                    runs.add(group.get(0));
+                    continue;
+                }
+                Path file = Files.createTempFile("tai-e-sort", ".run");
+                runs.add(file);
+                try (DataOutputStream out = openRun(file)) {
+                    List<Run> readers = new ArrayList<>();
+                    try {
+                        for (Path input : group) {
+                            readers.add(new FileRun(input, readers.size()));
+                        }
+                        merge(readers, (key, value) -> {
+                            writeString(out, key);
+                            writeString(out, value);
+                        });
+                    } finally {
+                        readers.forEach(Run::close);
+                    }
+                }
+                for (Path input : group) {
+                    Files.delete(input);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // lets close() delete the inputs which have not been merged
+            runs.addAll(inputs);
+            throw e;
+        }
+    }
+
+    /**
+     * Merges sorted runs and passes the records to sink in the order of
+     * their keys. Ties are broken by run order, which is the order of
+     * addition.
+     */
+    private static void merge(List<Run> readers, Sink sink) throws IOException {
+        PriorityQueue<Run> queue = new PriorityQueue<>(
+                Comparator.comparing((Run r) -> r.current.key())
+                        .thenComparingInt(r -> r.order));
+        for (Run run : readers) {
+            if (run.advance()) {
+                queue.add(run);
+            }
+        }
+        while (!queue.isEmpty()) {
+            Run run = queue.poll();
+            sink.accept(run.current.key(), run.current.value());
+            if (run.advance()) {
+                queue.add(run);
+            }
+        }
+    }
+
+    /**
+     * Deletes the temporary files of spilled runs.
+     */
+    @Override
+    public void close() {
+        for (Path file : runs) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) {
+            }
+        }
+        runs.clear();
+        buffer.clear();
+    }
+
+    private void spill() {
+        buffer.sort(COMPARATOR);
+        try {
+            Path file = Files.createTempFile("tai-e-sort", ".run");
+            runs.add(file);
+            try (DataOutputStream out = openRun(file)) {
+                for (Record r : buffer) {
+                    writeString(out, r.key());
+                    writeString(out, r.value());
+                }
+            }
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to spill sorted run", e);
+        }
+        buffer.clear();
+        bufferSize = 0;
+    }
+
+    private static DataOutputStream openRun(Path file) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(file), RUN_BUFFER_SIZE));
+    }
+
+    /**
+     * Writes string as length-prefixed UTF-8, as
+     * {@link DataOutputStream#writeUTF(String)} is limited to 64KB.
+     */
+    private static void writeString(DataOutputStream out, String s)
+            throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Receives merged records.
+     */
+    private interface Sink {
+
+        void accept(String key, String value) throws IOException;
+    }
+
+    /**
+     * Cursor of a sorted run.
+     */
+    private abstract static class Run {
+
+        /**
+         * Position of this run, which is the order of its records' addition.
+         */
+        final int order;
+
+        Record current;
+
+        Run(int order) {
+            this.order = order;
+        }
+
+        /**
+         * Moves to the next record.
+         *
+         * @return false if the run is exhausted.
+         */
+        abstract boolean advance() throws IOException;
+
+        void close() {
+        }
+    }
+
+    private static class BufferRun extends Run {
+
+        private final List<Record> records;
+
+        private int next;
+
+        private BufferRun(List<Record> records, int order) {
+            super(order);
+            this.records = records;
+        }
+
+        @Override
+        boolean advance() {
+            if (next < records.size()) {
+                current = records.get(next++);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private static class FileRun extends Run {
+
+        private final DataInputStream in;
+
+        private FileRun(Path file, int order) throws IOException {
+            super(order);
+            in = new DataInputStream(new BufferedInputStream(
+                    Files.newInputStream(file), RUN_BUFFER_SIZE));
+        }
+
+        @Override
+        boolean advance() throws IOException {
+            String key;
+            try {
+                key = readString(in);
+            } catch (EOFException e) {
+                return false;
+            }
+            current = new Record(key, readString(in));
+            return true;
+        }
+
+        @Override
+        void close() {
+            try {
+                in.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
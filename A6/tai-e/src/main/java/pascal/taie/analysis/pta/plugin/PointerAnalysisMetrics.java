@@ -0,0 +1,230 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.pta.core.cs.element.ArrayIndex;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.InstanceField;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.cs.element.StaticField;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Metrics of pointer analysis, which are maintained by the solver while
+ * solving, so that they can be read at any time without traversing
+ * the result. A solver which maintains the points-to metrics reports
+ * each points-to fact it adds by {@link #addPointsTo(Pointer, int)},
+ * see {@link #isPointsToReported()}. The other metrics are read from
+ * the counters of the solver's data structures.
+ * <p>
+ * The metrics can be logged periodically as the progress of solving,
+ * see {@link #startProgressLog(long)}. The log is written by the solver
+ * thread(s) between processing of work-list entries, when the data
+ * structures are consistent. The counters may be updated concurrently.
+ */
+public class PointerAnalysisMetrics {
+
+    private static final Logger logger = LogManager.getLogger(PointerAnalysisMetrics.class);
+
+    private final CSManager csManager;
+
+    private final IntSupplier reachableMethods;
+
+    private final IntSupplier callEdges;
+
+    private final IntSupplier workListSize;
+
+    private final boolean pointsToReported;
+
+    private final LongAdder varPointsTo = new LongAdder();
+
+    private final LongAdder staticFieldPointsTo = new LongAdder();
+
+    private final LongAdder instanceFieldPointsTo = new LongAdder();
+
+    private final LongAdder arrayPointsTo = new LongAdder();
+
+    private final LongAdder processedEntries = new LongAdder();
+
+    private final long startTime = System.currentTimeMillis();
+
+    /**
+     * Interval (in milliseconds) of progress log.
+     */
+    private long progressInterval;
+
+    /**
+     * Time of the next progress log, or {@link Long#MAX_VALUE}
+     * if progress log is disabled.
+     */
+    private final AtomicLong nextProgressLog = new AtomicLong(Long.MAX_VALUE);
+
+    /**
+     * @param csManager        the manager of the pointers
+     * @param reachableMethods gives the number of reachable CS methods
+     * @param callEdges        gives the number of CS call edges
+     * @param workListSize     gives the number of pending work-list entries
+     * @param pointsToReported whether the solver reports every points-to
+     *                         fact it adds by {@link #addPointsTo(Pointer, int)}
+     */
+    public PointerAnalysisMetrics(CSManager csManager,
+                                  IntSupplier reachableMethods,
+                                  IntSupplier callEdges,
+                                  IntSupplier workListSize,
+                                  boolean pointsToReported) {
+        this.csManager = csManager;
+        this.reachableMethods = reachableMethods;
+        this.callEdges = callEdges;
+        this.workListSize = workListSize;
+        this.pointsToReported = pointsToReported;
+    }
+
+    /**
+     * @return true if the points-to metrics are maintained by the solver,
+     * otherwise they are always zero and should be counted from the result.
+     */
+    public boolean isPointsToReported() {
+        return pointsToReported;
+    }
+
+    /**
+     * Records that n objects are newly added to the points-to set of pointer.
+     */
+    public void addPointsTo(Pointer pointer, int n) {
+        if (pointer instanceof CSVar) {
+            varPointsTo.add(n);
+        } else if (pointer instanceof InstanceField) {
+            instanceFieldPointsTo.add(n);
+        } else if (pointer instanceof ArrayIndex) {
+            arrayPointsTo.add(n);
+        } else if (pointer instanceof StaticField) {
+            staticFieldPointsTo.add(n);
+        }
+    }
+
+    /**
+     * Records that the solver has processed a work-list entry.
+     */
+    public void addProcessedEntry() {
+        processedEntries.increment();
+    }
+
+    /**
+     * @return the number of work-list entries processed in this run. The work
+     * of a previous run, which is restored from a checkpoint, is not counted.
+     */
+    public long getProcessedEntries() {
+        return processedEntries.sum();
+    }
+
+    public long getPointers() {
+        return (long) csManager.getCSVars().size() +
+                csManager.getStaticFields().size() +
+                csManager.getInstanceFields().size() +
+                csManager.getArrayIndexes().size();
+    }
+
+    public long getVarPointsTo() {
+        return varPointsTo.sum();
+    }
+
+    public long getStaticFieldPointsTo() {
+        return staticFieldPointsTo.sum();
+    }
+
+    public long getInstanceFieldPointsTo() {
+        return instanceFieldPointsTo.sum();
+    }
+
+    public long getArrayPointsTo() {
+        return arrayPointsTo.sum();
+    }
+
+    /**
+     * @return the number of all points-to facts.
+     */
+    public long getPointsTo() {
+        return getVarPointsTo() + getStaticFieldPointsTo() +
+                getInstanceFieldPointsTo() + getArrayPointsTo();
+    }
+
+    public int getReachableMethods() {
+        return reachableMethods.getAsInt();
+    }
+
+    public int getCallEdges() {
+        return callEdges.getAsInt();
+    }
+
+    public int getWorkListSize() {
+        return workListSize.getAsInt();
+    }
+
+    /**
+     * Starts logging the metrics every interval milliseconds, until
+     * {@link #stopProgressLog()} is called. The metrics are logged by
+     * {@link #logProgressIfDue()}.
+     */
+    public void startProgressLog(long interval) {
+        if (interval > 0) {
+            progressInterval = interval;
+            nextProgressLog.set(System.currentTimeMillis() + interval);
+        }
+    }
+
+    /**
+     * Logs the metrics if the interval has elapsed since the last log.
+     * The solver calls this between processing of work-list entries;
+     * if several threads call this at the same time, one of them logs.
+     */
+    public void logProgressIfDue() {
+        long next = nextProgressLog.get();
+        long now = System.currentTimeMillis();
+        if (now >= next &&
+                nextProgressLog.compareAndSet(next, now + progressInterval)) {
+            logger.info("{}", this);
+        }
+    }
+
+    public void stopProgressLog() {
+        nextProgressLog.set(Long.MAX_VALUE);
+    }
+
+    @Override
+    public String toString() {
+        String pointsTo = pointsToReported ?
+                String.format(", #points-to: %d", getPointsTo()) : "";
+        return String.format("[%ds] #pointers: %d%s," +
+                        " #reachable methods: %d, #call edges: %d, #work list: %d," +
+                        " #processed entries: %d",
+                (System.currentTimeMillis() - startTime) / 1000,
+                getPointers(), pointsTo, getReachableMethods(),
+                getCallEdges(), getWorkListSize(), getProcessedEntries());
+    }
+}
@@ -23,9 +23,10 @@
 package pascal.taie.analysis.pta.pts;
 
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSObjIndexer;
+import pascal.taie.config.ConfigException;
 import pascal.taie.util.collection.Sets;
 
-import java.util.Set;
 import java.util.function.Supplier;
 
 /**
@@ -33,10 +34,41 @@ import java.util.function.Supplier;
  */
 public class PointsToSetFactory {
 
-    private static final Supplier<Set<CSObj>> setFactory = Sets::newHybridSet;
+    private static final Supplier<PointsToSet> HYBRID_FACTORY =
+            () -> new DelegatePointsToSet(Sets.newHybridSet());
+
+    private static final Supplier<PointsToSet> CONCURRENT_FACTORY =
+            () -> new DelegatePointsToSet(Sets.newConcurrentSet());
+
+    private static Supplier<PointsToSet> factory = HYBRID_FACTORY;
+
+    /**
+     * Selects the implementation of points-to sets made by this factory.
+     * This should be called before each run of pointer analysis,
+     * as bitmap-based sets index the objects of one run.
+     *
+     * @param ptsImpl "hybrid" (default, also used for null) for hash-based
+     *                sets, "concurrent" for thread-safe hash-based sets,
+     *                or "bitmap" for sparse bitmap-based sets.
+     */
+    public static void setImplementation(String ptsImpl) {
+        if (ptsImpl == null) {
+            ptsImpl = "hybrid";
+        }
+        factory = switch (ptsImpl) {
+            case "hybrid" -> HYBRID_FACTORY;
+            case "concurrent" -> CONCURRENT_FACTORY;
+            case "bitmap" -> {
+                CSObjIndexer indexer = new CSObjIndexer();
+                yield () -> new BitmapPointsToSet(indexer);
+            }
+            default -> throw new ConfigException(
+                    "Unknown points-to set implementation: " + ptsImpl);
+        };
+    }
 
     public static PointsToSet make() {
-        return new DelegatePointsToSet(setFactory.get());
+        return factory.get();
     }
 
     /**
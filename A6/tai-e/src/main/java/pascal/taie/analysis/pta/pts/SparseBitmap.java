@@ -0,0 +1,292 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.pts;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Sparse bit set of non-negative integers. Set bits are stored in 64-bit
+ * words, and only non-zero words are kept, ordered by their word index.
+ * Union, difference and intersection work word by word over the two
+ * sorted word lists, so their cost depends on the number of non-zero
+ * words instead of the number of elements.
+ */
+class SparseBitmap {
+
+    private static final int INITIAL_CAPACITY = 2;
+
+    /**
+     * Indexes of the non-zero words, in ascending order.
+     */
+    private int[] keys;
+
+    /**
+     * words[i] holds the bits of word keys[i].
+     */
+    private long[] words;
+
+    /**
+     * Number of non-zero words.
+     */
+    private int length;
+
+    /**
+     * Number of set bits.
+     */
+    private int cardinality;
+
+    SparseBitmap() {
+        this(INITIAL_CAPACITY);
+    }
+
+    private SparseBitmap(int capacity) {
+        keys = new int[capacity];
+        words = new long[capacity];
+    }
+
+    /**
+     * Sets the given bit.
+     *
+     * @return true if the bit was not set before.
+     */
+    boolean set(int bit) {
+        int key = bit >>> 6;
+        long mask = 1L << bit;
+        int i = Arrays.binarySearch(keys, 0, length, key);
+        if (i >= 0) {
+            if ((words[i] & mask) != 0) {
+                return false;
+            }
+            words[i] |= mask;
+        } else {
+            insertWord(-(i + 1), key, mask);
+        }
+        ++cardinality;
+        return true;
+    }
+
+    boolean get(int bit) {
+        int i = Arrays.binarySearch(keys, 0, length, bit >>> 6);
+        return i >= 0 && (words[i] & (1L << bit)) != 0;
+    }
+
+    boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    int cardinality() {
+        return cardinality;
+    }
+
+    /**
+     * Adds all bits of other to this bitmap.
+     *
+     * @return true if this bitmap changed.
+     */
+    boolean or(SparseBitmap other) {
+        return orDiff(other, null);
+    }
+
+    /**
+     * Adds all bits of other to this bitmap, and collects the bits that
+     * were newly added into diff.
+     *
+     * @return true if this bitmap changed.
+     */
+    boolean orDiff(SparseBitmap other, SparseBitmap diff) {
+        if (other.length == 0) {
+            return false;
+        }
+        int[] newKeys = null;
+        long[] newWords = null;
+        int n = 0;
+        int i = 0, j = 0;
+        int oldCardinality = cardinality;
+        while (j < other.length) {
+            int otherKey = other.keys[j];
+            while (i < length && keys[i] < otherKey) {
+                if (newKeys != null) {
+                    newKeys[n] = keys[i];
+                    newWords[n] = words[i];
+                }
+                ++n;
+                ++i;
+            }
+            long added;
+            long merged;
+            if (i < length && keys[i] == otherKey) {
+                added = other.words[j] & ~words[i];
+                merged = words[i] | added;
+                ++i;
+            } else {
+                if (newKeys == null) {
+                    // a new word is needed: switch to merging into
+                    // fresh arrays, copying the words merged so far
+                    int capacity = Math.max(length + other.length - j,
+                            keys.length);
+                    newKeys = Arrays.copyOf(keys, capacity);
+                    newWords = Arrays.copyOf(words, capacity);
+                }
+                added = other.words[j];
+                merged = added;
+            }
+            if (newKeys != null) {
+                newKeys[n] = otherKey;
+                newWords[n] = merged;
+            } else {
+                words[n] = merged;
+            }
+            if (added != 0) {
+                cardinality += Long.bitCount(added);
+                if (diff != null) {
+                    diff.appendWord(otherKey, added);
+                }
+            }
+            ++n;
+            ++j;
+        }
+        if (newKeys != null) {
+            while (i < length) {
+                newKeys[n] = keys[i];
+                newWords[n] = words[i];
+                ++n;
+                ++i;
+            }
+            keys = newKeys;
+            words = newWords;
+            length = n;
+        }
+        return cardinality != oldCardinality;
+    }
+
+    /**
+     * @return a new bitmap holding the bits of this bitmap which are
+     * not in other.
+     */
+    SparseBitmap andNot(SparseBitmap other) {
+        SparseBitmap result = new SparseBitmap(Math.max(length, 1));
+        int j = 0;
+        for (int i = 0; i < length; ++i) {
+            int key = keys[i];
+            while (j < other.length && other.keys[j] < key) {
+                ++j;
+            }
+            long word = words[i];
+            if (j < other.length && other.keys[j] == key) {
+                word &= ~other.words[j];
+            }
+            if (word != 0) {
+                result.appendWord(key, word);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return a new bitmap holding the bits set in both this bitmap
+     * and other.
+     */
+    SparseBitmap and(SparseBitmap other) {
+        SparseBitmap result = new SparseBitmap(
+                Math.max(Math.min(length, other.length), 1));
+        int i = 0, j = 0;
+        while (i < length && j < other.length) {
+            if (keys[i] < other.keys[j]) {
+                ++i;
+            } else if (keys[i] > other.keys[j]) {
+                ++j;
+            } else {
+                long word = words[i] & other.words[j];
+                if (word != 0) {
+                    result.appendWord(keys[i], word);
+                }
+                ++i;
+                ++j;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return an iterator over the set bits, in ascending order.
+     */
+    PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+
+            private int i = 0;
+
+            private long word = length > 0 ? words[0] : 0;
+
+            @Override
+            public boolean hasNext() {
+                while (word == 0) {
+                    if (++i >= length) {
+                        return false;
+                    }
+                    word = words[i];
+                }
+                return true;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int bit = (keys[i] << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                return bit;
+            }
+        };
+    }
+
+    /**
+     * Appends a word whose key is greater than all existing keys.
+     */
+    private void appendWord(int key, long word) {
+        ensureCapacity(length + 1);
+        keys[length] = key;
+        words[length] = word;
+        ++length;
+        cardinality += Long.bitCount(word);
+    }
+
+    private void insertWord(int pos, int key, long word) {
+        ensureCapacity(length + 1);
+        System.arraycopy(keys, pos, keys, pos + 1, length - pos);
+        System.arraycopy(words, pos, words, pos + 1, length - pos);
+        keys[pos] = key;
+        words[pos] = word;
+        ++length;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > keys.length) {
+            int newCapacity = Math.max(capacity, keys.length * 2);
+            keys = Arrays.copyOf(keys, newCapacity);
+            words = Arrays.copyOf(words, newCapacity);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.toolkit.zipper;
+
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.exp.InstanceFieldAccess;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Cast;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.LoadArray;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.StoreArray;
+import pascal.taie.ir.stmt.StoreField;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.ReferenceType;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Object flow graph built from a context-insensitive pointer analysis result.
+ * Its nodes are variables and instance fields (as {@link FieldNode}),
+ * and each edge represents that the objects pointed to by the source
+ * node flow to the target node, via assignments, casts, field/array
+ * accesses, parameter passing, or return.
+ * Edges from receiver variables to this variables are excluded, as such
+ * flows are captured by the methods invoked on each object.
+ */
+class ObjectFlowGraph {
+
+    private final MultiMap<Object, Object> succs = Maps.newMultiMap();
+
+    private final MultiMap<Object, Object> preds = Maps.newMultiMap();
+
+    ObjectFlowGraph(PointerAnalysisResult pta) {
+        CallGraph<Invoke, JMethod> callGraph = pta.getCallGraph();
+        callGraph.reachableMethods().forEach(method -> {
+            for (Stmt stmt : method.getIR()) {
+                if (stmt instanceof Copy copy) {
+                    addEdge(copy.getRValue(), copy.getLValue());
+                } else if (stmt instanceof Cast cast) {
+                    addEdge(cast.getRValue().getValue(), cast.getLValue());
+                } else if (stmt instanceof LoadField load) {
+                    if (load.getFieldAccess() instanceof InstanceFieldAccess access) {
+                        JField field = load.getFieldRef().resolve();
+                        pta.getPointsToSet(access.getBase()).forEach(base ->
+                                addEdge(new FieldNode(base, field), load.getLValue()));
+                    }
+                } else if (stmt instanceof StoreField store) {
+                    if (store.getFieldAccess() instanceof InstanceFieldAccess access) {
+                        JField field = store.getFieldRef().resolve();
+                        pta.getPointsToSet(access.getBase()).forEach(base ->
+                                addEdge(store.getRValue(), new FieldNode(base, field)));
+                    }
+                } else if (stmt instanceof LoadArray load) {
+                    pta.getPointsToSet(load.getArrayAccess().getBase()).forEach(array ->
+                            addEdge(new FieldNode(array, null), load.getLValue()));
+                } else if (stmt instanceof StoreArray store) {
+                    pta.getPointsToSet(store.getArrayAccess().getBase()).forEach(array ->
+                            addEdge(store.getRValue(), new FieldNode(array, null)));
+                } else if (stmt instanceof Invoke invoke) {
+                    addCallEdges(invoke, callGraph.getCalleesOf(invoke));
+                }
+            }
+        });
+    }
+
+    private void addCallEdges(Invoke invoke, Set<JMethod> callees) {
+        List<Var> args = invoke.getInvokeExp().getArgs();
+        Var result = invoke.getResult();
+        for (JMethod callee : callees) {
+            List<Var> params = callee.getIR().getParams();
+            for (int i = 0; i < args.size() && i < params.size(); ++i) {
+                addEdge(args.get(i), params.get(i));
+            }
+            if (result != null) {
+                callee.getIR().getReturnVars()
+                        .forEach(ret -> addEdge(ret, result));
+            }
+        }
+    }
+
+    private void addEdge(Object source, Object target) {
+        if (isConcerned(source) && isConcerned(target)) {
+            succs.put(source, target);
+            preds.put(target, source);
+        }
+    }
+
+    /**
+     * Only variables of reference types may be involved in object flows.
+     */
+    private static boolean isConcerned(Object node) {
+        return !(node instanceof Var var) ||
+                var.getType() instanceof ReferenceType;
+    }
+
+    Set<Object> getSuccsOf(Object node) {
+        return succs.get(node);
+    }
+
+    Set<Object> getPredsOf(Object node) {
+        return preds.get(node);
+    }
+
+    /**
+     * Represents an instance field of an object.
+     * Null field represents the elements of an array object.
+     */
+    record FieldNode(Obj base, @Nullable JField field) {
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package pascal.taie.analysis.graph.callgraph;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class AbstractCallGraphTest {
+
+    /**
+     * Call graph of strings, where each call site is the name of
+     * its container followed by a number, e.g., "a1" in "a".
+     */
+    private static class StringCallGraph extends AbstractCallGraph<String, String> {
+
+        private StringCallGraph(String... methods) {
+            for (String method : methods) {
+                reachableMethods.add(method);
+                ++modCount;
+            }
+        }
+
+        private boolean addEdge(String callSite, String callee) {
+            return addEdge(callSite, callee, true);
+        }
+
+        private boolean addEdge(String callSite, String callee, boolean count) {
+            Edge<String, String> edge = new Edge<>(CallKind.STATIC, callSite, callee);
+            if (callSiteToEdges.put(callSite, edge)) {
+                String caller = callSite.substring(0, 1);
+                callSiteToContainer.put(callSite, caller);
+                callSitesIn.put(caller, callSite);
+                calleeToEdges.put(callee, edge);
+                if (count) {
+                    ++modCount;
+                }
+                return true;
+            }
+            return false;
+        }
+
+        private boolean removeEdge(String callSite, String callee) {
+            Edge<String, String> edge = new Edge<>(CallKind.STATIC, callSite, callee);
+            if (callSiteToEdges.remove(callSite, edge)) {
+                calleeToEdges.remove(callee, edge);
+                ++modCount;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean isRelevant(Stmt stmt) {
+            return false;
+        }
+
+        @Override
+        public Set<String> getResult(Stmt stmt) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * @return a -> b (twice), a -> c, b -> c, c -> a, c -> c, and d.
+     */
+    private static StringCallGraph makeCallGraph() {
+        StringCallGraph callGraph = new StringCallGraph("a", "b", "c", "d");
+        callGraph.addEdge("a1", "b");
+        callGraph.addEdge("a2", "b");
+        callGraph.addEdge("a3", "c");
+        callGraph.addEdge("b1", "c");
+        callGraph.addEdge("c1", "a");
+        callGraph.addEdge("c2", "c");
+        return callGraph;
+    }
+
+    @Test
+    public void testAdjacency() {
+        StringCallGraph callGraph = makeCallGraph();
+        Assert.assertEquals(Set.of("b", "c"), callGraph.getSuccsOf("a"));
+        Assert.assertEquals(Set.of("a", "b", "c"), callGraph.getPredsOf("c"));
+        Assert.assertEquals(Set.of(), callGraph.getSuccsOf("d"));
+        Assert.assertEquals(Set.of(), callGraph.getPredsOf("d"));
+        Assert.assertEquals(Set.of(), callGraph.getSuccsOf("e"));
+        Assert.assertTrue(callGraph.hasEdge("c", "c"));
+        Assert.assertTrue(callGraph.hasEdge("c", "a"));
+        Assert.assertFalse(callGraph.hasEdge("a", "d"));
+        Assert.assertFalse(callGraph.hasEdge("a", "e"));
+        Assert.assertEquals(Set.of(
+                        new MethodEdge<>("a", "b", "a1"),
+                        new MethodEdge<>("a", "b", "a2"),
+                        new MethodEdge<>("a", "c", "a3")),
+                callGraph.getOutEdgesOf("a"));
+        Assert.assertEquals(Set.of(
+                        new MethodEdge<>("a", "c", "a3"),
+                        new MethodEdge<>("b", "c", "b1"),
+                        new MethodEdge<>("c", "c", "c2")),
+                callGraph.getInEdgesOf("c"));
+        // the sets are cached until the call graph is modified
+        Assert.assertSame(callGraph.getSuccsOf("a"), callGraph.getSuccsOf("a"));
+        Assert.assertSame(callGraph.getPredsOf("c"), callGraph.getPredsOf("c"));
+        Assert.assertSame(callGraph.getOutEdgesOf("a"), callGraph.getOutEdgesOf("a"));
+        Assert.assertSame(callGraph.getInEdgesOf("c"), callGraph.getInEdgesOf("c"));
+    }
+
+    @Test
+    public void testIndexes() {
+        StringCallGraph callGraph = makeCallGraph();
+        Assert.assertEquals(-1, callGraph.getIndex("e"));
+        for (String method : List.of("a", "b", "c", "d")) {
+            int i = callGraph.getIndex(method);
+            Assert.assertTrue(0 <= i && i < callGraph.getNumberOfMethods());
+            Assert.assertEquals(method, callGraph.getMethod(i));
+            // the indexes of successors and predecessors are deduplicated,
+            // sorted, and consistent with the set views
+            List<Integer> succs = getSuccs(callGraph, i);
+            Assert.assertEquals(succs.stream().sorted().distinct().toList(), succs);
+            Assert.assertEquals(callGraph.getSuccsOf(method), toMethods(callGraph, succs));
+            List<Integer> preds = getPreds(callGraph, i);
+            Assert.assertEquals(preds.stream().sorted().distinct().toList(), preds);
+            Assert.assertEquals(callGraph.getPredsOf(method), toMethods(callGraph, preds));
+        }
+        Assert.assertEquals(2, getSuccs(callGraph, callGraph.getIndex("a")).size());
+        Assert.assertEquals(3, getPreds(callGraph, callGraph.getIndex("c")).size());
+    }
+
+    @Test
+    public void testInvalidation() {
+        StringCallGraph callGraph = makeCallGraph();
+        Set<String> succs = callGraph.getSuccsOf("a");
+        Assert.assertFalse(callGraph.hasEdge("a", "d"));
+        callGraph.addEdge("a4", "d");
+        Assert.assertEquals(Set.of("b", "c", "d"), callGraph.getSuccsOf("a"));
+        Assert.assertEquals(Set.of("a"), callGraph.getPredsOf("d"));
+        Assert.assertTrue(callGraph.hasEdge("a", "d"));
+        Assert.assertEquals(List.of(callGraph.getIndex("d")),
+                getSuccs(callGraph, callGraph.getIndex("a"))
+                        .stream()
+                        .filter(i -> callGraph.getMethod(i).equals("d"))
+                        .toList());
+        // the methods stay adjacent while one of their call edges remains
+        callGraph.removeEdge("a1", "b");
+        Assert.assertTrue(callGraph.hasEdge("a", "b"));
+        Assert.assertEquals(Set.of(new MethodEdge<>("a", "b", "a2")),
+                callGraph.getInEdgesOf("b"));
+        callGraph.removeEdge("a2", "b");
+        Assert.assertFalse(callGraph.hasEdge("a", "b"));
+        Assert.assertEquals(Set.of(), callGraph.getInEdgesOf("b"));
+        Assert.assertEquals(Set.of("c", "d"), callGraph.getSuccsOf("a"));
+        // the sets queried before modifications are not changed
+        Assert.assertEquals(Set.of("b", "c"), succs);
+    }
+
+    @Test
+    public void testInvalidationWithoutModCount() {
+        // the adjacency is also rebuilt if the number of edges changes,
+        // even though the subclass does not update modCount
+        StringCallGraph callGraph = makeCallGraph();
+        Assert.assertEquals(Set.of(), callGraph.getPredsOf("d"));
+        callGraph.addEdge("b2", "d", false);
+        Assert.assertEquals(Set.of("b"), callGraph.getPredsOf("d"));
+        Assert.assertTrue(callGraph.hasEdge("b", "d"));
+    }
+
+    private static List<Integer> getSuccs(StringCallGraph callGraph, int index) {
+        List<Integer> succs = new ArrayList<>();
+        callGraph.forEachSucc(index, succs::add);
+        return succs;
+    }
+
+    private static List<Integer> getPreds(StringCallGraph callGraph, int index) {
+        List<Integer> preds = new ArrayList<>();
+        callGraph.forEachPred(index, preds::add);
+        return preds;
+    }
+
+    private static Set<String> toMethods(StringCallGraph callGraph, List<Integer> indexes) {
+        return indexes.stream()
+                .map(callGraph::getMethod)
+                .collect(Collectors.toSet());
+    }
+}
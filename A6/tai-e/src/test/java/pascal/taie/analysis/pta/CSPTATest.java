@@ -22,8 +22,38 @@
 
 package pascal.taie.analysis.pta;
 
+import org.junit.Assert;
 import org.junit.Test;
+import pascal.taie.World;
 import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.InstanceField;
+import pascal.taie.analysis.pta.core.cs.element.MapBasedCSManager;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.cs.selector.BudgetedSelector;
+import pascal.taie.analysis.pta.core.cs.selector.GuidedSelector;
+import pascal.taie.analysis.pta.core.heap.AllocationSiteBasedModel;
+import pascal.taie.analysis.pta.core.heap.MockObj;
+import pascal.taie.analysis.pta.cs.CSPTA;
+import pascal.taie.analysis.pta.plugin.PointerAnalysisMetrics;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 public class CSPTATest {
 
@@ -93,4 +123,327 @@ public class CSPTATest {
     public void testArray() {
         Tests.testCSPTA(DIR, "Array");
     }
+
+    @Test
+    public void testArrayBasedCSManager() {
+        for (String[] test : new String[][]{
+                { "InstanceField", "cs:ci" }, { "StaticField", "cs:ci" },
+                { "OneCall", "cs:1-call" }, { "TwoObject", "cs:2-obj" } }) {
+            Tests.testCSPTA(DIR, test[0], test[1], "cs-manager:array");
+        }
+    }
+
+    @Test
+    public void testBitmap() {
+        for (String[] test : new String[][]{
+                { "StoreLoad", "cs:ci" }, { "Array", "cs:ci" },
+                { "TwoObject", "cs:2-obj" }, { "TwoType", "cs:2-type" } }) {
+            Tests.testCSPTA(DIR, test[0], test[1], "pts-impl:bitmap");
+        }
+        // the points-to sets made after the analysis do not index objects
+        CSObj obj = new MapBasedCSManager().getCSObj(TrieContext.make(),
+                new MockObj("test", "o", null));
+        PointsToSetFactory.make(obj);
+        Assert.assertEquals(-1, obj.getIndex());
+    }
+
+    @Test
+    public void testParallel() {
+        // the results of the parallel solver are checked against the
+        // expected results of the sequential one, over several runs
+        // to go through different thread schedules
+        for (int i = 0; i < 5; ++i) {
+            for (String main : List.of("Assign", "StoreLoad", "Call",
+                    "InstanceField", "StaticField", "Array")) {
+                Tests.testCSPTA(DIR, main, "solver:parallel", "threads:4");
+            }
+            // k-limited contexts, which are selected concurrently
+            for (String[] test : new String[][]{
+                    { "OneCall", "cs:1-call" }, { "TwoCall", "cs:2-call" },
+                    { "TwoObject", "cs:2-obj" }, { "TwoType", "cs:2-type" } }) {
+                Tests.testCSPTA(DIR, test[0], test[1], "solver:parallel", "threads:4");
+            }
+        }
+    }
+
+    @Test
+    public void testMetrics() {
+        // the metrics maintained by the solvers are the sizes of the result
+        for (String[] test : new String[][]{
+                { "StoreLoad", "cs:ci" }, { "StaticField", "cs:ci" },
+                { "Array", "cs:ci" }, { "TwoObject", "cs:2-obj" } }) {
+            Tests.testCSPTA(DIR, test[0], test[1]);
+            assertMetrics();
+            Tests.testCSPTA(DIR, test[0], test[1], "solver:parallel", "threads:4");
+            assertMetrics();
+        }
+    }
+
+    private static void assertMetrics() {
+        PointerAnalysisResult result = World.get().getResult(CSPTA.ID);
+        PointerAnalysisMetrics metrics = getMetrics();
+        Assert.assertTrue(metrics.isPointsToReported());
+        Assert.assertEquals(result.getCSVars().size() +
+                        result.getStaticFields().size() +
+                        result.getInstanceFields().size() +
+                        result.getArrayIndexes().size(),
+                metrics.getPointers());
+        Assert.assertEquals(result.getCSCallGraph().getNumberOfMethods(),
+                metrics.getReachableMethods());
+        Assert.assertEquals(result.getCSCallGraph().edges().count(),
+                metrics.getCallEdges());
+        Assert.assertEquals(0, metrics.getWorkListSize());
+        Assert.assertTrue(metrics.getProcessedEntries() > 0);
+        long varPointsTo = countPointsTo(result.getCSVars());
+        long staticFieldPointsTo = countPointsTo(result.getStaticFields());
+        long instanceFieldPointsTo = countPointsTo(result.getInstanceFields());
+        long arrayPointsTo = countPointsTo(result.getArrayIndexes());
+        // a vacuous comparison would not catch missing reports
+        Assert.assertTrue(varPointsTo > 0);
+        Assert.assertEquals(varPointsTo, metrics.getVarPointsTo());
+        Assert.assertEquals(staticFieldPointsTo, metrics.getStaticFieldPointsTo());
+        Assert.assertEquals(instanceFieldPointsTo, metrics.getInstanceFieldPointsTo());
+        Assert.assertEquals(arrayPointsTo, metrics.getArrayPointsTo());
+        Assert.assertEquals(varPointsTo + staticFieldPointsTo +
+                instanceFieldPointsTo + arrayPointsTo, metrics.getPointsTo());
+    }
+
+    private static long countPointsTo(Collection<? extends Pointer> pointers) {
+        return pointers.stream()
+                .mapToLong(p -> p.getPointsToSet().size())
+                .sum();
+    }
+
+    @Test
+    public void testCheckpoint() throws IOException {
+        // the final state saved by each solver is resumed by the
+        // sequential solver, which must give the same results
+        // without processing any work-list entry again
+        Path checkpoint = Files.createTempFile("cspta", ".ckpt");
+        try {
+            Tests.testCSPTA(DIR, "TwoObject", "cs:2-obj",
+                    "checkpoint:" + checkpoint);
+            Assert.assertTrue(getMetrics().getProcessedEntries() > 0);
+            Tests.testCSPTA(DIR, "TwoObject", "cs:2-obj",
+                    "resume:" + checkpoint);
+            Assert.assertEquals(0, getMetrics().getProcessedEntries());
+            // the points-to facts restored from the checkpoint are not reported
+            Assert.assertFalse(getMetrics().isPointsToReported());
+            Tests.testCSPTA(DIR, "TwoCall", "cs:2-call", "solver:parallel",
+                    "checkpoint:" + checkpoint);
+            Assert.assertTrue(getMetrics().getProcessedEntries() > 0);
+            Tests.testCSPTA(DIR, "TwoCall", "cs:2-call",
+                    "resume:" + checkpoint);
+            Assert.assertEquals(0, getMetrics().getProcessedEntries());
+        } finally {
+            Files.deleteIfExists(checkpoint);
+        }
+    }
+
+    @Test
+    public void testIncremental() throws IOException {
+        // an added method overrides the callee of an unchanged call site
+        testIncremental("incremental/", "Dispatch");
+        // a removed method no longer overrides the callee, thus the
+        // objects it allocated are gone from the points-to sets
+        testIncremental("incremental-removal/", "Removal", "cs:1-call");
+    }
+
+    /**
+     * Checks that the result of incremental analysis from the old version
+     * in given directory is the same as the one of a fresh run on the
+     * new version, and that the points-to facts of the versions differ.
+     */
+    private static void testIncremental(String dir, String main, String... opts)
+            throws IOException {
+        String changes = "src/test/resources/pta/" + dir + "changes.txt";
+        Path checkpoint = Files.createTempFile("cspta", ".ckpt");
+        Path oldResult = Files.createTempFile("cspta", ".txt");
+        Path result = Files.createTempFile("cspta", ".txt");
+        try {
+            Tests.testCSPTA(dir + "old", main, concat(opts, "action:dump",
+                    "file:" + oldResult, "checkpoint:" + checkpoint));
+            Tests.testCSPTA(dir + "new", main, concat(opts, "action:dump",
+                    "file:" + result));
+            Assert.assertNotEquals(Files.readAllLines(oldResult),
+                    Files.readAllLines(result));
+            Tests.testCSPTA(dir + "new", main, concat(opts, "file:" + result,
+                    "incremental:" + checkpoint, "changes:" + changes));
+        } finally {
+            Files.deleteIfExists(checkpoint);
+            Files.deleteIfExists(oldResult);
+            Files.deleteIfExists(result);
+        }
+    }
+
+    private static String[] concat(String[] opts, String... more) {
+        String[] result = Arrays.copyOf(opts, opts.length + more.length);
+        System.arraycopy(more, 0, result, opts.length, more.length);
+        return result;
+    }
+
+    @Test
+    public void testBudget() {
+        // within the budget, all methods are analyzed under 2-call
+        Tests.testCSPTA(DIR, "Budget", "cs:2-call", "action:null");
+        Assert.assertNull(World.get().<PointerAnalysisResult>getResult(CSPTA.ID)
+                .getResult(BudgetedSelector.class.getName()));
+        Assert.assertFalse(getContexts("<Late: java.lang.Object run(java.lang.Object)>")
+                .contains(TrieContext.make()));
+        // the budget is exceeded while selecting the contexts of the static
+        // calls, thus the method reached afterwards gets the empty context
+        Tests.testCSPTA(DIR, "Budget", "cs:2-call", "budget-cs-pointers:1",
+                "action:null");
+        Set<JMethod> downgraded = World.get().<PointerAnalysisResult>getResult(CSPTA.ID)
+                .getResult(BudgetedSelector.class.getName());
+        Set<String> signatures = downgraded.stream()
+                .map(JMethod::getSignature)
+                .collect(Collectors.toSet());
+        Assert.assertTrue(signatures.contains(
+                "<Late: java.lang.Object run(java.lang.Object)>"));
+        downgraded.forEach(m -> Assert.assertNotEquals("Budget",
+                m.getDeclaringClass().getName()));
+        Assert.assertEquals(Set.of(TrieContext.make()),
+                getContexts("<Late: java.lang.Object run(java.lang.Object)>"));
+        Assert.assertEquals(64, getContexts("<Budget: void m5()>").size());
+    }
+
+    /**
+     * @return the contexts of given method in the last run of the analysis.
+     */
+    private static Set<Context> getContexts(String signature) {
+        PointerAnalysisResult result = World.get().getResult(CSPTA.ID);
+        return result.getCSCallGraph()
+                .reachableMethods()
+                .filter(m -> m.getMethod().getSignature().equals(signature))
+                .map(CSMethod::getContext)
+                .collect(Collectors.toSet());
+    }
+
+    @Test
+    public void testScaler() {
+        // under the default threshold, all methods can afford the most
+        // precise variant, thus the result is the one of 2-obj
+        Tests.testCSPTA(DIR, "TwoObject", "advanced:scaler");
+        Map<String, String> variants = getVariants();
+        Assert.assertEquals(6, variants.size());
+        variants.values().forEach(v -> Assert.assertEquals("2-obj", v));
+        // a low threshold downgrades the costly methods, while the cheap
+        // ones keep the most precise variant
+        Tests.testCSPTA(DIR, "TwoObject", "advanced:scaler",
+                "scaler-tst:30", "action:null");
+        variants = getVariants();
+        Assert.assertEquals("ci", variants.get("<java.lang.Object: void <init>()>"));
+        Assert.assertEquals("2-type", variants.get("<List: void add(java.lang.Object)>"));
+        Assert.assertEquals("2-type",
+                variants.get("<List$ListIterator: java.lang.Object next()>"));
+        Assert.assertEquals("2-obj", variants.get("<List: Iterator iterator()>"));
+        Assert.assertEquals("2-obj", variants.get("<List: void <init>()>"));
+    }
+
+    @Test
+    public void testZipper() {
+        // objects flow into A via set() and doSet(), and out via get(),
+        // thus these methods are precision-critical, but constructors not
+        Tests.testCSPTA(DIR, "OneObject", "advanced:zipper", "cs:1-obj",
+                "action:null");
+        Assert.assertEquals(Map.of(
+                "<A: void set(B)>", "1-obj",
+                "<A: void doSet(B)>", "1-obj",
+                "<A: B get()>", "1-obj"), getVariants());
+        // which keeps the precision of 1-obj
+        PointerAnalysisResult result = World.get().getResult(CSPTA.ID);
+        Var x = result.getVars()
+                .stream()
+                .filter(v -> v.getName().equals("x"))
+                .findFirst()
+                .orElseThrow();
+        Assert.assertEquals(1, result.getPointsToSet(x).size());
+    }
+
+    @Test
+    public void testStore() throws IOException {
+        // the stored result must answer the context-insensitive
+        // queries in the same way as the result of the analysis
+        Path file = Files.createTempFile("cspta", ".bin");
+        try {
+            for (String main : List.of("InstanceField", "StaticField", "Array")) {
+                testStore(file, main);
+                testStore(file, main, "solver:parallel");
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void testStore(Path file, String main, String... opts) {
+        Tests.testCSPTA(DIR, main, concat(opts, "action:store", "file:" + file));
+        PointerAnalysisResult result = World.get().getResult(CSPTA.ID);
+        // an empty result would make the comparison vacuous
+        Assert.assertTrue(result.getVars()
+                .stream()
+                .anyMatch(v -> !result.getPointsToSet(v).isEmpty()));
+        CIPointerAnalysisResult stored = MappedPointerAnalysisResult.open(
+                file, new AllocationSiteBasedModel(new AnalysisOptions(Map.of(
+                        "merge-string-constants", false,
+                        "merge-string-objects", false,
+                        "merge-string-builders", false,
+                        "merge-exception-objects", true))));
+        assertSameResult(result, stored);
+    }
+
+    /**
+     * @return the metrics of the last run of the analysis.
+     */
+    private static PointerAnalysisMetrics getMetrics() {
+        PointerAnalysisResult result = World.get().getResult(CSPTA.ID);
+        return result.getResult(PointerAnalysisMetrics.class.getName());
+    }
+
+    /**
+     * @return the context sensitivity variants selected for the methods
+     * in the last run of the analysis, by method signatures.
+     */
+    private static Map<String, String> getVariants() {
+        PointerAnalysisResult result = World.get().getResult(CSPTA.ID);
+        Map<JMethod, String> variants = result.getResult(
+                GuidedSelector.class.getName());
+        return variants.entrySet()
+                .stream()
+                .collect(Collectors.toMap(
+                        e -> e.getKey().getSignature(), Map.Entry::getValue));
+    }
+
+    /**
+     * Compares the results by the strings of the elements, as the objects
+     * are created by different heap models.
+     */
+    private static void assertSameResult(PointerAnalysisResult expected,
+                                         CIPointerAnalysisResult actual) {
+        Assert.assertEquals(toStrings(expected.getObjects()),
+                toStrings(actual.getObjects()));
+        Set<JField> fields = expected.getInstanceFields()
+                .stream()
+                .map(InstanceField::getField)
+                .collect(Collectors.toSet());
+        for (Var var : expected.getVars()) {
+            Assert.assertEquals(toStrings(expected.getPointsToSet(var)),
+                    toStrings(actual.getPointsToSet(var)));
+            for (JField field : fields) {
+                Assert.assertEquals(toStrings(expected.getPointsToSet(var, field)),
+                        toStrings(actual.getPointsToSet(var, field)));
+            }
+        }
+        expected.getStaticFields().forEach(f -> Assert.assertEquals(
+                toStrings(expected.getPointsToSet(f.getField())),
+                toStrings(actual.getPointsToSet(f.getField()))));
+        Assert.assertEquals(toStrings(expected.getCallGraph().edges().toList()),
+                toStrings(actual.getCallGraph().edges().toList()));
+    }
+
+    private static Set<String> toStrings(Collection<?> elements) {
+        return elements.stream()
+                .map(Object::toString)
+                .collect(Collectors.toSet());
+    }
 }
@@ -0,0 +1,91 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.context;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TrieContextTest {
+
+    @Test
+    public void testInterning() {
+        TrieContext.reset();
+        Context ab = TrieContext.make("a", "b");
+        Assert.assertSame(ab, TrieContext.make("a", "b"));
+        Assert.assertSame(ab, TrieContext.append(TrieContext.make("a"), "b", 2));
+        Assert.assertNotSame(ab, TrieContext.make("b", "a"));
+        Assert.assertSame(TrieContext.make(), TrieContext.make(new Object[0]));
+        Assert.assertEquals(2, ab.getLength());
+        Assert.assertEquals("a", ab.getElementAt(0));
+        Assert.assertEquals("b", ab.getElementAt(1));
+        Assert.assertEquals("[a, b]", ab.toString());
+    }
+
+    @Test
+    public void testAppend() {
+        TrieContext.reset();
+        Context empty = TrieContext.make();
+        Context c = TrieContext.append(empty, "a", 2);
+        Assert.assertSame(TrieContext.make("a"), c);
+        c = TrieContext.append(c, "b", 2);
+        Assert.assertSame(TrieContext.make("a", "b"), c);
+        // the oldest element is dropped beyond the limit
+        c = TrieContext.append(c, "c", 2);
+        Assert.assertSame(TrieContext.make("b", "c"), c);
+        Assert.assertSame(TrieContext.make("c", "d"),
+                TrieContext.append(TrieContext.make("a", "b", "c"), "d", 2));
+        Assert.assertSame(TrieContext.make("d"),
+                TrieContext.append(TrieContext.make("a", "b", "c"), "d", 1));
+        Assert.assertSame(empty, TrieContext.append(c, "d", 0));
+    }
+
+    @Test
+    public void testTruncate() {
+        TrieContext.reset();
+        Context abc = TrieContext.make("a", "b", "c");
+        Assert.assertSame(abc, TrieContext.truncate(abc, 3));
+        Assert.assertSame(abc, TrieContext.truncate(abc, 5));
+        Assert.assertSame(TrieContext.make("b", "c"), TrieContext.truncate(abc, 2));
+        Assert.assertSame(TrieContext.make("c"), TrieContext.truncate(abc, 1));
+        Assert.assertSame(TrieContext.make(), TrieContext.truncate(abc, 0));
+        Assert.assertSame(TrieContext.make(), TrieContext.truncate(abc, -1));
+        // non-trie contexts are interned
+        Assert.assertSame(TrieContext.make("b", "c"),
+                TrieContext.truncate(ListContext.make("a", "b", "c"), 2));
+    }
+
+    @Test
+    public void testReset() {
+        TrieContext.reset();
+        TrieContext a = (TrieContext) TrieContext.make("a");
+        TrieContext ab = (TrieContext) TrieContext.make("a", "b");
+        Assert.assertEquals(0, ((TrieContext) TrieContext.make()).getId());
+        Assert.assertEquals(1, a.getId());
+        Assert.assertEquals(2, ab.getId());
+        TrieContext.reset();
+        // ids are dense again, and the contexts are new
+        TrieContext b = (TrieContext) TrieContext.make("b");
+        Assert.assertEquals(1, b.getId());
+        Assert.assertNotSame(a, TrieContext.make("a"));
+    }
+}
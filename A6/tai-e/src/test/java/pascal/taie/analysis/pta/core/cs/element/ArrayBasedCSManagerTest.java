@@ -0,0 +1,102 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package pascal.taie.analysis.pta.core.cs.element;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
+import pascal.taie.analysis.pta.core.heap.MockObj;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.ir.exp.Var;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+public class ArrayBasedCSManagerTest {
+
+    @Before
+    public void setUp() {
+        TrieContext.reset();
+        PointsToSetFactory.setImplementation("hybrid");
+    }
+
+    @Test
+    public void testSameAsMapBasedCSManager() {
+        // enough elements to resize the tables several times
+        List<Var> vars = new ArrayList<>();
+        List<Obj> objs = new ArrayList<>();
+        for (int i = 0; i < 500; ++i) {
+            vars.add(new Var(null, "v" + i, null, i));
+            objs.add(new MockObj("test", "o" + i, null));
+        }
+        List<Context> contexts = new ArrayList<>();
+        contexts.add(TrieContext.make());
+        for (int i = 0; i < 20; ++i) {
+            contexts.add(TrieContext.make("c" + i));
+            contexts.add(TrieContext.make("c" + i, "c" + (i + 1)));
+        }
+        CSManager arrayBased = new ArrayBasedCSManager();
+        CSManager mapBased = new MapBasedCSManager();
+        Random random = new Random(0);
+        for (int i = 0; i < 20000; ++i) {
+            Context context = contexts.get(random.nextInt(contexts.size()));
+            Var var = vars.get(random.nextInt(vars.size()));
+            Obj obj = objs.get(random.nextInt(objs.size()));
+            CSVar csVar = arrayBased.getCSVar(context, var);
+            Assert.assertSame(var, csVar.getVar());
+            Assert.assertSame(context, csVar.getContext());
+            Assert.assertSame(csVar, arrayBased.getCSVar(context, var));
+            mapBased.getCSVar(context, var);
+            CSObj csObj = arrayBased.getCSObj(context, obj);
+            Assert.assertSame(obj, csObj.getObject());
+            Assert.assertSame(context, csObj.getContext());
+            Assert.assertSame(csObj, arrayBased.getCSObj(context, obj));
+            Assert.assertSame(csObj, arrayBased.getArrayIndex(csObj).getArray());
+            Assert.assertSame(arrayBased.getArrayIndex(csObj),
+                    arrayBased.getArrayIndex(csObj));
+            mapBased.getArrayIndex(mapBased.getCSObj(context, obj));
+        }
+        Assert.assertEquals(toStrings(mapBased.getVars()),
+                toStrings(arrayBased.getVars()));
+        for (Var var : mapBased.getVars()) {
+            Assert.assertEquals(toStrings(mapBased.getCSVarsOf(var)),
+                    toStrings(arrayBased.getCSVarsOf(var)));
+        }
+        Assert.assertTrue(arrayBased.getCSVarsOf(
+                new Var(null, "v", null, 0)).isEmpty());
+        Assert.assertEquals(toStrings(mapBased.getCSVars()),
+                toStrings(arrayBased.getCSVars()));
+        Assert.assertEquals(toStrings(mapBased.getObjects()),
+                toStrings(arrayBased.getObjects()));
+        Assert.assertEquals(toStrings(mapBased.getArrayIndexes()),
+                toStrings(arrayBased.getArrayIndexes()));
+    }
+
+    private static List<String> toStrings(Collection<?> elements) {
+        return elements.stream().map(Object::toString).sorted().toList();
+    }
+}
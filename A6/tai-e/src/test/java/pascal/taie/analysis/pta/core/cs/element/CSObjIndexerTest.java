@@ -0,0 +1,79 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package pascal.taie.analysis.pta.core.cs.element;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
+import pascal.taie.analysis.pta.core.heap.MockObj;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class CSObjIndexerTest {
+
+    @Test
+    public void testConcurrentIndexing() throws InterruptedException {
+        CSManager csManager = new ConcurrentCSManager();
+        List<CSObj> objs = IntStream.range(0, 10000)
+                .mapToObj(i -> csManager.getCSObj(TrieContext.make(),
+                        new MockObj("test", i, null)))
+                .toList();
+        CSObjIndexer indexer = new CSObjIndexer();
+        Set<CSObj> mismatches = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; ++t) {
+            // each thread indexes all objects in a different order
+            int offset = t * 2500;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < objs.size(); ++i) {
+                    CSObj obj = objs.get((i + offset) % objs.size());
+                    if (indexer.getObject(indexer.getIndex(obj)) != obj) {
+                        mismatches.add(obj);
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertTrue(mismatches.isEmpty());
+        // each object gets a distinct index in [0, #objects)
+        Assert.assertEquals(objs.size(), indexer.getNumberOfObjects());
+        Assert.assertEquals(IntStream.range(0, objs.size()).boxed().collect(Collectors.toSet()),
+                objs.stream().map(CSObj::getIndex).collect(Collectors.toSet()));
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package pascal.taie.analysis.pta.pts;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+public class SparseBitmapTest {
+
+    @Test
+    public void testEmpty() {
+        SparseBitmap empty = new SparseBitmap();
+        Assert.assertTrue(empty.isEmpty());
+        Assert.assertEquals(0, empty.cardinality());
+        Assert.assertFalse(empty.get(0));
+        Assert.assertFalse(empty.iterator().hasNext());
+        SparseBitmap bitmap = of(1, 100);
+        Assert.assertFalse(bitmap.or(empty));
+        Assert.assertEquals(Set.of(1, 100), toSet(bitmap));
+        Assert.assertEquals(2, bitmap.andNot(empty).cardinality());
+        Assert.assertTrue(bitmap.and(empty).isEmpty());
+        Assert.assertTrue(empty.andNot(bitmap).isEmpty());
+        Assert.assertTrue(empty.and(bitmap).isEmpty());
+        SparseBitmap diff = new SparseBitmap();
+        Assert.assertTrue(empty.orDiff(bitmap, diff));
+        Assert.assertEquals(Set.of(1, 100), toSet(empty));
+        Assert.assertEquals(Set.of(1, 100), toSet(diff));
+    }
+
+    @Test
+    public void testWordBoundaries() {
+        SparseBitmap bitmap = new SparseBitmap();
+        int[] bits = { 128, 63, 0, 64, 127, 191, 192 };
+        for (int bit : bits) {
+            Assert.assertTrue(bitmap.set(bit));
+            Assert.assertFalse(bitmap.set(bit));
+        }
+        Assert.assertEquals(bits.length, bitmap.cardinality());
+        for (int bit : bits) {
+            Assert.assertTrue(bitmap.get(bit));
+        }
+        for (int bit : new int[]{ 1, 62, 65, 126, 129, 190, 193 }) {
+            Assert.assertFalse(bitmap.get(bit));
+        }
+        Assert.assertEquals(List.of(0, 63, 64, 127, 128, 191, 192), toList(bitmap));
+        Assert.assertEquals(List.of(63, 127, 191),
+                toList(bitmap.andNot(of(0, 64, 128, 192))));
+        Assert.assertEquals(List.of(64, 191),
+                toList(bitmap.and(of(64, 65, 190, 191))));
+    }
+
+    @Test
+    public void testGaps() {
+        // the words of the two bitmaps interleave with gaps in between
+        SparseBitmap a = of(1, 64 * 5 + 3, 64 * 1000, 64 * 3000 + 63);
+        SparseBitmap b = of(2, 64 * 3, 64 * 1000, 64 * 1000 + 1, 64 * 2000 + 63);
+        Assert.assertEquals(List.of(1, 64 * 5 + 3, 64 * 3000 + 63), toList(a.andNot(b)));
+        Assert.assertEquals(List.of(64 * 1000), toList(a.and(b)));
+        SparseBitmap diff = new SparseBitmap();
+        Assert.assertTrue(a.orDiff(b, diff));
+        Assert.assertEquals(List.of(2, 64 * 3, 64 * 1000 + 1, 64 * 2000 + 63),
+                toList(diff));
+        Assert.assertEquals(List.of(1, 2, 64 * 3, 64 * 5 + 3, 64 * 1000,
+                64 * 1000 + 1, 64 * 2000 + 63, 64 * 3000 + 63), toList(a));
+        Assert.assertEquals(8, a.cardinality());
+        Assert.assertFalse(a.or(b));
+    }
+
+    @Test
+    public void testRandom() {
+        Random random = new Random(0);
+        for (int round = 0; round < 200; ++round) {
+            TreeSet<Integer> s1 = new TreeSet<>(), s2 = new TreeSet<>();
+            SparseBitmap b1 = new SparseBitmap(), b2 = new SparseBitmap();
+            int bound = 1 + random.nextInt(10000);
+            for (int i = random.nextInt(50); i > 0; --i) {
+                int bit = random.nextInt(bound);
+                Assert.assertEquals(s1.add(bit), b1.set(bit));
+            }
+            for (int i = random.nextInt(50); i > 0; --i) {
+                int bit = random.nextInt(bound);
+                Assert.assertEquals(s2.add(bit), b2.set(bit));
+            }
+            TreeSet<Integer> and = new TreeSet<>(s1);
+            and.retainAll(s2);
+            Assert.assertEquals(and, toSet(b1.and(b2)));
+            TreeSet<Integer> andNot = new TreeSet<>(s1);
+            andNot.removeAll(s2);
+            Assert.assertEquals(andNot, toSet(b1.andNot(b2)));
+            TreeSet<Integer> added = new TreeSet<>(s2);
+            added.removeAll(s1);
+            SparseBitmap diff = new SparseBitmap();
+            Assert.assertEquals(s1.addAll(s2), b1.orDiff(b2, diff));
+            Assert.assertEquals(added, toSet(diff));
+            Assert.assertEquals(new ArrayList<>(s1), toList(b1));
+            Assert.assertEquals(s1.size(), b1.cardinality());
+        }
+    }
+
+    private static SparseBitmap of(int... bits) {
+        SparseBitmap bitmap = new SparseBitmap();
+        for (int bit : bits) {
+            bitmap.set(bit);
+        }
+        return bitmap;
+    }
+
+    private static List<Integer> toList(SparseBitmap bitmap) {
+        List<Integer> bits = new ArrayList<>();
+        PrimitiveIterator.OfInt it = bitmap.iterator();
+        while (it.hasNext()) {
+            bits.add(it.nextInt());
+        }
+        return bits;
+    }
+
+    private static Set<Integer> toSet(SparseBitmap bitmap) {
+        return new TreeSet<>(toList(bitmap));
+    }
+}
@@ -0,0 +1,64 @@
+class Budget {
+    public static void main(String[] args) {
+        // the static calls are processed before the work list, and
+        // select more than a thousand contexts under 2-call
+        m1();
+        Late late = new Late();
+        late.run(new Object());
+    }
+
+    static void m1() {
+        m2();
+        m2();
+        m2();
+        m2();
+        m2();
+        m2();
+        m2();
+        m2();
+    }
+
+    static void m2() {
+        m3();
+        m3();
+        m3();
+        m3();
+        m3();
+        m3();
+        m3();
+        m3();
+    }
+
+    static void m3() {
+        m4();
+        m4();
+        m4();
+        m4();
+        m4();
+        m4();
+        m4();
+        m4();
+    }
+
+    static void m4() {
+        m5();
+        m5();
+        m5();
+        m5();
+        m5();
+        m5();
+        m5();
+        m5();
+    }
+
+    static void m5() {
+        Object o = new Object();
+    }
+}
+
+class Late {
+
+    Object run(Object o) {
+        return o;
+    }
+}
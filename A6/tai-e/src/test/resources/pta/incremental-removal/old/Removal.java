@@ -0,0 +1,36 @@
+class Removal {
+
+    public static void main(String[] args) {
+        A a = new B();
+        Object x = a.get();
+        A y = new A();
+        Object z = y.get();
+        Holder h = new Holder();
+        h.f = x;
+        Object w = h.f;
+    }
+}
+
+class A {
+
+    Object get() {
+        return new C();
+    }
+}
+
+class B extends A {
+
+    Object get() {
+        return new D();
+    }
+}
+
+class Holder {
+    Object f;
+}
+
+class C {
+}
+
+class D {
+}
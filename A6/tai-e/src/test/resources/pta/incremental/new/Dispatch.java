@@ -0,0 +1,29 @@
+class Dispatch {
+
+    public static void main(String[] args) {
+        A a = new B();
+        Object x = a.get();
+        A y = new A();
+        Object z = y.get();
+    }
+}
+
+class A {
+
+    Object get() {
+        return new C();
+    }
+}
+
+class B extends A {
+
+    Object get() {
+        return new D();
+    }
+}
+
+class C {
+}
+
+class D {
+}
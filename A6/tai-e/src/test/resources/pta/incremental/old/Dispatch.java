@@ -0,0 +1,25 @@
+class Dispatch {
+
+    public static void main(String[] args) {
+        A a = new B();
+        Object x = a.get();
+        A y = new A();
+        Object z = y.get();
+    }
+}
+
+class A {
+
+    Object get() {
+        return new C();
+    }
+}
+
+class B extends A {
+}
+
+class C {
+}
+
+class D {
+}
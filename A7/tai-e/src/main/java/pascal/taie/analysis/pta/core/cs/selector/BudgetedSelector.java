@@ -0,0 +1,213 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.selector;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * Context selector which enforces a budget on the analysis.
+ * <p>
+ * Within the budget, contexts are selected by the delegate selector.
+ * Once the wall time, the number of CS pointers, or the used heap exceeds
+ * its limit, the methods that are reached afterwards (and optionally
+ * the methods with most context selections so far) are downgraded, i.e.,
+ * they only get the empty context, so that the analysis can still reach
+ * a sound fixpoint at lower precision.
+ */
+public class BudgetedSelector implements ContextSelector {
+
+    private static final Logger logger = LogManager.getLogger(BudgetedSelector.class);
+
+    /**
+     * The budget is checked once every this number of context selections.
+     */
+    private static final int CHECK_INTERVAL = 1024;
+
+    private final ContextSelector delegate;
+
+    private final long deadline;
+
+    private final long csPointerLimit;
+
+    private final long heapLimit;
+
+    private final int downgradeHeaviest;
+
+    private final LongSupplier csPointerCounter;
+
+    /**
+     * Methods reached within the budget.
+     */
+    private final Set<JMethod> reached = Sets.newSet();
+
+    /**
+     * Number of context selections of each method within the budget,
+     * only counted when {@link #downgradeHeaviest} is positive.
+     */
+    private final Map<JMethod, Integer> selections = Maps.newMap();
+
+    private final Set<JMethod> downgraded = Sets.newSet();
+
+    private int nSelections = 0;
+
+    /**
+     * Description of exceeded budget, or null if within the budget.
+     */
+    private String exceeded;
+
+    /**
+     * Non-positive limits are ignored.
+     *
+     * @param delegate          selector used within the budget.
+     * @param timeLimit         limit of wall time in milliseconds.
+     * @param csPointerLimit    limit of the number of CS pointers.
+     * @param heapLimit         limit of used heap in bytes.
+     * @param downgradeHeaviest number of methods with most context selections
+     *                          to downgrade once the budget is exceeded.
+     * @param csPointerCounter  counts the current CS pointers.
+     */
+    public BudgetedSelector(ContextSelector delegate,
+                            long timeLimit, long csPointerLimit,
+                            long heapLimit, int downgradeHeaviest,
+                            LongSupplier csPointerCounter) {
+        this.delegate = delegate;
+        this.deadline = timeLimit > 0 ?
+                System.currentTimeMillis() + timeLimit : Long.MAX_VALUE;
+        this.csPointerLimit = csPointerLimit > 0 ? csPointerLimit : Long.MAX_VALUE;
+        this.heapLimit = heapLimit > 0 ? heapLimit : Long.MAX_VALUE;
+        this.downgradeHeaviest = downgradeHeaviest;
+        this.csPointerCounter = csPointerCounter;
+    }
+
+    @Override
+    public Context getEmptyContext() {
+        return delegate.getEmptyContext();
+    }
+
+    @Override
+    public Context selectContext(CSCallSite callSite, JMethod callee) {
+        return isDowngraded(callee) ? getEmptyContext() :
+                delegate.selectContext(callSite, callee);
+    }
+
+    @Override
+    public Context selectContext(CSCallSite callSite, CSObj recv, JMethod callee) {
+        return isDowngraded(callee) ? getEmptyContext() :
+                delegate.selectContext(callSite, recv, callee);
+    }
+
+    @Override
+    public Context selectHeapContext(CSMethod method, Obj obj) {
+        return downgraded.contains(method.getMethod()) ? getEmptyContext() :
+                delegate.selectHeapContext(method, obj);
+    }
+
+    private boolean isDowngraded(JMethod method) {
+        if (exceeded == null && ++nSelections % CHECK_INTERVAL == 0) {
+            checkBudget();
+        }
+        if (exceeded == null) {
+            reached.add(method);
+            if (downgradeHeaviest > 0) {
+                selections.merge(method, 1, Integer::sum);
+            }
+            return false;
+        } else if (reached.contains(method)) {
+            return downgraded.contains(method);
+        } else {
+            downgraded.add(method);
+            return true;
+        }
+    }
+
+    private void checkBudget() {
+        long usedHeap;
+        if (System.currentTimeMillis() > deadline) {
+            exceeded = "time";
+        } else if (csPointerCounter.getAsLong() > csPointerLimit) {
+            exceeded = "CS pointers";
+        } else if ((usedHeap = getUsedHeap()) > heapLimit) {
+            exceeded = "heap (" + (usedHeap >> 20) + "MB used)";
+        }
+        if (exceeded != null) {
+            logger.warn("Budget of {} exceeded, downgrading newly reached" +
+                    " methods to the empty context", exceeded);
+            selections.entrySet()
+                    .stream()
+                    .sorted(Map.Entry.<JMethod, Integer>comparingByValue()
+                            .reversed())
+                    .limit(downgradeHeaviest)
+                    .forEach(e -> downgraded.add(e.getKey()));
+            selections.clear();
+        }
+    }
+
+    private static long getUsedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * @return description of the exceeded budget,
+     * or null if the analysis finished within the budget.
+     */
+    public @Nullable String getExceededBudget() {
+        return exceeded;
+    }
+
+    /**
+     * @return the methods that were downgraded to the empty context.
+     */
+    public Set<JMethod> getDowngradedMethods() {
+        return Collections.unmodifiableSet(downgraded);
+    }
+
+    /**
+     * Logs the downgraded methods.
+     */
+    public void report() {
+        if (exceeded != null) {
+            logger.info("#methods downgraded to the empty context: {}",
+                    downgraded.size());
+            downgraded.stream()
+                    .map(JMethod::toString)
+                    .sorted()
+                    .forEach(m -> logger.info("  {}", m));
+        }
+    }
+}
@@ -42,9 +42,11 @@ import pascal.taie.analysis.pta.core.cs.element.InstanceField;
 import pascal.taie.analysis.pta.core.cs.element.MapBasedCSManager;
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
 import pascal.taie.analysis.pta.core.cs.element.StaticField;
+import pascal.taie.analysis.pta.core.cs.selector.BudgetedSelector;
 import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
 import pascal.taie.analysis.pta.core.heap.HeapModel;
 import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.plugin.PointerAnalysisMetrics;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.analysis.pta.pts.PointsToSetFactory;
 import pascal.taie.config.AnalysisOptions;
@@ -70,7 +72,7 @@ class Solver {
 
     private final HeapModel heapModel;
 
-    private final ContextSelector contextSelector;
+    private ContextSelector contextSelector;
 
     private CSManager csManager;
 
@@ -80,6 +82,8 @@ class Solver {
 
     private WorkList workList;
 
+    private PointerAnalysisMetrics metrics;
+
     private PointerAnalysisResult result;
 
     Solver(AnalysisOptions options, HeapModel heapModel,
@@ -92,13 +96,27 @@ class Solver {
     void solve() {
         initialize();
         analyze();
+        metrics.stopProgressLog();
+        getResult().storeResult(PointerAnalysisMetrics.class.getName(), metrics);
+        if (contextSelector instanceof BudgetedSelector budgeted) {
+            budgeted.report();
+            getResult().storeResult(BudgetedSelector.class.getName(),
+                    budgeted.getDowngradedMethods());
+        }
     }
 
     private void initialize() {
         csManager = new MapBasedCSManager();
         callGraph = new CSCallGraph(csManager);
+        contextSelector = applyBudget(contextSelector);
         pointerFlowGraph = new PointerFlowGraph();
         workList = new WorkList();
+        metrics = new PointerAnalysisMetrics(csManager,
+                callGraph::getNumberOfMethods, callGraph::getNumberOfEdges,
+                workList::size, false);
+        // option "progress-interval" (in seconds) enables progress log
+        metrics.startProgressLog(getLongOption("progress-interval") * 1000);
+        workList.setPollHook(metrics::logProgressIfDue);
         // process program entry, i.e., main method
         Context defContext = contextSelector.getEmptyContext();
         JMethod main = World.get().getMainMethod();
@@ -107,6 +125,41 @@ class Solver {
         addReachable(csMethod);
     }
 
+    /**
+     * Wraps the selector by {@link BudgetedSelector} if any budget is given
+     * by options "budget-time" (in seconds), "budget-cs-pointers" (counting
+     * CS pointers of all kinds), or "budget-heap" (in MB).
+     * Option "budget-downgrade-heaviest" gives the number of methods
+     * with most contexts to downgrade on exceeding.
+     */
+    private ContextSelector applyBudget(ContextSelector selector) {
+        long time = getLongOption("budget-time");
+        long csPointers = getLongOption("budget-cs-pointers");
+        long heap = getLongOption("budget-heap");
+        if (time <= 0 && csPointers <= 0 && heap <= 0) {
+            return selector;
+        }
+        return new BudgetedSelector(selector, time * 1000, csPointers,
+                heap << 20, (int) getLongOption("budget-downgrade-heaviest"),
+                this::countCSPointers);
+    }
+
+    /**
+     * @return the number of CS pointers of all kinds, i.e., CS variables,
+     * static fields, instance fields and array indexes.
+     */
+    private long countCSPointers() {
+        return (long) csManager.getCSVars().size() +
+                csManager.getStaticFields().size() +
+                csManager.getInstanceFields().size() +
+                csManager.getArrayIndexes().size();
+    }
+
+    private long getLongOption(String key) {
+        Object value = options.get(key);
+        return value == null ? 0 : ((Number) value).longValue();
+    }
+
     /**
      * Processes new reachable context-sensitive method.
      */
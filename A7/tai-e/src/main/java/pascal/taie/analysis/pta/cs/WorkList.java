@@ -35,6 +35,20 @@ class WorkList {
 
     private final Queue<Entry> entries = new ArrayDeque<>();
 
+    /**
+     * Action to run before each retrieval, or null.
+     */
+    private Runnable pollHook;
+
+    /**
+     * Sets an action to run whenever an entry is about to be retrieved.
+     * As the solver retrieves an entry after it has processed the previous
+     * one, the action sees the solver in a consistent state.
+     */
+    void setPollHook(Runnable pollHook) {
+        this.pollHook = pollHook;
+    }
+
     /**
      * Adds an entry to the work list.
      */
@@ -47,6 +61,9 @@ class WorkList {
      * if this work list is empty.
      */
     Entry pollEntry() {
+        if (pollHook != null) {
+            pollHook.run();
+        }
         return entries.poll();
     }
 
@@ -57,6 +74,13 @@ class WorkList {
         return entries.isEmpty();
     }
 
+    /**
+     * @return the number of pending entries.
+     */
+    int size() {
+        return entries.size();
+    }
+
     /**
      * Represents entries in the work list.
      * Each entry consists of a pointer and a points-to set.
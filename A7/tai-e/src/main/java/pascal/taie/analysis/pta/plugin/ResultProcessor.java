@@ -24,17 +24,23 @@ package pascal.taie.analysis.pta.plugin;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.pta.MappedPointerAnalysisResult;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.ConfigException;
 import pascal.taie.util.AnalysisException;
 import pascal.taie.util.collection.Streams;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.PrintStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -47,6 +53,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.function.Predicate;
 import java.util.function.ToIntFunction;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import static pascal.taie.util.collection.CollectionUtils.sum;
 
@@ -54,7 +62,8 @@ import static pascal.taie.util.collection.CollectionUtils.sum;
  * Dump points-to set to file or compare the analysis result with
  * the ones read from input file.
  * Currently, the compare functionality is mainly for testing purpose.
- * It is not efficient and not recommended applying on large program.
+ * It is not efficient and not recommended applying on large program,
+ * for which action "merge-compare" compares in bounded memory.
  */
 public class ResultProcessor {
 
@@ -78,24 +87,42 @@ public class ResultProcessor {
         }
         String file = options.getString("file");
         switch (action) {
-            case "dump" -> dumpPointsToSet(result, file);
+            case "dump" -> dumpPointsToSet(result, file, getDumpBuffer(options));
             case "compare" -> comparePointsToSet(result, file);
+            case "merge-compare" -> mergeComparePointsToSet(result, file,
+                    getDumpBuffer(options), getMaxMismatches(options));
+            case "store" -> storeResult(result, file);
         }
     }
 
+    /**
+     * Prints statistics of the result. The numbers of context-sensitive
+     * points-to facts are taken from {@link PointerAnalysisMetrics} if the
+     * solver has reported them, otherwise they are counted from the result.
+     */
     private static void printStatistics(PointerAnalysisResult result) {
         int varInsens = result.getVars().size();
         int varSens = result.getCSVars().size();
         int vptSizeInsens = sum(result.getVars(), v -> result.getPointsToSet(v).size());
-        ToIntFunction<Pointer> getSize = p -> p.getPointsToSet().size();
-        int vptSizeSens = sum(result.getCSVars(), getSize);
-        int sfptSizeSens = sum(result.getStaticFields(), getSize);
-        int ifptSizeSens = sum(result.getInstanceFields(), getSize);
-        int aptSizeSens = sum(result.getArrayIndexes(), getSize);
+        long vptSizeSens, sfptSizeSens, ifptSizeSens, aptSizeSens;
+        PointerAnalysisMetrics metrics = result.getResult(
+                PointerAnalysisMetrics.class.getName());
+        if (metrics != null && metrics.isPointsToReported()) {
+            vptSizeSens = metrics.getVarPointsTo();
+            sfptSizeSens = metrics.getStaticFieldPointsTo();
+            ifptSizeSens = metrics.getInstanceFieldPointsTo();
+            aptSizeSens = metrics.getArrayPointsTo();
+        } else {
+            ToIntFunction<Pointer> getSize = p -> p.getPointsToSet().size();
+            vptSizeSens = sum(result.getCSVars(), getSize);
+            sfptSizeSens = sum(result.getStaticFields(), getSize);
+            ifptSizeSens = sum(result.getInstanceFields(), getSize);
+            aptSizeSens = sum(result.getArrayIndexes(), getSize);
+        }
         int reachableInsens = result.getCallGraph().getNumberOfMethods();
         int reachableSens = result.getCSCallGraph().getNumberOfMethods();
-        int callEdgeInsens = (int) result.getCallGraph().edges().count();
-        int callEdgeSens = (int) result.getCSCallGraph().edges().count();
+        int callEdgeInsens = result.getCallGraph().getNumberOfEdges();
+        int callEdgeSens = result.getCSCallGraph().getNumberOfEdges();
         System.out.println("-------------- Pointer analysis statistics: --------------");
         System.out.printf("%-30s%s (insens) / %s (sens)%n", "#var pointers:",
                 format(varInsens), format(varSens));
@@ -114,40 +141,79 @@ public class ResultProcessor {
         System.out.println("----------------------------------------");
     }
 
-    private static String format(int i) {
+    private static String format(long i) {
         return formatter.format(i);
     }
 
-    private static void dumpPointsToSet(PointerAnalysisResult result, String output) {
+    /**
+     * @return memory limit (in bytes) of the points-to sets buffered
+     * by dumping, given by option "dump-buffer" (in MB, 64 by default).
+     */
+    private static long getDumpBuffer(AnalysisOptions options) {
+        Object value = options.get("dump-buffer");
+        long mb = value == null ? 64 : ((Number) value).longValue();
+        return mb << 20;
+    }
+
+    /**
+     * Dumps points-to sets in the order of pointers. To bound the memory,
+     * pointers are sorted externally, and points-to sets are converted to
+     * strings one at a time. If the output file ends with ".gz",
+     * it is compressed by gzip.
+     */
+    private static void dumpPointsToSet(PointerAnalysisResult result,
+                                        String output, long bufferLimit) {
         PrintStream out;
         if (output != null) {  // if output file is given, then dump to the file
             File outFile = new File(output);
             try {
-                out = new PrintStream(new FileOutputStream(outFile));
+                out = new PrintStream(openOutput(outFile), false);
                 logger.info("Dumping points-to set to {} ...", outFile);
-            } catch (FileNotFoundException e) {
+            } catch (IOException e) {
                 throw new RuntimeException("Failed to open output file", e);
             }
         } else {  // otherwise, dump to System.out
             out = System.out;
         }
-        dumpPointers(out, result.getCSVars(), "variables");
-        dumpPointers(out, result.getStaticFields(), "static fields");
-        dumpPointers(out, result.getInstanceFields(), "instance fields");
-        dumpPointers(out, result.getArrayIndexes(), "array indexes");
+        dumpPointers(out, result.getCSVars(), "variables", bufferLimit);
+        dumpPointers(out, result.getStaticFields(), "static fields", bufferLimit);
+        dumpPointers(out, result.getInstanceFields(), "instance fields", bufferLimit);
+        dumpPointers(out, result.getArrayIndexes(), "array indexes", bufferLimit);
         if (out != System.out) {
             out.close();
         }
     }
 
-    private static void dumpPointers(PrintStream out, Collection<? extends Pointer> pointers, String desc) {
+    private static OutputStream openOutput(File file) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        if (file.getName().endsWith(".gz")) {
+            out = new GZIPOutputStream(out, 1 << 16);
+        }
+        return new BufferedOutputStream(out, 1 << 16);
+    }
+
+    private static void dumpPointers(PrintStream out, Collection<? extends Pointer> pointers,
+                                     String desc, long bufferLimit) {
         out.println(HEADER + desc);
-        pointers.stream()
-                .sorted(Comparator.comparing(Pointer::toString))
-                .forEach(p -> out.println(p + SEP + toString(p.getPointsToSet())));
+        try (ExternalSorter sorter = new ExternalSorter(bufferLimit)) {
+            pointers.forEach(p -> sorter.add(p.toString(), toString(p.getPointsToSet())));
+            sorter.forEachSorted((pointer, pts) -> out.println(pointer + SEP + pts));
+        }
         out.println();
     }
 
+    /**
+     * Stores the result to a binary file, which can be queried via
+     * {@link MappedPointerAnalysisResult} by other processes.
+     */
+    private static void storeResult(PointerAnalysisResult result, String output) {
+        if (output == null) {
+            throw new ConfigException("Action \"store\" requires option \"file\"");
+        }
+        logger.info("Storing pointer analysis result to {} ...", output);
+        MappedPointerAnalysisResult.write(result, Path.of(output));
+    }
+
     private static void comparePointsToSet(PointerAnalysisResult result, String input) {
         logger.info("Comparing points-to set with {} ...", input);
         var inputs = readPointsToSets(input);
@@ -179,6 +245,255 @@ public class ResultProcessor {
         }
     }
 
+    /**
+     * @return the maximum number of mismatches to report, given by
+     * option "max-mismatches" (100 by default).
+     */
+    private static int getMaxMismatches(AnalysisOptions options) {
+        Object value = options.get("max-mismatches");
+        return value == null ? 100 : ((Number) value).intValue();
+    }
+
+    /**
+     * Compares points-to sets with the ones in input file, which must be
+     * dumped by this class (possibly gzip-compressed), thus is sorted by
+     * pointers. The input and the points-to sets of the result are both
+     * streamed in the order of pointers and merged, so that the memory
+     * does not grow with the size of the input. The first mismatches are
+     * reported together with the numbers of all mismatches.
+     */
+    private static void mergeComparePointsToSet(PointerAnalysisResult result,
+                                                String input, long bufferLimit,
+                                                int maxMismatches) {
+        logger.info("Merge-comparing points-to set with {} ...", input);
+        mergeComparePointsToSet(result.getCSVars(), result.getStaticFields(),
+                result.getInstanceFields(), result.getArrayIndexes(),
+                input, bufferLimit, maxMismatches);
+    }
+
+    /**
+     * Merge-compares the points-to sets of given pointers with the ones
+     * in input file, section by section in the order of dumping.
+     *
+     * @throws AnalysisException if any mismatches are found, or the
+     *                           input is not a sorted dump
+     */
+    static void mergeComparePointsToSet(Collection<? extends Pointer> vars,
+                                        Collection<? extends Pointer> staticFields,
+                                        Collection<? extends Pointer> instanceFields,
+                                        Collection<? extends Pointer> arrayIndexes,
+                                        String input, long bufferLimit,
+                                        int maxMismatches) {
+        Mismatches mismatches = new Mismatches(maxMismatches);
+        try (SortedInput expected = new SortedInput(Path.of(input))) {
+            mergeCompare(expected, vars, "variables",
+                    bufferLimit, mismatches);
+            mergeCompare(expected, staticFields, "static fields",
+                    bufferLimit, mismatches);
+            mergeCompare(expected, instanceFields, "instance fields",
+                    bufferLimit, mismatches);
+            mergeCompare(expected, arrayIndexes, "array indexes",
+                    bufferLimit, mismatches);
+        }
+        if (mismatches.getTotal() > 0) {
+            throw new AnalysisException(mismatches.toString());
+        }
+    }
+
+    private static void mergeCompare(SortedInput expected,
+                                     Collection<? extends Pointer> pointers,
+                                     String desc, long bufferLimit,
+                                     Mismatches mismatches) {
+        expected.enterSection(HEADER + desc);
+        try (ExternalSorter sorter = new ExternalSorter(bufferLimit)) {
+            pointers.forEach(p -> sorter.add(p.toString(), toString(p.getPointsToSet())));
+            sorter.forEachSorted((pointer, given) -> {
+                // expected pointers before the given one are absent in result
+                String[] e;
+                while ((e = expected.peek()) != null && e[0].compareTo(pointer) < 0) {
+                    mismatches.add(e[0], e[1], null);
+                    expected.next();
+                }
+                if (e != null && e[0].equals(pointer)) {
+                    if (!e[1].equals(given)) {
+                        mismatches.add(pointer, e[1], given);
+                    }
+                    expected.next();
+                } else {
+                    mismatches.add(pointer, null, given);
+                }
+            });
+        }
+        for (String[] e; (e = expected.peek()) != null; expected.next()) {
+            mismatches.add(e[0], e[1], null);
+        }
+    }
+
+    /**
+     * Reader of dumped points-to sets, which reads one line at a time,
+     * and checks that the sections are in the order of dumping and
+     * pointers are sorted in each section. Each section starts with its
+     * header, and ends with an empty line, the next header or the end
+     * of file.
+     */
+    private static class SortedInput implements AutoCloseable {
+
+        private final Path file;
+
+        private final BufferedReader reader;
+
+        /**
+         * The next (pointer, points-to set) in current section,
+         * or null if it has not been read.
+         */
+        private String[] current;
+
+        /**
+         * Whether the end of current section has been reached.
+         */
+        private boolean sectionEnd = true;
+
+        /**
+         * The header which ends current section, if it has been read.
+         */
+        private String nextHeader;
+
+        private SortedInput(Path file) {
+            this.file = file;
+            try {
+                InputStream in = Files.newInputStream(file);
+                if (file.toString().endsWith(".gz")) {
+                    in = new GZIPInputStream(in, 1 << 16);
+                }
+                reader = new BufferedReader(new InputStreamReader(in), 1 << 16);
+            } catch (IOException e) {
+                throw new AnalysisException(
+                        "Failed to read points-to set from " + file, e);
+            }
+        }
+
+        /**
+         * Enters the section with given header, which must be the next
+         * section of the input.
+         *
+         * @throws AnalysisException if the next section has other header,
+         *                           or there are no more sections
+         */
+        private void enterSection(String header) {
+            current = null;
+            String line = nextHeader;
+            nextHeader = null;
+            if (line == null) {
+                // skips the empty lines between sections
+                do {
+                    line = readLine();
+                } while (line != null && line.isEmpty());
+            }
+            if (!header.equals(line)) {
+                throw new AnalysisException("Expected \"" + header +
+                        "\" in " + file + ", but found " +
+                        (line == null ? "the end of file" : "\"" + line + "\""));
+            }
+            sectionEnd = false;
+        }
+
+        /**
+         * @return the next (pointer, points-to set) in current section,
+         * or null if the section ends.
+         */
+        private String[] peek() {
+            while (current == null && !sectionEnd) {
+                String line = readLine();
+                if (line == null || line.isEmpty()) {
+                    sectionEnd = true;
+                } else if (line.startsWith(HEADER)) {
+                    nextHeader = line;
+                    sectionEnd = true;
+                } else {
+                    int i = line.indexOf(SEP);
+                    if (i >= 0) {
+                        current = new String[]{
+                                line.substring(0, i), line.substring(i + SEP.length()) };
+                    }
+                }
+            }
+            return current;
+        }
+
+        private void next() {
+            String[] previous = peek();
+            current = null;
+            String[] e = peek();
+            if (previous != null && e != null && e[0].compareTo(previous[0]) < 0) {
+                throw new AnalysisException("Points-to sets in " + file +
+                        " are not sorted, compare them by action \"compare\"");
+            }
+        }
+
+        private String readLine() {
+            try {
+                return reader.readLine();
+            } catch (IOException e) {
+                throw new AnalysisException(
+                        "Failed to read points-to set from " + file, e);
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                reader.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Counts mismatches of points-to sets, and keeps the first ones.
+     */
+    private static class Mismatches {
+
+        private final int limit;
+
+        private final List<String> first = new ArrayList<>();
+
+        private long missing;
+
+        private long unexpected;
+
+        private long different;
+
+        private Mismatches(int limit) {
+            this.limit = limit;
+        }
+
+        private void add(String pointer, String expected, String given) {
+            if (given == null) {
+                ++missing;
+            } else if (expected == null) {
+                ++unexpected;
+            } else {
+                ++different;
+            }
+            if (first.size() < limit) {
+                first.add(String.format("%s, expected: %s, given: %s",
+                        pointer, expected, given));
+            }
+        }
+
+        private long getTotal() {
+            return missing + unexpected + different;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d mismatches of points-to set (%d missing," +
+                            " %d unexpected, %d different), the first %d:%n",
+                    getTotal(), missing, unexpected, different, first.size()) +
+                    String.join("\n", first);
+        }
+    }
+
     private static Map<String, String> readPointsToSets(String input) {
         try {
             Map<String, String> result = new LinkedHashMap<>();
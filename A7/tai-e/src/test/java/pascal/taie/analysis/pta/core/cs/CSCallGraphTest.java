@@ -0,0 +1,120 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package pascal.taie.analysis.pta.core.cs;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import pascal.taie.World;
+import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.graph.callgraph.CallKind;
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.MapBasedCSManager;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class CSCallGraphTest {
+
+    private static JMethod caller;
+
+    @BeforeClass
+    public static void buildWorld() {
+        Tests.testCSPTA("cspta", "OneCall", "cs:1-call", "action:null");
+        caller = World.get().getClassHierarchy()
+                .getClass("C").getDeclaredMethod("m");
+    }
+
+    @Test
+    public void testCallSites() {
+        CSManager csManager = new MapBasedCSManager();
+        CSCallGraph callGraph = new CSCallGraph(csManager);
+        Context context = TrieContext.make();
+        CSMethod csCaller = csManager.getCSMethod(context, caller);
+        List<Invoke> invokes = getInvokesIn(caller);
+        Set<CSCallSite> expected = invokes.stream()
+                .map(invoke -> csManager.getCSCallSite(context, invoke))
+                .collect(Collectors.toSet());
+        Assert.assertEquals(5, expected.size());
+        // call sites of unreachable methods are built on demand,
+        // without being attached to their container
+        Assert.assertEquals(expected, callGraph.getCallSitesIn(csCaller));
+        expected.forEach(cs -> Assert.assertNull(callGraph.getContainerOf(cs)));
+        Assert.assertTrue(callGraph.addReachableMethod(csCaller));
+        Assert.assertFalse(callGraph.addReachableMethod(csCaller));
+        // call sites of reachable methods are built once, when the
+        // methods become reachable
+        Set<CSCallSite> callSites = callGraph.getCallSitesIn(csCaller);
+        Assert.assertEquals(expected, callSites);
+        callSites.forEach(cs -> Assert.assertSame(csCaller, callGraph.getContainerOf(cs)));
+        // other contexts of the method have their own call sites
+        // for the same invocations
+        CSMethod csCaller2 = csManager.getCSMethod(TrieContext.make("c"), caller);
+        callGraph.addReachableMethod(csCaller2);
+        Set<CSCallSite> callSites2 = callGraph.getCallSitesIn(csCaller2);
+        Assert.assertTrue(callSites2.stream().noneMatch(callSites::contains));
+        Assert.assertEquals(Set.copyOf(invokes), callSites2.stream()
+                .map(CSCallSite::getCallSite)
+                .collect(Collectors.toSet()));
+    }
+
+    @Test
+    public void testNumberOfEdges() {
+        CSManager csManager = new MapBasedCSManager();
+        CSCallGraph callGraph = new CSCallGraph(csManager);
+        Context context = TrieContext.make();
+        CSMethod csCaller = csManager.getCSMethod(context, caller);
+        callGraph.addReachableMethod(csCaller);
+        Assert.assertEquals(0, callGraph.getNumberOfEdges());
+        int nEdges = 0;
+        for (CSCallSite csCallSite : callGraph.getCallSitesIn(csCaller)) {
+            Invoke invoke = csCallSite.getCallSite();
+            CSMethod csCallee = csManager.getCSMethod(context,
+                    invoke.getMethodRef().resolve());
+            Edge<CSCallSite, CSMethod> edge = new Edge<>(
+                    CallKind.VIRTUAL, csCallSite, csCallee);
+            Assert.assertTrue(callGraph.addEdge(edge));
+            Assert.assertEquals(++nEdges, callGraph.getNumberOfEdges());
+            // duplicate edges are not counted
+            Assert.assertFalse(callGraph.addEdge(
+                    new Edge<>(CallKind.VIRTUAL, csCallSite, csCallee)));
+            Assert.assertEquals(nEdges, callGraph.getNumberOfEdges());
+        }
+        Assert.assertEquals(nEdges, callGraph.edges().count());
+    }
+
+    private static List<Invoke> getInvokesIn(JMethod method) {
+        return method.getIR()
+                .stmts()
+                .filter(s -> s instanceof Invoke)
+                .map(s -> (Invoke) s)
+                .toList();
+    }
+}
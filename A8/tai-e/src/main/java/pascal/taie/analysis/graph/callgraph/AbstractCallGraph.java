@@ -27,9 +27,11 @@ import pascal.taie.util.collection.MultiMap;
 import pascal.taie.util.collection.Sets;
 import pascal.taie.util.collection.Views;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -38,6 +40,13 @@ import java.util.stream.Stream;
  * This class contains the data structures and methods for storing and
  * accessing information of a call graph. The logic of modifying
  * (adding new call edges and methods) is left to its subclasses.
+ * <p>
+ * Method-level adjacency (successors and predecessors) is materialized
+ * in compressed sparse row form on first query, and is rebuilt only
+ * after the call graph has been modified, so queries on a call graph
+ * that is no longer modified do not allocate. Subclasses must increase
+ * {@link #modCount} whenever they add or remove reachable methods
+ * or call edges.
  *
  * @param <CallSite> type of call sites
  * @param <Method>   type of methods
@@ -52,6 +61,14 @@ public abstract class AbstractCallGraph<CallSite, Method>
     protected final Set<Method> entryMethods = Sets.newSet();
     protected final Set<Method> reachableMethods = Sets.newSet();
 
+    /**
+     * Number of modifications (additions and removals of reachable methods
+     * and call edges) of this call graph, which invalidates the adjacency.
+     */
+    protected int modCount = 0;
+
+    private Adjacency adjacency;
+
     @Override
     public Set<CallSite> getCallersOf(Method callee) {
         return Views.toMappedSet(calleeToEdges.get(callee), Edge::getCallSite);
@@ -64,9 +81,7 @@ public abstract class AbstractCallGraph<CallSite, Method>
 
     @Override
     public Set<Method> getCalleesOfM(Method caller) {
-        return callSitesIn(caller)
-                .flatMap(cs -> getCalleesOf(cs).stream())
-                .collect(Collectors.toUnmodifiableSet());
+        return getSuccsOf(caller);
     }
 
     @Override
@@ -128,39 +143,222 @@ public abstract class AbstractCallGraph<CallSite, Method>
 
     @Override
     public boolean hasEdge(Method source, Method target) {
-        return getSuccsOf(source).contains(target);
+        Adjacency adj = getAdjacency();
+        int s = adj.getIndex(source), t = adj.getIndex(target);
+        return s >= 0 && t >= 0 && adj.hasSucc(s, t);
     }
 
     @Override
     public Set<MethodEdge<CallSite, Method>> getInEdgesOf(Method method) {
-        return getCallersOf(method)
-                .stream()
-                .map(cs -> new MethodEdge<>(getContainerOf(cs), method, cs))
-                .collect(Collectors.toUnmodifiableSet());
+        Adjacency adj = getAdjacency();
+        int i = adj.getIndex(method);
+        if (i < 0) {
+            return Set.of();
+        }
+        if (adj.inEdges[i] == null) {
+            adj.inEdges[i] = getCallersOf(method)
+                    .stream()
+                    .map(cs -> new MethodEdge<>(getContainerOf(cs), method, cs))
+                    .collect(Collectors.toUnmodifiableSet());
+        }
+        return adj.inEdges[i];
     }
 
     @Override
     public Set<MethodEdge<CallSite, Method>> getOutEdgesOf(Method method) {
-        return callSitesIn(method)
-                .flatMap(cs -> getCalleesOf(cs)
-                        .stream()
-                        .map(callee -> new MethodEdge<>(method, callee, cs)))
-                .collect(Collectors.toUnmodifiableSet());
+        Adjacency adj = getAdjacency();
+        int i = adj.getIndex(method);
+        if (i < 0) {
+            return Set.of();
+        }
+        if (adj.outEdges[i] == null) {
+            adj.outEdges[i] = callSitesIn(method)
+                    .flatMap(cs -> getCalleesOf(cs)
+                            .stream()
+                            .map(callee -> new MethodEdge<>(method, callee, cs)))
+                    .collect(Collectors.toUnmodifiableSet());
+        }
+        return adj.outEdges[i];
     }
 
     @Override
     public Set<Method> getPredsOf(Method node) {
-        return getCallersOf(node)
-                .stream()
-                .map(this::getContainerOf)
-                .collect(Collectors.toUnmodifiableSet());
+        Adjacency adj = getAdjacency();
+        int i = adj.getIndex(node);
+        if (i < 0) {
+            return Set.of();
+        }
+        if (adj.predSets[i] == null) {
+            adj.predSets[i] = adj.toSet(adj.predOffsets, adj.preds, i);
+        }
+        return adj.predSets[i];
     }
 
     @Override
     public Set<Method> getSuccsOf(Method node) {
-        return callSitesIn(node)
-                .flatMap(cs -> getCalleesOf(cs).stream())
-                .collect(Collectors.toUnmodifiableSet());
+        Adjacency adj = getAdjacency();
+        int i = adj.getIndex(node);
+        if (i < 0) {
+            return Set.of();
+        }
+        if (adj.succSets[i] == null) {
+            adj.succSets[i] = adj.toSet(adj.succOffsets, adj.succs, i);
+        }
+        return adj.succSets[i];
+    }
+
+    // Primitive-index adjacency API.
+
+    /**
+     * @return index of the given method in the adjacency of this call graph,
+     * or -1 if the method is not reachable. The indexes are within
+     * [0, {@link #getNumberOfMethods()}) and stay valid until the call graph
+     * is modified.
+     */
+    public int getIndex(Method method) {
+        return getAdjacency().getIndex(method);
+    }
+
+    /**
+     * @return the method of given index.
+     */
+    public Method getMethod(int index) {
+        return getAdjacency().nodes[index];
+    }
+
+    /**
+     * Performs the given action for index of each successor (i.e., callee)
+     * of the method of given index.
+     */
+    public void forEachSucc(int index, IntConsumer action) {
+        Adjacency adj = getAdjacency();
+        for (int i = adj.succOffsets[index]; i < adj.succOffsets[index + 1]; ++i) {
+            action.accept(adj.succs[i]);
+        }
+    }
+
+    /**
+     * Performs the given action for index of each predecessor (i.e., caller)
+     * of the method of given index.
+     */
+    public void forEachPred(int index, IntConsumer action) {
+        Adjacency adj = getAdjacency();
+        for (int i = adj.predOffsets[index]; i < adj.predOffsets[index + 1]; ++i) {
+            action.accept(adj.preds[i]);
+        }
+    }
+
+    private Adjacency getAdjacency() {
+        // the sizes are also checked, in case of subclasses which
+        // modify the protected maps and sets without updating modCount
+        if (adjacency == null || adjacency.modCount != modCount
+                || adjacency.nodes.length != getNumberOfMethods()
+                || adjacency.nEdges != getNumberOfEdges()) {
+            adjacency = new Adjacency();
+        }
+        return adjacency;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Set<T>[] newSetArray(int length) {
+        return (Set<T>[]) new Set<?>[length];
+    }
+
+    /**
+     * Compressed sparse row representation of the method-level adjacency.
+     * Successors and predecessors of each node are deduplicated and sorted
+     * by index. Set views and method edges are built lazily per node.
+     */
+    private class Adjacency {
+
+        private final int modCount;
+
+        private final int nEdges;
+
+        private final Method[] nodes;
+
+        private final Map<Method, Integer> indexes;
+
+        private final int[] succOffsets;
+
+        private final int[] succs;
+
+        private final int[] predOffsets;
+
+        private final int[] preds;
+
+        private final Set<Method>[] succSets;
+
+        private final Set<Method>[] predSets;
+
+        private final Set<MethodEdge<CallSite, Method>>[] outEdges;
+
+        private final Set<MethodEdge<CallSite, Method>>[] inEdges;
+
+        @SuppressWarnings("unchecked")
+        private Adjacency() {
+            modCount = AbstractCallGraph.this.modCount;
+            nEdges = getNumberOfEdges();
+            int n = reachableMethods.size();
+            nodes = (Method[]) reachableMethods.toArray();
+            indexes = Maps.newMap(n);
+            for (int i = 0; i < n; ++i) {
+                indexes.put(nodes[i], i);
+            }
+            // collect (caller, callee) index pairs
+            long[] pairs = edges()
+                    .mapToLong(e -> {
+                        int s = getIndex(getContainerOf(e.getCallSite()));
+                        int t = getIndex(e.getCallee());
+                        return s < 0 || t < 0 ? -1 : ((long) s << 32) | t;
+                    })
+                    .filter(p -> p >= 0)
+                    .sorted()
+                    .distinct()
+                    .toArray();
+            succOffsets = new int[n + 1];
+            predOffsets = new int[n + 1];
+            for (long p : pairs) {
+                ++succOffsets[(int) (p >>> 32) + 1];
+                ++predOffsets[(int) p + 1];
+            }
+            for (int i = 0; i < n; ++i) {
+                succOffsets[i + 1] += succOffsets[i];
+                predOffsets[i + 1] += predOffsets[i];
+            }
+            succs = new int[pairs.length];
+            preds = new int[pairs.length];
+            int[] predNext = Arrays.copyOf(predOffsets, n);
+            for (int i = 0; i < pairs.length; ++i) {
+                // pairs are sorted by (caller, callee), thus both
+                // succs and preds of each node are sorted by index
+                int s = (int) (pairs[i] >>> 32), t = (int) pairs[i];
+                succs[i] = t;
+                preds[predNext[t]++] = s;
+            }
+            succSets = newSetArray(n);
+            predSets = newSetArray(n);
+            outEdges = newSetArray(n);
+            inEdges = newSetArray(n);
+        }
+
+        private int getIndex(Method method) {
+            Integer i = indexes.get(method);
+            return i == null ? -1 : i;
+        }
+
+        private boolean hasSucc(int source, int target) {
+            return Arrays.binarySearch(succs, succOffsets[source],
+                    succOffsets[source + 1], target) >= 0;
+        }
+
+        private Set<Method> toSet(int[] offsets, int[] adj, int index) {
+            Set<Method> set = Sets.newHybridSet();
+            for (int i = offsets[index]; i < offsets[index + 1]; ++i) {
+                set.add(nodes[adj[i]]);
+            }
+            return Collections.unmodifiableSet(set);
+        }
     }
 
     @Override
@@ -0,0 +1,71 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta;
+
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.ResultHolder;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Context-insensitive queries of pointer analysis results, i.e., the
+ * queries of {@link PointerAnalysisResult} which do not involve contexts.
+ */
+public interface CIPointerAnalysisResult extends ResultHolder {
+
+    /**
+     * @return all reachable variables in the program.
+     */
+    Collection<Var> getVars();
+
+    /**
+     * @return all reachable objects in the program.
+     */
+    Collection<Obj> getObjects();
+
+    /**
+     * @return set of Obj pointed to by var.
+     */
+    Set<Obj> getPointsToSet(Var var);
+
+    /**
+     * @return set of Obj pointed to by field access base.field.
+     */
+    Set<Obj> getPointsToSet(Var base, JField field);
+
+    /**
+     * @return set of Obj pointed to by static field.
+     */
+    Set<Obj> getPointsToSet(JField field);
+
+    /**
+     * @return the call graph without contexts.
+     */
+    CallGraph<Invoke, JMethod> getCallGraph();
+}
@@ -0,0 +1,217 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.context;
+
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Trie-based contexts. All contexts form a tree, where each context is
+ * a node which consists of its parent (the context without its last
+ * element) and its last element, and the empty context is the root.
+ * <p>
+ * Contexts are interned, i.e., each sequence of elements is represented
+ * by exactly one node, thus contexts are compared by identity, and each
+ * context has a dense integer id. Appending an element to a context is
+ * a lookup in the children of the node, and dropping the first element
+ * of a context is cached in the node, so k-limited contexts can be
+ * selected by {@link #append(Context, Object, int)} and
+ * {@link #truncate(Context, int)} without allocating or hashing lists.
+ * <p>
+ * The tree is global, thus it keeps all contexts which have been created
+ * alive, and their ids keep growing. Each analysis calls {@link #reset()}
+ * before it starts, which releases the contexts of previous analyses.
+ * Hence only one analysis can use trie contexts at a time: analyses which
+ * run concurrently, or interleave, in the same JVM would reset the
+ * contexts of each other.
+ */
+public class TrieContext implements Context {
+
+    private static final AtomicInteger counter = new AtomicInteger();
+
+    /**
+     * The empty context.
+     */
+    private static final TrieContext ROOT = new TrieContext(null, null);
+
+    private final TrieContext parent;
+
+    private final Object element;
+
+    private final int length;
+
+    private final int id;
+
+    /**
+     * Map from element to the context which appends it to this context.
+     */
+    private Map<Object, TrieContext> children;
+
+    /**
+     * This context without its first element, computed on demand.
+     */
+    private TrieContext suffix;
+
+    private TrieContext(TrieContext parent, Object element) {
+        this.parent = parent;
+        this.element = element;
+        this.length = parent == null ? 0 : parent.length + 1;
+        this.id = counter.getAndIncrement();
+    }
+
+    /**
+     * @return an empty context.
+     */
+    public static Context make() {
+        return ROOT;
+    }
+
+    /**
+     * @return a context that consists of given context elements.
+     */
+    @SafeVarargs
+    public static <T> Context make(T... elements) {
+        TrieContext context = ROOT;
+        for (T element : elements) {
+            context = context.getChild(element);
+        }
+        return context;
+    }
+
+    /**
+     * @return a context which appends element to given context, and keeps
+     * at most limit most recent elements. E.g., append([a, b], c, 2) returns
+     * [b, c]. This is how k-limited selectors make method contexts.
+     */
+    public static Context append(Context context, Object element, int limit) {
+        if (limit <= 0) {
+            return ROOT;
+        }
+        TrieContext result = truncate(context, limit - 1);
+        return result.getChild(element);
+    }
+
+    /**
+     * @return a context which keeps at most limit most recent elements
+     * of given context. This is how k-limited selectors make heap contexts.
+     */
+    public static TrieContext truncate(Context context, int limit) {
+        TrieContext result = of(context);
+        while (result.length > Math.max(limit, 0)) {
+            result = result.getSuffix();
+        }
+        return result;
+    }
+
+    /**
+     * Discards all contexts except the empty one, and restarts the ids,
+     * so that the contexts of the next analysis are dense again.
+     * The contexts created before the reset remain usable on their own,
+     * but they are no longer identical to the equal contexts created
+     * after it, thus they must not be mixed.
+     */
+    public static void reset() {
+        synchronized (ROOT) {
+            ROOT.children = null;
+            counter.set(ROOT.id + 1);
+        }
+    }
+
+    /**
+     * @return the dense id of this context. The empty context has id 0.
+     */
+    public int getId() {
+        return id;
+    }
+
+    @Override
+    public int getLength() {
+        return length;
+    }
+
+    @Override
+    public Object getElementAt(int i) {
+        if (i < 0 || i >= length) {
+            throw new AnalysisException(
+                    "Context " + this + " doesn't have " + i + "-th element");
+        }
+        TrieContext context = this;
+        for (int j = length - 1; j > i; --j) {
+            context = context.parent;
+        }
+        return context.element;
+    }
+
+    @Override
+    public int hashCode() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return getElements().toString();
+    }
+
+    private synchronized TrieContext getChild(Object element) {
+        if (children == null) {
+            children = Maps.newHybridMap();
+        }
+        return children.computeIfAbsent(element, e -> new TrieContext(this, e));
+    }
+
+    private TrieContext getSuffix() {
+        if (suffix == null) {
+            suffix = length <= 1 ? ROOT : parent.getSuffix().getChild(element);
+        }
+        return suffix;
+    }
+
+    private List<Object> getElements() {
+        List<Object> elements = new ArrayList<>(length);
+        for (TrieContext c = this; c != ROOT; c = c.parent) {
+            elements.add(c.element);
+        }
+        Collections.reverse(elements);
+        return elements;
+    }
+
+    /**
+     * Converts given context to the interned trie-based context.
+     */
+    private static TrieContext of(Context context) {
+        if (context instanceof TrieContext trieContext) {
+            return trieContext;
+        }
+        TrieContext result = ROOT;
+        for (int i = 0; i < context.getLength(); ++i) {
+            result = result.getChild(context.getElementAt(i));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.toolkit.zipper;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.toolkit.PointerAnalysisResultEx;
+import pascal.taie.analysis.pta.toolkit.PointerAnalysisResultExImpl;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.ReferenceType;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Selects precision-critical methods in the way of Zipper.
+ * <p>
+ * For each type T, the methods invoked on objects of T are the methods of T.
+ * Objects that flow into the methods of T via parameters (IN methods) and
+ * flow out via return values (OUT methods) are merged among all receiver
+ * objects of T under context insensitivity, which is where context
+ * sensitivity gains precision, e.g., for wrappers, containers and factories.
+ * The methods whose variables are on such flows, i.e., are reachable from
+ * IN parameters and can reach OUT return variables in the object flow
+ * graph restricted to the methods of T, are precision-critical.
+ */
+public class Zipper {
+
+    private static final Logger logger = LogManager.getLogger(Zipper.class);
+
+    private final PointerAnalysisResult pta;
+
+    private final PointerAnalysisResultEx ptaEx;
+
+    private final ObjectFlowGraph ofg;
+
+    /**
+     * @param pta result of a context-insensitive pointer analysis.
+     */
+    public Zipper(PointerAnalysisResult pta) {
+        this.pta = pta;
+        this.ptaEx = new PointerAnalysisResultExImpl(pta);
+        this.ofg = new ObjectFlowGraph(pta);
+    }
+
+    public Set<JMethod> selectPrecisionCriticalMethods() {
+        MultiMap<Type, JMethod> methodsOf = Maps.newMultiMap();
+        pta.getObjects().forEach(obj ->
+                methodsOf.putAll(obj.getType(), ptaEx.getMethodsInvokedOn(obj)));
+        Set<JMethod> pcms = Sets.newSet();
+        methodsOf.forEachSet((type, methods) ->
+                pcms.addAll(selectPrecisionCriticalMethods(methods)));
+        logger.info("#precision-critical methods: {}", pcms.size());
+        return pcms;
+    }
+
+    private Set<JMethod> selectPrecisionCriticalMethods(Set<JMethod> methods) {
+        Set<Object> ins = Sets.newSet();
+        Set<Object> outs = Sets.newSet();
+        for (JMethod method : methods) {
+            IR ir = method.getIR();
+            ir.getParams().stream()
+                    .filter(Zipper::isConcerned)
+                    .forEach(ins::add);
+            ir.getReturnVars().stream()
+                    .filter(Zipper::isConcerned)
+                    .forEach(outs::add);
+        }
+        if (ins.isEmpty() || outs.isEmpty()) {
+            return Set.of();
+        }
+        Set<Object> forward = traverse(ins, methods, ofg::getSuccsOf);
+        Set<Object> backward = traverse(outs, methods, ofg::getPredsOf);
+        Set<JMethod> pcms = Sets.newSet();
+        forward.forEach(node -> {
+            if (node instanceof Var var && backward.contains(var)) {
+                pcms.add(var.getMethod());
+            }
+        });
+        return pcms;
+    }
+
+    /**
+     * Traverses the object flow graph from given nodes, only via variables
+     * of given methods and instance fields.
+     */
+    private static Set<Object> traverse(
+            Collection<Object> entries, Set<JMethod> methods,
+            Function<Object, Set<Object>> next) {
+        Set<Object> visited = Sets.newSet();
+        visited.addAll(entries);
+        Deque<Object> stack = new ArrayDeque<>(entries);
+        while (!stack.isEmpty()) {
+            for (Object node : next.apply(stack.pop())) {
+                if ((!(node instanceof Var var) ||
+                        methods.contains(var.getMethod())) &&
+                        visited.add(node)) {
+                    stack.push(node);
+                }
+            }
+        }
+        return visited;
+    }
+
+    private static boolean isConcerned(Var var) {
+        return var.getType() instanceof ReferenceType;
+    }
+}
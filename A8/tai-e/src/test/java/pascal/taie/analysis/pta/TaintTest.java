@@ -22,8 +22,26 @@
 
 package pascal.taie.analysis.pta;
 
+import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Test;
+import pascal.taie.World;
 import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.pta.core.cs.element.InstanceField;
+import pascal.taie.analysis.pta.core.heap.AllocationSiteBasedModel;
+import pascal.taie.analysis.pta.cs.CSPTA;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.language.classes.JField;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 public class TaintTest {
 
@@ -70,4 +88,67 @@ public class TaintTest {
         Tests.testCSPTA(DIR, "TaintInList",
                 "cs:2-obj;taint-config:src/test/resources/pta/taint/taint-config.yml");
     }
+
+    @Test
+    public void testStore() throws IOException {
+        // the stored result, including taint objects, must answer the
+        // context-insensitive queries in the same way as the result
+        // of the analysis
+        Path file = Files.createTempFile("cspta", ".bin");
+        try {
+            for (String main : List.of("SimpleTaint", "TaintInList")) {
+                Tests.testCSPTA(DIR, main, "action:store", "file:" + file,
+                        "taint-config:src/test/resources/pta/taint/taint-config.yml");
+                PointerAnalysisResult result = World.get().getResult(CSPTA.ID);
+                // the solver and the taint analysis are left to the
+                // assignment, and until they are finished, the result is
+                // empty and the comparison below would be vacuous
+                Assume.assumeTrue("the result is empty", result.getVars()
+                        .stream()
+                        .anyMatch(v -> !result.getPointsToSet(v).isEmpty()));
+                CIPointerAnalysisResult stored = MappedPointerAnalysisResult.open(
+                        file, new AllocationSiteBasedModel(new AnalysisOptions(Map.of(
+                                "merge-string-constants", false,
+                                "merge-string-objects", false,
+                                "merge-string-builders", false,
+                                "merge-exception-objects", true))));
+                assertSameResult(result, stored);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Compares the results by the strings of the elements, as the objects
+     * are created by different heap models.
+     */
+    private static void assertSameResult(PointerAnalysisResult expected,
+                                         CIPointerAnalysisResult actual) {
+        Assert.assertEquals(toStrings(expected.getObjects()),
+                toStrings(actual.getObjects()));
+        Set<JField> fields = expected.getInstanceFields()
+                .stream()
+                .map(InstanceField::getField)
+                .collect(Collectors.toSet());
+        for (Var var : expected.getVars()) {
+            Assert.assertEquals(toStrings(expected.getPointsToSet(var)),
+                    toStrings(actual.getPointsToSet(var)));
+            for (JField field : fields) {
+                Assert.assertEquals(toStrings(expected.getPointsToSet(var, field)),
+                        toStrings(actual.getPointsToSet(var, field)));
+            }
+        }
+        expected.getStaticFields().forEach(f -> Assert.assertEquals(
+                toStrings(expected.getPointsToSet(f.getField())),
+                toStrings(actual.getPointsToSet(f.getField()))));
+        Assert.assertEquals(toStrings(expected.getCallGraph().edges().toList()),
+                toStrings(actual.getCallGraph().edges().toList()));
+    }
+
+    private static Set<String> toStrings(Collection<?> elements) {
+        return elements.stream()
+                .map(Object::toString)
+                .collect(Collectors.toSet());
+    }
 }
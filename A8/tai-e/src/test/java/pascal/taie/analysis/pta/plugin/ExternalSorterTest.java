@@ -0,0 +1,71 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+public class ExternalSorterTest {
+
+    /**
+     * Sorts 1000 records whose keys have many duplicates,
+     * and checks the result against a stable in-memory sort.
+     */
+    private static void testSort(long bufferLimit, int maxFanIn) {
+        List<String[]> records = new ArrayList<>();
+        for (int i = 0; i < 1000; ++i) {
+            records.add(new String[]{ "k" + (i * 37 % 101), "v" + i });
+        }
+        List<String> result = new ArrayList<>();
+        try (ExternalSorter sorter = new ExternalSorter(bufferLimit, maxFanIn)) {
+            records.forEach(r -> sorter.add(r[0], r[1]));
+            sorter.forEachSorted((key, value) -> result.add(key + "=" + value));
+        }
+        records.sort(Comparator.comparing((String[] r) -> r[0]));
+        List<String> expected = records.stream()
+                .map(r -> r[0] + "=" + r[1])
+                .toList();
+        Assert.assertEquals(expected, result);
+    }
+
+    @Test
+    public void testInMemory() {
+        testSort(Long.MAX_VALUE, 64);
+    }
+
+    @Test
+    public void testSpill() {
+        // about 10 records per run, merged at once
+        testSort(1000, 200);
+    }
+
+    @Test
+    public void testMultiPassMerge() {
+        // about 10 records per run, merged in several passes
+        testSort(1000, 3);
+    }
+}
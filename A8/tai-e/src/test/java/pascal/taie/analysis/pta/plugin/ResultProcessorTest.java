@@ -0,0 +1,239 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package pascal.taie.analysis.pta.plugin;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.MapBasedCSManager;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.heap.MockObj;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.language.type.NullType;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Streams;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+public class ResultProcessorTest {
+
+    private static final String VARS = "Points-to sets of all variables";
+
+    private static final String STATIC_FIELDS = "Points-to sets of all static fields";
+
+    private static final String INSTANCE_FIELDS = "Points-to sets of all instance fields";
+
+    private static final String ARRAY_INDEXES = "Points-to sets of all array indexes";
+
+    private final CSManager csManager = new MapBasedCSManager();
+
+    private List<Pointer> vars;
+
+    private List<Pointer> staticFields;
+
+    private List<Pointer> arrayIndexes;
+
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        vars = List.of(newPointer("c", 1, 2), newPointer("a", 1),
+                newPointer("b"));
+        staticFields = List.of(newPointer("s", 3));
+        arrayIndexes = List.of(newPointer("arr", 2, 3));
+        file = Files.createTempFile("pts", ".txt");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void testMatch() throws IOException {
+        write(file, getDump());
+        compare(file);
+        // the dump may be compressed
+        Path gz = Files.createTempFile("pts", ".txt.gz");
+        try (PrintStream out = new PrintStream(
+                new GZIPOutputStream(Files.newOutputStream(gz)))) {
+            getDump().forEach(out::println);
+        }
+        try {
+            compare(gz);
+        } finally {
+            Files.deleteIfExists(gz);
+        }
+    }
+
+    @Test
+    public void testMismatches() throws IOException {
+        List<String> dump = getDump();
+        // "b" is given but not expected, "bb" is expected but not given,
+        // and "c" is expected to point to another object
+        dump.set(dump.indexOf(line(vars.get(2))), "bb -> []");
+        dump.set(dump.indexOf(line(vars.get(0))), "c -> []");
+        write(file, dump);
+        AnalysisException e = Assert.assertThrows(AnalysisException.class,
+                () -> compare(file));
+        Assert.assertTrue(e.getMessage(), e.getMessage().contains(
+                "3 mismatches of points-to set (1 missing, 1 unexpected, 1 different)"));
+        Assert.assertTrue(e.getMessage().contains("bb, expected: [], given: null"));
+        Assert.assertTrue(e.getMessage().contains("b, expected: null, given: []"));
+        Assert.assertTrue(e.getMessage().contains("c, expected: [], given: "));
+    }
+
+    @Test
+    public void testUnsorted() throws IOException {
+        List<String> dump = getDump();
+        Collections.swap(dump, 1, 2);
+        write(file, dump);
+        AnalysisException e = Assert.assertThrows(AnalysisException.class,
+                () -> compare(file));
+        Assert.assertTrue(e.getMessage(), e.getMessage().contains("not sorted"));
+    }
+
+    @Test
+    public void testMissingSection() throws IOException {
+        List<String> dump = getDump();
+        int i = dump.indexOf(STATIC_FIELDS);
+        // removes the header, the entry and the empty line
+        dump.subList(i, i + 3).clear();
+        write(file, dump);
+        assertUnexpectedSection(STATIC_FIELDS, INSTANCE_FIELDS);
+    }
+
+    @Test
+    public void testSectionsOutOfOrder() throws IOException {
+        List<String> dump = getDump();
+        int i = dump.indexOf(STATIC_FIELDS);
+        // moves the static fields after the instance fields
+        List<String> section = new ArrayList<>(dump.subList(i, i + 3));
+        dump.subList(i, i + 3).clear();
+        dump.addAll(dump.indexOf(ARRAY_INDEXES), section);
+        write(file, dump);
+        assertUnexpectedSection(STATIC_FIELDS, INSTANCE_FIELDS);
+    }
+
+    @Test
+    public void testTruncated() throws IOException {
+        List<String> dump = getDump();
+        write(file, dump.subList(0, dump.indexOf(ARRAY_INDEXES)));
+        AnalysisException e = Assert.assertThrows(AnalysisException.class,
+                () -> compare(file));
+        Assert.assertTrue(e.getMessage(), e.getMessage().contains(
+                "Expected \"" + ARRAY_INDEXES + "\"") &&
+                e.getMessage().contains("the end of file"));
+    }
+
+    private void assertUnexpectedSection(String expected, String found) {
+        AnalysisException e = Assert.assertThrows(AnalysisException.class,
+                () -> compare(file));
+        Assert.assertTrue(e.getMessage(), e.getMessage().contains(
+                "Expected \"" + expected + "\"") &&
+                e.getMessage().contains("found \"" + found + "\""));
+    }
+
+    private void compare(Path input) {
+        ResultProcessor.mergeComparePointsToSet(vars, staticFields, List.of(),
+                arrayIndexes, input.toString(), 1 << 20, 100);
+    }
+
+    /**
+     * @return the lines of points-to sets dumped by {@link ResultProcessor}.
+     */
+    private List<String> getDump() {
+        List<String> dump = new ArrayList<>();
+        addSection(dump, VARS, vars);
+        addSection(dump, STATIC_FIELDS, staticFields);
+        addSection(dump, INSTANCE_FIELDS, List.of());
+        addSection(dump, ARRAY_INDEXES, arrayIndexes);
+        return dump;
+    }
+
+    private static void addSection(List<String> dump, String header,
+                                   List<Pointer> pointers) {
+        dump.add(header);
+        pointers.stream()
+                .map(ResultProcessorTest::line)
+                .sorted()
+                .forEach(dump::add);
+        dump.add("");
+    }
+
+    private static String line(Pointer pointer) {
+        return pointer + " -> " +
+                Streams.toString(pointer.getPointsToSet().objects());
+    }
+
+    private static void write(Path file, List<String> lines) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file);
+             PrintStream printer = new PrintStream(out)) {
+            lines.forEach(printer::println);
+        }
+    }
+
+    private Pointer newPointer(String name, int... allocs) {
+        PointsToSet pts = PointsToSetFactory.make();
+        for (int alloc : allocs) {
+            pts.addObject(csManager.getCSObj(TrieContext.make(),
+                    new MockObj("test", alloc, NullType.NULL)));
+        }
+        return new TestPointer(name, pts);
+    }
+
+    private record TestPointer(String name, PointsToSet pts) implements Pointer {
+
+        @Override
+        public PointsToSet getPointsToSet() {
+            return pts;
+        }
+
+        @Override
+        public void setPointsToSet(PointsToSet pointsToSet) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Type getType() {
+            return null;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}